@@ -0,0 +1,148 @@
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class keeps one process from taking on more work than it can do quickly. It makes
+ * two checks before a session may generate a response: first, the session's own
+ * TokenBucket must have a token, so that no single client can flood the process; second,
+ * only so many responses may be generated at once across every session. A response that
+ * finds every slot taken waits in line, but only briefly; if no slot frees up in time, it
+ * is shed, and the user is asked to try again instead of everyone's responses slowing down
+ * together. Either way, a refused response costs almost nothing.
+ *
+ * The limits come from the system properties "dynamis.admission.maxConcurrent" (by default
+ * the number of processors), "dynamis.admission.queueMillis" (50), and
+ * "dynamis.admission.ratePerSecond" and "dynamis.admission.burst" (5 and 20) for each
+ * session. When ResponderMetrics is on, it counts the responses that were refused, shed,
+ * or had to wait, and how long they waited.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class AdmissionController
+{
+    private Semaphore permits;
+    private int maxConcurrent;
+    private long queueNanos;
+    private double ratePerSecond;
+    private int burst;
+    private AtomicInteger waitingCount;
+    /**
+     * This constructor creates a controller with the given limits.
+     *
+     * @param The most responses generated at once, how long a response may wait for a
+     * slot in milliseconds, and the rate and burst of each session's TokenBucket.
+     */
+    public AdmissionController(int maxConcurrent, long queueMillis, double ratePerSecond,
+        int burst)
+    {
+        if(maxConcurrent < 1 || queueMillis < 0) {
+            throw new IllegalArgumentException("At least one response must be allowed at "
+                + "once, and the wait cannot be negative.");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        queueNanos = TimeUnit.MILLISECONDS.toNanos(queueMillis);
+        permits = new Semaphore(maxConcurrent);
+        waitingCount = new AtomicInteger();
+        // This makes sure the limits are sound before any session needs a bucket.
+        createBucket();
+    }
+
+    /**
+     * This method creates a controller with the limits from the system properties.
+     *
+     * @return The controller, or null if "dynamis.admission" is "false".
+     */
+    public static AdmissionController fromProperties()
+    {
+        if(System.getProperty("dynamis.admission", "true").equals("false")) {
+            return null;
+        }
+        return new AdmissionController(
+            Integer.getInteger("dynamis.admission.maxConcurrent",
+                Runtime.getRuntime().availableProcessors()),
+            Long.getLong("dynamis.admission.queueMillis", 50),
+            Double.parseDouble(System.getProperty("dynamis.admission.ratePerSecond", "5")),
+            Integer.getInteger("dynamis.admission.burst", 20));
+    }
+
+    /**
+     * This method creates the TokenBucket of a new session.
+     *
+     * @return A full bucket with this controller's rate and burst.
+     */
+    public TokenBucket createBucket()
+    {
+        return new TokenBucket(ratePerSecond, burst);
+    }
+
+    /**
+     * This method decides whether a session may generate a response now, waiting briefly
+     * for a slot if every one is taken. A response that is admitted must be followed by
+     * release once it is done.
+     *
+     * @param The TokenBucket of the session.
+     * @return The boolean concerning whether the response was admitted.
+     */
+    public boolean admit(TokenBucket bucket)
+    {
+        if(!bucket.tryTake()) {
+            if(ResponderMetrics.ENABLED) {
+                ResponderMetrics.INSTANCE.recordRateLimited();
+            }
+            return false;
+        }
+        if(permits.tryAcquire()) {
+            return true;
+        }
+        boolean isAdmitted;
+        long waitStartTime = System.nanoTime();
+        waitingCount.incrementAndGet();
+        try {
+            isAdmitted = permits.tryAcquire(queueNanos, TimeUnit.NANOSECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            isAdmitted = false;
+        }
+        finally {
+            waitingCount.decrementAndGet();
+        }
+        if(ResponderMetrics.ENABLED) {
+            ResponderMetrics.INSTANCE.recordQueued(System.nanoTime() - waitStartTime,
+                isAdmitted);
+        }
+        return isAdmitted;
+    }
+
+    /**
+     * This method gives back the slot of a response that admit let through.
+     */
+    public void release()
+    {
+        permits.release();
+    }
+
+    /**
+     * This is an accessor for the number of responses being generated right now.
+     *
+     * @return The number of slots taken.
+     */
+    public int getActiveCount()
+    {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * This is an accessor for the number of responses waiting for a slot right now.
+     *
+     * @return The number waiting.
+     */
+    public int getWaitingCount()
+    {
+        return waitingCount.get();
+    }
+}
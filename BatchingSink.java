@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * This class is a ResponseSink that gathers many responses and sends them together in one
+ * write, which suits output that nobody is waiting on line by line, like a file of
+ * transcripts. Whatever is left over is sent when the sink is flushed.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class BatchingSink implements ResponseSink
+{
+    private Writer target;
+    private StringBuilder batch;
+    private int responsesPerBatch;
+    private int responseCount;
+    /**
+     * This constructor creates a sink that sends a write for every so many responses.
+     *
+     * @param The Writer to send batches to and the number of responses in each batch.
+     */
+    public BatchingSink(Writer target, int responsesPerBatch)
+    {
+        this.target = target;
+        this.responsesPerBatch = responsesPerBatch;
+        batch = new StringBuilder(4096);
+        responseCount = 0;
+    }
+
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    public void write(String text)
+    {
+        batch.append(text);
+    }
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    public void writeLine(String line)
+    {
+        batch.append(line).append(System.lineSeparator());
+    }
+
+    /**
+     * This method counts a finished response and sends the batch once it is full.
+     */
+    public void endResponse()
+    {
+        responseCount++;
+        if(responseCount >= responsesPerBatch) {
+            flush();
+        }
+    }
+
+    /**
+     * This method sends the batch, full or not, right away.
+     */
+    public void flush()
+    {
+        try {
+            if(batch.length() > 0) {
+                target.append(batch);
+                batch.setLength(0);
+            }
+            target.flush();
+            responseCount = 0;
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
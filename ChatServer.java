@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class runs DYNAMIS as a server so that many people can talk to it at once. Each
+ * connection gets its own session: a Chatter with its own Responder, holding only that
+ * user's conversation state, while the reply tables are built once and shared by all of
+ * them. Every session runs on its own thread, which is a virtual thread wherever the Java
+ * runtime offers them, so thousands of mostly-idle sessions cost very little.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.14 (2026.10.17)
+ */
+public class ChatServer
+{
+    // With "dynamis.seed", session number n makes its random choices from the seed plus n,
+    // just as conversation n of a TranscriptBatch does, so that it can be replayed.
+    private static final Long SEED = Long.getLong("dynamis.seed");
+
+    private ServerSocketChannel serverChannel;
+    private ExecutorService sessionExecutor;
+    private AtomicLong nextSessionNumber;
+    private TranscriptJournal journal;
+    private AdmissionController admissionController;
+    /**
+     * This constructor opens the server on a port, but does not yet accept anyone.
+     *
+     * @param The port to listen on; 0 picks any free port.
+     */
+    public ChatServer(int port) throws IOException
+    {
+        this(port, null);
+    }
+
+    /**
+     * This constructor opens a server that keeps every exchange of every session in a
+     * TranscriptJournal.
+     *
+     * @param The port to listen on, and the TranscriptJournal, or null to keep nothing.
+     */
+    public ChatServer(int port, TranscriptJournal journal) throws IOException
+    {
+        this.journal = journal;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        sessionExecutor = createSessionExecutor();
+        nextSessionNumber = new AtomicLong();
+    }
+
+    /**
+     * This starts a server on the port given as the first argument (or 4040 by default). If
+     * the reply tables come from a knowledge base snapshot, a new snapshot compiled over it 
+     * is picked up within a few seconds, without interrupting anyone.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4040;
+        TranscriptJournal journal = TranscriptJournal.openFromProperties();
+        ChatServer server = new ChatServer(port, journal);
+        if(journal != null) {
+            // New sessions are turned away first; then the last commit window is written
+            // out, and sessions still running end quietly at their next entry.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                    journal.close();
+                }
+                catch(IOException e) {
+                    System.err.println("The journal could not be closed: " + e.getMessage());
+                }
+            }));
+        }
+        server.setAdmissionController(AdmissionController.fromProperties());
+        String snapshotPath = System.getProperty("dynamis.knowledgeBase");
+        if(snapshotPath != null) {
+            ReloadableReplyTables.getShared().watch(Paths.get(snapshotPath), 5);
+        }
+        System.out.println("DYNAMIS is listening on port " + server.getPort() + ".");
+        server.serve();
+    }
+
+    /**
+     * This is an accessor for the port that the server listens on.
+     *
+     * @return The port number.
+     */
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * This is a mutator for the AdmissionController that limits how fast each session may
+     * ask for responses and how many are generated at once; without one, there are no
+     * limits. It applies to sessions that start afterwards.
+     *
+     * @param The AdmissionController, or null.
+     */
+    public void setAdmissionController(AdmissionController admissionController)
+    {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * This method accepts connections until the server is closed, handing each one to its
+     * own session thread.
+     */
+    public void serve()
+    {
+        // The reply tables are prepared in the background, so that a large knowledge base
+        // does not hold up the first connections; a session that needs them sooner simply
+        // waits for the part it uses.
+        Thread preparer = new Thread(() -> ReloadableReplyTables.getShared().current()
+            .prepare(), "dynamis-reply-table-prepare");
+        preparer.setDaemon(true);
+        preparer.start();
+        while(serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                long sessionNumber = nextSessionNumber.getAndIncrement();
+                sessionExecutor.execute(() -> runSession(channel, sessionNumber));
+            }
+            catch(IOException e) {
+                if(serverChannel.isOpen()) {
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method stops accepting connections. Sessions already running are left to finish.
+     */
+    public void close() throws IOException
+    {
+        serverChannel.close();
+        sessionExecutor.shutdown();
+    }
+
+    /**
+     * This method holds one whole conversation over a socket, just as Chatter does over the
+     * Terminal, and closes the socket once the user says goodbye or disconnects.
+     *
+     * @param The socket channel of the connected user and the number of the session.
+     */
+    private void runSession(SocketChannel channel, long sessionNumber)
+    {
+        SessionRandom randomGenerator = SEED == null ? new SessionRandom()
+            : new SessionRandom(SEED + sessionNumber);
+        long sessionId = journal == null ? sessionNumber : journal.startSession();
+        try(SocketChannel session = channel) {
+            session.socket().setTcpNoDelay(true);
+            ResponseSink sink = new ConsoleSink(Channels.newOutputStream(session),
+                StandardCharsets.UTF_8);
+            Chatter chatter = new Chatter(session, sink, true, randomGenerator, journal,
+                sessionId);
+            chatter.setAdmissionController(admissionController);
+            chatter.start();
+        }
+        catch(NoSuchElementException e) {
+            // The user disconnected without saying goodbye; there is nothing left to do.
+        }
+        catch(IllegalStateException e) {
+            // The journal closes only when the server is shutting down, and then the
+            // session simply ends; anything else is a real failure.
+            if(journal == null || !journal.isClosed()) {
+                throw e;
+            }
+        }
+        catch(IOException | UncheckedIOException e) {
+            System.err.println("A session ended unexpectedly: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method creates the executor that sessions run on. Virtual threads only exist on
+     * newer Java runtimes, so they are looked up by name; on older runtimes every session
+     * instead gets a platform thread of its own.
+     *
+     * @return An executor that starts a new thread for every session.
+     */
+    static ExecutorService createSessionExecutor()
+    {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -1,3 +1,10 @@
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
 /**
  * This class creates a version of DYNAMIS, an artificial intelligence that can discuss 
  * philosophy (and other topics, to some degree) with the user. It is the main class for 
@@ -7,29 +14,108 @@
  * 
  * @author     Stephen Bothwell (a modification of the TechSupportv2 by Michael Kölling and 
  * David J. Barnes)
- * @version    0.3.10 (2017.10.09)
+ * @version    0.3.21 (2026.10.17)
  */
 public class Chatter
 {
     private Responder responder;
     private InputReader reader;
+    private TranscriptJournal journal;
+    private long sessionId;
+    private AdmissionController admissionController;
+    private TokenBucket tokenBucket;
+    private DeferredSink deferredSink;
     /**
      * This constructor creates the Chatter class by also forming objects of its heavily-used 
      * components: Responder and InputReader.
      */
     public Chatter()
     {
-        responder = new Responder();
-        reader = new InputReader();
+        this(new FileInputStream(FileDescriptor.in).getChannel(), new ConsoleSink(),
+            System.console() != null, new SessionRandom());
+    }
+
+    /**
+     * This constructor creates a Chatter that holds its conversation over the given streams, 
+     * such as those of a socket, rather than the Terminal. Its Responder shares the reply 
+     * tables with every other Chatter.
+     * 
+     * @param The stream the user's input comes from and the ResponseSink that DYNAMIS 
+     * answers through.
+     */
+    public Chatter(InputStream input, ResponseSink sink)
+    {
+        this(Channels.newChannel(input), sink, true, new SessionRandom(), null, 0);
+    }
+
+    /**
+     * This constructor creates a Chatter that reads its conversation from a channel, such 
+     * as standard input or a socket's.
+     * 
+     * @param The channel the user's input comes from, the ResponseSink that DYNAMIS 
+     * answers through, whether to prompt for each input (only worthwhile when someone is 
+     * typing), and the SessionRandom that makes the session's random choices.
+     */
+    public Chatter(ReadableByteChannel input, ResponseSink sink, boolean showsPrompt, 
+        SessionRandom randomGenerator)
+    {
+        this(input, sink, showsPrompt, randomGenerator, null, 0);
+    }
+
+    /**
+     * This constructor creates a Chatter whose every exchange, both what the user types and 
+     * what DYNAMIS answers, is kept in a TranscriptJournal.
+     * 
+     * @param The channel the user's input comes from, the ResponseSink that DYNAMIS 
+     * answers through, whether to prompt for each input, the SessionRandom that makes the 
+     * session's random choices, the TranscriptJournal (or null to keep nothing), and the 
+     * session's ID in it.
+     */
+    public Chatter(ReadableByteChannel input, ResponseSink sink, boolean showsPrompt, 
+        SessionRandom randomGenerator, TranscriptJournal journal, long sessionId)
+    {
+        this.journal = journal;
+        this.sessionId = sessionId;
+        // Only the Responder's sink is journaled, so the prompts are left out.
+        ResponseSink responseSink = journal == null ? sink 
+            : new JournalingSink(sink, journal, sessionId);
+        deferredSink = new DeferredSink(responseSink);
+        responder = new Responder(ReloadableReplyTables.getShared(), deferredSink, 
+            randomGenerator);
+        reader = new InputReader(input, sink, showsPrompt);
+    }
+
+    /**
+     * This is a mutator for the AdmissionController that decides whether each input is
+     * answered; without one, every input is.
+     * 
+     * @param The AdmissionController shared by the process's sessions, or null.
+     */
+    public void setAdmissionController(AdmissionController admissionController)
+    {
+        this.admissionController = admissionController;
+        tokenBucket = admissionController == null ? null : admissionController.createBucket();
     }
 
     /**
      * This is my attempt at running this project outside of BlueJ.
      */
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException
     {
-        Chatter chatter = new Chatter();
-        chatter.start();
+        // With "dynamis.journal", the conversation is kept in a TranscriptJournal there.
+        TranscriptJournal journal = TranscriptJournal.openFromProperties();
+        long sessionId = journal == null ? 0 : journal.startSession();
+        try {
+            Chatter chatter = new Chatter(new FileInputStream(FileDescriptor.in)
+                .getChannel(), new ConsoleSink(), System.console() != null, 
+                new SessionRandom(), journal, sessionId);
+            chatter.start();
+        }
+        finally {
+            if(journal != null) {
+                journal.close();
+            }
+        }
     }
     
     /**
@@ -43,16 +129,61 @@ public class Chatter
         boolean finished = false;
         responder.printWelcome();
         String name = reader.getInput();
+        recordInput(name);
         responder.setName(name);
         while(!finished) {
+            long readStartTime = ResponderMetrics.ENABLED ? System.nanoTime() : 0;
             String input = reader.getInput();
+            if(ResponderMetrics.ENABLED) {
+                ResponderMetrics.INSTANCE.recordInputRead(System.nanoTime() - readStartTime);
+            }
+            recordInput(input);
             if(input.contains(responder.getEndingString())) {
                 finished = true;
             }
             else {
-                responder.generateResponse(input);
+                respond(input);
             }
         }
         responder.printGoodbye();
     }
+    
+    /**
+     * This method keeps a line the user typed in the journal, if there is one.
+     * 
+     * @param The String of the user's input.
+     */
+    private void recordInput(String input)
+    {
+        if(journal != null) {
+            journal.append(sessionId, TranscriptJournal.INPUT, input);
+        }
+    }
+    
+    /**
+     * This method answers one input, if the AdmissionController lets it through, and
+     * otherwise tells the user that DYNAMIS is too busy.
+     * 
+     * @param The String of the user's input.
+     */
+    private void respond(String input)
+    {
+        if(admissionController == null) {
+            responder.generateResponse(input);
+        }
+        else if(admissionController.admit(tokenBucket)) {
+            // The response is only written once the slot is free for someone else.
+            deferredSink.hold();
+            try {
+                responder.generateResponse(input);
+            }
+            finally {
+                admissionController.release();
+                deferredSink.release();
+            }
+        }
+        else {
+            responder.printOverloaded();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class decides which worker holds each session when sessions are spread over several
+ * DYNAMIS processes. Every worker is placed at many points around a ring of 64-bit hashes,
+ * its virtual nodes, and a session belongs to the first point at or after the hash of its
+ * ID. The same ID therefore always lands on the same worker, and when a worker joins or
+ * leaves, only the sessions on the arcs it takes over or gives up move; with N workers,
+ * that is about one session in N. Many virtual nodes per worker keep the arcs, and so the
+ * share of sessions, close to even.
+ *
+ * A ring never changes; adding or removing a worker makes a new ring, so that one can be
+ * swapped in while lookups on the old one carry on without a lock.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class ConsistentHashRing
+{
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private List<InetSocketAddress> workers;
+    private int virtualNodes;
+    // These hold the points of the ring in increasing order and, for each one, the
+    // position of its worker in workers.
+    private long[] points;
+    private int[] owners;
+    /**
+     * This constructor places the given workers on a ring.
+     *
+     * @param The addresses of the workers and the number of virtual nodes for each.
+     */
+    public ConsistentHashRing(List<InetSocketAddress> workers, int virtualNodes)
+    {
+        if(virtualNodes < 1) {
+            throw new IllegalArgumentException("Each worker needs at least one virtual node.");
+        }
+        this.workers = Collections.unmodifiableList(new ArrayList<>(workers));
+        this.virtualNodes = virtualNodes;
+        int pointCount = workers.size() * virtualNodes;
+        // Each point is packed with its owner so that one sort orders both.
+        long[][] packedPoints = new long[pointCount][];
+        for(int worker = 0; worker < workers.size(); worker++) {
+            String name = workers.get(worker).getHostString() + ":"
+                + workers.get(worker).getPort();
+            for(int node = 0; node < virtualNodes; node++) {
+                packedPoints[worker * virtualNodes + node] =
+                    new long[] {hash(name + "#" + node), worker};
+            }
+        }
+        Arrays.sort(packedPoints, (first, second) -> Long.compare(first[0], second[0]));
+        points = new long[pointCount];
+        owners = new int[pointCount];
+        for(int point = 0; point < pointCount; point++) {
+            points[point] = packedPoints[point][0];
+            owners[point] = (int) packedPoints[point][1];
+        }
+    }
+
+    /**
+     * This method makes a ring with one more worker.
+     *
+     * @param The address of the new worker.
+     * @return The new ring, or this one if the worker is already on it.
+     */
+    public ConsistentHashRing withWorker(InetSocketAddress worker)
+    {
+        if(workers.contains(worker)) {
+            return this;
+        }
+        List<InetSocketAddress> newWorkers = new ArrayList<>(workers);
+        newWorkers.add(worker);
+        return new ConsistentHashRing(newWorkers, virtualNodes);
+    }
+
+    /**
+     * This method makes a ring without one of the workers.
+     *
+     * @param The address of the worker to leave out.
+     * @return The new ring, or this one if the worker is not on it.
+     */
+    public ConsistentHashRing withoutWorker(InetSocketAddress worker)
+    {
+        if(!workers.contains(worker)) {
+            return this;
+        }
+        List<InetSocketAddress> newWorkers = new ArrayList<>(workers);
+        newWorkers.remove(worker);
+        return new ConsistentHashRing(newWorkers, virtualNodes);
+    }
+
+    /**
+     * This method finds the worker that holds a session.
+     *
+     * @param The ID of the session.
+     * @return The address of its worker.
+     * @throws IllegalStateException  If there are no workers.
+     */
+    public InetSocketAddress getWorker(long sessionId)
+    {
+        if(points.length == 0) {
+            throw new IllegalStateException("There are no workers to send the session to.");
+        }
+        int point = Arrays.binarySearch(points, mix64(sessionId));
+        if(point < 0) {
+            point = -point - 1;
+        }
+        // Past the last point, the ring wraps around to the first.
+        return workers.get(owners[point == points.length ? 0 : point]);
+    }
+
+    /**
+     * This is an accessor for the workers on the ring.
+     *
+     * @return The addresses of the workers, which cannot be changed.
+     */
+    public List<InetSocketAddress> getWorkers()
+    {
+        return workers;
+    }
+
+    /**
+     * This method hashes a name to a point on the ring, with 64-bit FNV-1a over its UTF-8
+     * bytes followed by the scrambling of mix64.
+     *
+     * @param The name.
+     * @return The point.
+     */
+    private static long hash(String name)
+    {
+        long hash = 0xCBF29CE484222325L;
+        for(byte value : name.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (value & 0xFF)) * 0x100000001B3L;
+        }
+        return mix64(hash);
+    }
+
+    /**
+     * This method scrambles the bits of a long, as SessionRandom does, so that session IDs
+     * that count up one by one still scatter around the whole ring.
+     *
+     * @param The long to scramble.
+     * @return The scrambled long.
+     */
+    private static long mix64(long value)
+    {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * This class is a ResponseSink that buffers a response and sends it in a single write once
+ * the response ends. By default it writes to the terminal, but through its own buffer on
+ * the standard output's file descriptor rather than through System.out, so sessions on
+ * different threads never wait on System.out's lock. It can also write to any other
+ * stream, such as a socket's.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class ConsoleSink implements ResponseSink
+{
+    private Writer writer;
+    /**
+     * This constructor creates a sink that writes to the terminal in the platform's
+     * character set, as System.out does.
+     */
+    public ConsoleSink()
+    {
+        this(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset());
+    }
+
+    /**
+     * This constructor creates a sink that writes to any stream.
+     *
+     * @param The stream to write to and the character set to encode text in.
+     */
+    public ConsoleSink(OutputStream stream, Charset charset)
+    {
+        writer = new BufferedWriter(new OutputStreamWriter(stream, charset), 8192);
+    }
+
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    public void write(String text)
+    {
+        try {
+            writer.write(text);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    public void writeLine(String line)
+    {
+        try {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method sends the response, since someone is waiting on the other side.
+     */
+    public void endResponse()
+    {
+        flush();
+    }
+
+    /**
+     * This method sends everything the sink holds right away.
+     */
+    public void flush()
+    {
+        try {
+            writer.flush();
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.util.Arrays;
+
+/**
+ * This class is one remembered conversation of Conversation Mode: a chain of links from one
+ * topic to the next. Topics are the int ids that the memory's WordDictionary gives them, so
+ * a link is just a pair of ints in an IntIntHashMap. The chain also remembers the order
+ * its links were made in, so that the oldest can be dropped when the chain grows too long.
+ *
+ * To find the last topic of a chain without following it, every topic points toward the
+ * end of its chain, as in a union-find forest whose roots are the last topics. A new link
+ * from the last topic of one run to another topic hangs the first run's root under the
+ * other's, and dropping the link of a topic that nothing leads to just cuts that topic
+ * loose, so the way Conversation Mode grows and trims its chains keeps the pointers up to
+ * date as it goes. Any other change, such as a topic being linked somewhere new, makes the
+ * pointers be rebuilt from the links on the next lookup. Since a topic can come up more
+ * than once, a chain can loop back on itself; a root that still has a link shows that its
+ * run loops, and only then are the links followed, watching for the loop instead of
+ * following them forever.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.04 (2026.10.17)
+ */
+public class ConversationChain
+{
+    private IntIntHashMap linkMap;
+    // This holds the keys in the order they were first linked, from keyOrderStart onward,
+    // so that the oldest link can be found when the chain has to be trimmed.
+    private int[] keyOrder;
+    private int keyOrderStart;
+    private int keyOrderEnd;
+    // This points each topic toward the last topic of its run; a topic without an entry is
+    // a root. The pointers are only trusted while they are not stale.
+    private IntIntHashMap tailPointers;
+    private boolean isStale;
+    // This counts the links that lead to each topic, so that a topic nothing leads to can
+    // be cut loose when its link is dropped.
+    private IntIntHashMap incomingCounts;
+    // This is reused by every walk along a looping chain.
+    private IntIntHashMap visited;
+    /**
+     * This constructor creates a chain without any links.
+     */
+    public ConversationChain()
+    {
+        linkMap = new IntIntHashMap();
+        keyOrder = new int[4];
+        keyOrderStart = 0;
+        keyOrderEnd = 0;
+        tailPointers = new IntIntHashMap();
+        isStale = false;
+        incomingCounts = new IntIntHashMap();
+        visited = new IntIntHashMap();
+    }
+
+    /**
+     * This method links one topic to the next, replacing any link the topic already had.
+     *
+     * @param The id of the topic being linked from and the id of the topic it leads to.
+     * @return The id of the topic it led to before, or IntIntHashMap.MISSING if it had no
+     * link.
+     */
+    public int put(int key, int value)
+    {
+        int oldValue = linkMap.put(key, value);
+        if(oldValue == value) {
+            return oldValue;
+        }
+        addIncoming(value, 1);
+        if(oldValue == IntIntHashMap.MISSING) {
+            if(keyOrderEnd == keyOrder.length) {
+                compactKeyOrder();
+            }
+            keyOrder[keyOrderEnd++] = key;
+            if(!isStale) {
+                joinRuns(key, value);
+            }
+        }
+        else {
+            // The key's old run may have led through any number of other topics.
+            addIncoming(oldValue, -1);
+            isStale = true;
+        }
+        return oldValue;
+    }
+
+    /**
+     * This is an accessor for the topic that was linked from first among those still in
+     * the chain.
+     *
+     * @return The id of the oldest key, or IntIntHashMap.MISSING if the chain is empty.
+     */
+    public int getOldestKey()
+    {
+        return keyOrderStart < keyOrderEnd ? keyOrder[keyOrderStart] : IntIntHashMap.MISSING;
+    }
+
+    /**
+     * This method removes the oldest link of the chain, making room for a new one.
+     *
+     * @return The id of the topic the removed link led to.
+     */
+    public int removeOldestLink()
+    {
+        int oldestKey = keyOrder[keyOrderStart++];
+        int value = linkMap.remove(oldestKey);
+        addIncoming(value, -1);
+        if(incomingCounts.containsKey(oldestKey)) {
+            // Topics that lead to this one may point through it.
+            isStale = true;
+        }
+        else {
+            tailPointers.remove(oldestKey);
+        }
+        return value;
+    }
+
+    /**
+     * This is an accessor for the keys of the chain in the order they were first linked.
+     *
+     * @param The position of the key, from 0 for the oldest up to one less than size().
+     * @return The id of the key at that position.
+     */
+    public int getKeyAt(int position)
+    {
+        return keyOrder[keyOrderStart + position];
+    }
+
+    /**
+     * This method makes room at the end of the key order, either by sliding the keys back
+     * over the slots of removed links or by growing the array.
+     */
+    private void compactKeyOrder()
+    {
+        int count = keyOrderEnd - keyOrderStart;
+        if(count * 2 <= keyOrder.length) {
+            System.arraycopy(keyOrder, keyOrderStart, keyOrder, 0, count);
+        }
+        else {
+            keyOrder = Arrays.copyOfRange(keyOrder, keyOrderStart,
+                keyOrderStart + keyOrder.length * 2);
+        }
+        keyOrderStart = 0;
+        keyOrderEnd = count;
+    }
+
+    /**
+     * This method changes the number of links that lead to a topic.
+     *
+     * @param The id of the topic and the change.
+     */
+    private void addIncoming(int topic, int change)
+    {
+        int count = incomingCounts.get(topic);
+        count = (count == IntIntHashMap.MISSING ? 0 : count) + change;
+        if(count > 0) {
+            incomingCounts.put(topic, count);
+        }
+        else {
+            incomingCounts.remove(topic);
+        }
+    }
+
+    /**
+     * This method hangs the run of a topic that had no link under the run of the topic it
+     * now leads to, unless that run already ends at the first topic, which makes a loop.
+     *
+     * @param The id of the newly linked topic and the id of the topic it leads to.
+     */
+    private void joinRuns(int key, int value)
+    {
+        int valueRoot = findRoot(value);
+        if(valueRoot != key) {
+            tailPointers.put(key, valueRoot);
+        }
+    }
+
+    /**
+     * This method finds the root of a topic's run, pointing every topic on the way
+     * straight at it.
+     *
+     * @param The id of the topic.
+     * @return The id of the root.
+     */
+    private int findRoot(int topic)
+    {
+        int root = topic;
+        int pointer = tailPointers.get(root);
+        while(pointer != IntIntHashMap.MISSING) {
+            root = pointer;
+            pointer = tailPointers.get(root);
+        }
+        while(topic != root) {
+            int next = tailPointers.put(topic, root);
+            topic = next;
+        }
+        return root;
+    }
+
+    /**
+     * This method rebuilds the pointers from the links, in the order the links were made.
+     */
+    private void rebuildTailPointers()
+    {
+        tailPointers.clear();
+        for(int position = keyOrderStart; position < keyOrderEnd; position++) {
+            int key = keyOrder[position];
+            joinRuns(key, linkMap.get(key));
+        }
+        isStale = false;
+    }
+
+    /**
+     * This is an accessor for the topic that a topic links to.
+     *
+     * @param The id of the topic being linked from.
+     * @return The id of the topic it leads to, or IntIntHashMap.MISSING if it has no link.
+     */
+    public int get(int key)
+    {
+        return linkMap.get(key);
+    }
+
+    /**
+     * This method states whether or not a topic has a link in this chain.
+     *
+     * @param The id of the topic to check for.
+     * @return The boolean concerning whether the topic is linked from.
+     */
+    public boolean containsKey(int key)
+    {
+        return linkMap.containsKey(key);
+    }
+
+    /**
+     * This is an accessor for the number of links in the chain.
+     *
+     * @return The number of topics that are linked from.
+     */
+    public int size()
+    {
+        return linkMap.size();
+    }
+
+    /**
+     * This method finds the last topic of a chain from a topic, which is the first topic
+     * reached that links nowhere. If the links loop back to a topic already passed, the
+     * walk stops at the topic that closes the loop.
+     *
+     * @param The id of the topic to start from.
+     * @return The id of the last topic reached from the starting topic.
+     */
+    public int findTail(int start)
+    {
+        if(isStale) {
+            rebuildTailPointers();
+        }
+        int root = findRoot(start);
+        if(!linkMap.containsKey(root)) {
+            return root;
+        }
+
+        // Where a loop stops depends on where the walk began, so it is walked.
+        visited.clear();
+        int current = start;
+        visited.put(current, 0);
+        int next = linkMap.get(current);
+        while(next != IntIntHashMap.MISSING && visited.putIfAbsent(next, 0)
+            == IntIntHashMap.MISSING) {
+            current = next;
+            next = linkMap.get(current);
+        }
+        return current;
+    }
+}
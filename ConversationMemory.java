@@ -0,0 +1,534 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds the conversations that Conversation Mode remembers. Every remembered word
+ * is given an int id by a WordDictionary shared across the session's conversations, and
+ * each conversation is a ConversationChain of links between those ids. Conversations are
+ * numbered in the order they were started. Alongside them, an index lists, for each word,
+ * the conversations that hold it in that order, so finding the first earlier conversation
+ * that the user's words connect to takes one lookup per word instead of a search through
+ * every conversation.
+ *
+ * The memory is bounded: it keeps at most a set number of conversations and a set number
+ * of links in each. When a new conversation would go over the limit, the conversation used
+ * least recently is forgotten; when a conversation grows too long, its oldest link is
+ * forgotten. Words that no remaining link mentions are dropped from the dictionary, so a
+ * long session's memory levels off instead of growing forever. The limits default to the
+ * system properties "dynamis.memory.maxConversations" and "dynamis.memory.maxLinks".
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.07 (2026.10.17)
+ */
+public class ConversationMemory
+{
+    private static final int DEFAULT_MAX_CONVERSATIONS =
+        Integer.getInteger("dynamis.memory.maxConversations", 256);
+    private static final int DEFAULT_MAX_LINKS =
+        Integer.getInteger("dynamis.memory.maxLinks", 1024);
+
+    private int maxConversations;
+    private int maxLinksPerConversation;
+
+    private WordDictionary dictionary;
+    // This counts how many links mention each word id, as a key or as a value.
+    private int[] referenceCounts;
+    // This keeps the conversations by number, ordered from least to most recently used.
+    private LinkedHashMap<Integer, ConversationChain> conversationMap;
+    private ConversationChain newestConversation;
+    private int newestConversationNumber;
+    private int nextConversationNumber;
+
+    // These map a word's id to the first and last postings of the conversations that hold
+    // it as a key. The postings form linked lists, kept in arrays, in conversation order.
+    private IntIntHashMap firstPostings;
+    private IntIntHashMap lastPostings;
+    private int[] postingConversations;
+    private int[] postingNexts;
+    private int freePosting;
+    private int postingLimit;
+
+    private long evictedConversationCount;
+    private long evictedLinkCount;
+    /**
+     * This constructor creates an empty memory with the default limits.
+     */
+    public ConversationMemory()
+    {
+        this(DEFAULT_MAX_CONVERSATIONS, DEFAULT_MAX_LINKS);
+    }
+
+    /**
+     * This constructor creates an empty memory with the given limits.
+     *
+     * @param The most conversations to remember and the most links to keep in each.
+     */
+    public ConversationMemory(int maxConversations, int maxLinksPerConversation)
+    {
+        if(maxConversations < 1 || maxLinksPerConversation < 1) {
+            throw new IllegalArgumentException("The limits of the memory must be positive.");
+        }
+        this.maxConversations = maxConversations;
+        this.maxLinksPerConversation = maxLinksPerConversation;
+        clear();
+    }
+
+    /**
+     * This method forgets every conversation, leaving the memory as it was when created.
+     */
+    private void clear()
+    {
+        dictionary = new WordDictionary();
+        referenceCounts = new int[16];
+        conversationMap = new LinkedHashMap<>(16, 0.75f, true);
+        newestConversation = null;
+        newestConversationNumber = -1;
+        nextConversationNumber = 0;
+        firstPostings = new IntIntHashMap();
+        lastPostings = new IntIntHashMap();
+        postingConversations = new int[16];
+        postingNexts = new int[16];
+        freePosting = -1;
+        postingLimit = 0;
+        evictedConversationCount = 0;
+        evictedLinkCount = 0;
+    }
+
+    /**
+     * This method starts a new, empty conversation after all of the others. Links added
+     * from now on go into it. If the memory is full, the least recently used conversation
+     * is forgotten first.
+     */
+    public void startConversation()
+    {
+        while(conversationMap.size() >= maxConversations) {
+            Iterator<Map.Entry<Integer, ConversationChain>> eldest =
+                conversationMap.entrySet().iterator();
+            Map.Entry<Integer, ConversationChain> entry = eldest.next();
+            evictConversation(entry.getKey(), entry.getValue());
+            eldest.remove();
+        }
+        newestConversationNumber = nextConversationNumber++;
+        newestConversation = new ConversationChain();
+        conversationMap.put(newestConversationNumber, newestConversation);
+    }
+
+    /**
+     * This method links one topic to the next in the newest conversation. If that
+     * conversation is full, its oldest link is forgotten first.
+     *
+     * @param The topic being linked from and the topic it leads to.
+     */
+    public void addLink(String key, String value)
+    {
+        // This marks the newest conversation as the most recently used.
+        conversationMap.get(newestConversationNumber);
+        int existingKeyId = dictionary.idOf(key);
+        boolean isNewKey = existingKeyId < 0 || !newestConversation.containsKey(existingKeyId);
+        while(isNewKey && newestConversation.size() >= maxLinksPerConversation) {
+            evictOldestLink(newestConversationNumber, newestConversation);
+        }
+
+        int keyId = retain(key);
+        int valueId = retain(value);
+        int oldValueId = newestConversation.put(keyId, valueId);
+        if(oldValueId == IntIntHashMap.MISSING) {
+            // Only the newest conversation ever gains keys, so its posting always belongs
+            // at the end of the word's list.
+            addPosting(keyId, newestConversationNumber);
+        }
+        else {
+            // The key was already counted by its earlier link.
+            release(keyId);
+            release(oldValueId);
+        }
+    }
+
+    /**
+     * This method finds the first conversation, in the order they were started, that holds
+     * any of the words of an input.
+     *
+     * @param The words of the user's input, as cut up by a ConversationTokenizer.
+     * @return The number of that conversation, or -1 if none of the words are remembered.
+     */
+    public int findFirstMatch(ConversationTokenizer words)
+    {
+        String text = words.getText();
+        int firstMatch = -1;
+        for(int wordIndex = 0; wordIndex < words.getWordCount(); wordIndex++) {
+            int wordId = dictionary.idOf(text, words.getWordStart(wordIndex),
+                words.getWordEnd(wordIndex));
+            if(wordId < 0) {
+                continue;
+            }
+            int posting = firstPostings.get(wordId);
+            if(posting == IntIntHashMap.MISSING) {
+                continue;
+            }
+            int conversationNumber = postingConversations[posting];
+            if(firstMatch < 0 || conversationNumber < firstMatch) {
+                firstMatch = conversationNumber;
+            }
+        }
+        return firstMatch;
+    }
+
+    /**
+     * This is an accessor for the topic that one word of an input links to in one of the
+     * conversations. It counts as a use of that conversation.
+     *
+     * @param The number of the conversation, the words of the user's input, and the
+     * position of the word among them.
+     * @return The topic the word leads to, or null if it has no link there.
+     */
+    public String getLink(int conversationNumber, ConversationTokenizer words, int wordIndex)
+    {
+        ConversationChain conversation = conversationMap.get(conversationNumber);
+        int wordId = dictionary.idOf(words.getText(), words.getWordStart(wordIndex),
+            words.getWordEnd(wordIndex));
+        if(conversation == null || wordId < 0) {
+            return null;
+        }
+        int valueId = conversation.get(wordId);
+        return valueId == IntIntHashMap.MISSING ? null : dictionary.wordOf(valueId);
+    }
+
+    /**
+     * This method finds the last topic of a conversation's chain, starting from the given
+     * topic. The chain stops on its own if its links loop back on themselves. It counts as
+     * a use of that conversation.
+     *
+     * @param The number of the conversation and the topic to start from.
+     * @return The last topic reached.
+     */
+    public String findTail(int conversationNumber, String start)
+    {
+        ConversationChain conversation = conversationMap.get(conversationNumber);
+        int startId = dictionary.idOf(start);
+        if(conversation == null || startId < 0) {
+            return start;
+        }
+        return dictionary.wordOf(conversation.findTail(startId));
+    }
+
+    /**
+     * This is an accessor for the number of remembered conversations.
+     *
+     * @return The number of conversations currently kept.
+     */
+    public int size()
+    {
+        return conversationMap.size();
+    }
+
+    /**
+     * This is an accessor for the number of conversations forgotten to stay within the
+     * limit on conversations.
+     *
+     * @return The number of evicted conversations.
+     */
+    public long getEvictedConversationCount()
+    {
+        return evictedConversationCount;
+    }
+
+    /**
+     * This is an accessor for the number of links forgotten, whether they were trimmed from
+     * a conversation that grew too long or went with an evicted conversation.
+     *
+     * @return The number of evicted links.
+     */
+    public long getEvictedLinkCount()
+    {
+        return evictedLinkCount;
+    }
+
+    /**
+     * This method writes every remembered conversation, from the least to the most
+     * recently used, with the numbers that tell their order. Each word is written out the
+     * first time it comes up and referred to by its position after that.
+     *
+     * @param The SessionStateCodec to write the memory through.
+     */
+    public void writeState(SessionStateCodec codec)
+    {
+        codec.writeVarInt(nextConversationNumber);
+        codec.writeVarInt(newestConversationNumber + 1);
+        codec.writeVarLong(evictedConversationCount);
+        codec.writeVarLong(evictedLinkCount);
+        codec.writeVarInt(conversationMap.size());
+        // This maps a word's id to one more than its position in the written state.
+        IntIntHashMap writtenWords = new IntIntHashMap(dictionary.size());
+        // Going through the entries does not count as using the conversations, so their
+        // order is left as it is.
+        for(Map.Entry<Integer, ConversationChain> entry : conversationMap.entrySet()) {
+            ConversationChain conversation = entry.getValue();
+            int linkCount = conversation.size();
+            codec.writeVarInt(entry.getKey());
+            codec.writeVarInt(linkCount);
+            for(int position = 0; position < linkCount; position++) {
+                int keyId = conversation.getKeyAt(position);
+                writeWord(codec, writtenWords, keyId);
+                writeWord(codec, writtenWords, conversation.get(keyId));
+            }
+        }
+    }
+
+    /**
+     * This method replaces everything in the memory with the conversations written by
+     * writeState. The limits of this memory apply from then on; if the state holds more
+     * than they allow, the excess is forgotten the next time something is added.
+     *
+     * @param The SessionStateCodec to read the memory through.
+     * @throws IOException  If the numbers of the conversations do not hold together.
+     */
+    public void readState(SessionStateCodec codec) throws IOException
+    {
+        clear();
+        nextConversationNumber = codec.readVarInt();
+        newestConversationNumber = codec.readVarInt() - 1;
+        evictedConversationCount = codec.readVarLong();
+        evictedLinkCount = codec.readVarLong();
+        int conversationCount = codec.readCount();
+        int[] conversationNumbers = new int[conversationCount];
+        ConversationChain[] conversations = new ConversationChain[conversationCount];
+        // This maps one more than a word's position in the written state to its id.
+        IntIntHashMap readWords = new IntIntHashMap();
+        for(int index = 0; index < conversationCount; index++) {
+            ConversationChain conversation = new ConversationChain();
+            conversationNumbers[index] = codec.readVarInt();
+            conversations[index] = conversation;
+            int linkCount = codec.readCount();
+            for(int link = 0; link < linkCount; link++) {
+                int keyId = readWord(codec, readWords);
+                int valueId = readWord(codec, readWords);
+                if(conversation.put(keyId, valueId) != IntIntHashMap.MISSING) {
+                    throw new IllegalArgumentException("A link of the memory is repeated.");
+                }
+            }
+        }
+
+        // Each word's postings must be in the order the conversations were started, which
+        // is not the order they were last used in.
+        Integer[] startOrder = new Integer[conversationCount];
+        for(int index = 0; index < conversationCount; index++) {
+            startOrder[index] = index;
+        }
+        Arrays.sort(startOrder, (first, second) ->
+            Integer.compare(conversationNumbers[first], conversationNumbers[second]));
+        for(int index : startOrder) {
+            ConversationChain conversation = conversations[index];
+            for(int position = 0; position < conversation.size(); position++) {
+                addPosting(conversation.getKeyAt(position), conversationNumbers[index]);
+            }
+        }
+        for(int index = 0; index < conversationCount; index++) {
+            ConversationChain replaced =
+                conversationMap.put(conversationNumbers[index], conversations[index]);
+            if(replaced != null) {
+                throw new IllegalArgumentException(
+                    "A conversation of the memory is repeated.");
+            }
+            if(conversationNumbers[index] == newestConversationNumber) {
+                newestConversation = conversations[index];
+            }
+            // Numbers are handed out in order, so the next one must be above them all.
+            if(conversationNumbers[index] < 0
+            || conversationNumbers[index] >= nextConversationNumber) {
+                throw new IOException("The session state numbers a conversation "
+                    + conversationNumbers[index] + ", not below the next number, "
+                    + nextConversationNumber + ".");
+            }
+        }
+        // Links are added to the newest conversation, so it must be one of those kept, and
+        // there is none only before any conversation has been started.
+        if(newestConversationNumber >= 0 ? newestConversation == null
+            : newestConversationNumber < -1 || conversationCount > 0) {
+            throw new IOException("The session state's newest conversation, "
+                + newestConversationNumber + ", is not one of those it holds.");
+        }
+    }
+
+    /**
+     * This method writes a word of the memory, in full if it has not been written yet.
+     *
+     * @param The SessionStateCodec, the positions of the words already written, and the id
+     * of the word.
+     */
+    private void writeWord(SessionStateCodec codec, IntIntHashMap writtenWords, int wordId)
+    {
+        int position = writtenWords.putIfAbsent(wordId, writtenWords.size() + 1);
+        if(position == IntIntHashMap.MISSING) {
+            codec.writeVarInt(0);
+            codec.writeString(dictionary.wordOf(wordId));
+        }
+        else {
+            codec.writeVarInt(position);
+        }
+    }
+
+    /**
+     * This method reads a word written by writeWord and counts one more link that
+     * mentions it.
+     *
+     * @param The SessionStateCodec and the ids of the words read so far.
+     * @return The id of the word.
+     */
+    private int readWord(SessionStateCodec codec, IntIntHashMap readWords)
+    {
+        int position = codec.readCount();
+        if(position == 0) {
+            String word = codec.readString();
+            if(word == null) {
+                throw new IllegalArgumentException("A word of the memory is missing.");
+            }
+            int wordId = retain(word);
+            readWords.put(readWords.size() + 1, wordId);
+            return wordId;
+        }
+        int wordId = readWords.get(position);
+        if(wordId == IntIntHashMap.MISSING) {
+            throw new IllegalArgumentException("A word of the memory is missing.");
+        }
+        referenceCounts[wordId]++;
+        return wordId;
+    }
+
+    /**
+     * This method forgets every link of a conversation. The caller removes the conversation
+     * itself from the conversationMap.
+     *
+     * @param The number of the conversation and its chain.
+     */
+    private void evictConversation(int conversationNumber, ConversationChain conversation)
+    {
+        int linkCount = conversation.size();
+        for(int position = 0; position < linkCount; position++) {
+            int keyId = conversation.getKeyAt(position);
+            int valueId = conversation.get(keyId);
+            removePosting(keyId, conversationNumber);
+            release(keyId);
+            release(valueId);
+        }
+        evictedConversationCount++;
+        evictedLinkCount += linkCount;
+    }
+
+    /**
+     * This method forgets the oldest link of a conversation.
+     *
+     * @param The number of the conversation and its chain.
+     */
+    private void evictOldestLink(int conversationNumber, ConversationChain conversation)
+    {
+        int keyId = conversation.getOldestKey();
+        int valueId = conversation.removeOldestLink();
+        removePosting(keyId, conversationNumber);
+        release(keyId);
+        release(valueId);
+        evictedLinkCount++;
+    }
+
+    /**
+     * This method finds or adds a word in the dictionary and counts one more link that
+     * mentions it.
+     *
+     * @param The word being mentioned.
+     * @return The id of the word.
+     */
+    private int retain(String word)
+    {
+        int wordId = dictionary.add(word);
+        if(wordId >= referenceCounts.length) {
+            referenceCounts = Arrays.copyOf(referenceCounts,
+                Math.max(referenceCounts.length * 2, dictionary.getIdLimit()));
+        }
+        referenceCounts[wordId]++;
+        return wordId;
+    }
+
+    /**
+     * This method counts one fewer link that mentions a word, dropping the word from the
+     * dictionary once nothing mentions it.
+     *
+     * @param The id of the word.
+     */
+    private void release(int wordId)
+    {
+        referenceCounts[wordId]--;
+        if(referenceCounts[wordId] == 0) {
+            dictionary.remove(wordId);
+        }
+    }
+
+    /**
+     * This method records that a conversation holds a word as a key, at the end of the
+     * word's list of postings.
+     *
+     * @param The id of the word and the number of the conversation.
+     */
+    private void addPosting(int wordId, int conversationNumber)
+    {
+        int posting;
+        if(freePosting >= 0) {
+            posting = freePosting;
+            freePosting = postingNexts[posting];
+        }
+        else {
+            posting = postingLimit++;
+            if(posting == postingConversations.length) {
+                postingConversations = Arrays.copyOf(postingConversations, posting * 2);
+                postingNexts = Arrays.copyOf(postingNexts, posting * 2);
+            }
+        }
+        postingConversations[posting] = conversationNumber;
+        postingNexts[posting] = -1;
+        int lastPosting = lastPostings.put(wordId, posting);
+        if(lastPosting == IntIntHashMap.MISSING) {
+            firstPostings.put(wordId, posting);
+        }
+        else {
+            postingNexts[lastPosting] = posting;
+        }
+    }
+
+    /**
+     * This method removes the record that a conversation holds a word as a key.
+     *
+     * @param The id of the word and the number of the conversation.
+     */
+    private void removePosting(int wordId, int conversationNumber)
+    {
+        int previous = -1;
+        int posting = firstPostings.get(wordId);
+        while(postingConversations[posting] != conversationNumber) {
+            previous = posting;
+            posting = postingNexts[posting];
+        }
+        int next = postingNexts[posting];
+        if(previous < 0) {
+            if(next < 0) {
+                firstPostings.remove(wordId);
+            }
+            else {
+                firstPostings.put(wordId, next);
+            }
+        }
+        else {
+            postingNexts[previous] = next;
+        }
+        if(next < 0) {
+            if(previous < 0) {
+                lastPostings.remove(wordId);
+            }
+            else {
+                lastPostings.put(wordId, previous);
+            }
+        }
+        postingNexts[posting] = freePosting;
+        freePosting = posting;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * This class measures how much heap Conversation Mode's memory takes per remembered link. It
+ * builds the same links twice: once as the old list of HashMaps from String to String, and
+ * once as a ConversationMemory of dictionary-encoded int links. The words themselves are
+ * created up front and kept alive throughout, so only the cost of the structures is counted.
+ *
+ * It is best run on its own with a fixed heap, such as "java -Xms1g -Xmx1g
+ * ConversationMemoryBenchmark 100000".
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class ConversationMemoryBenchmark
+{
+    private static final long SEED = 20171010L;
+    private static final int LINKS_PER_CONVERSATION = 100;
+    private static final int VOCABULARY_SIZE = 20000;
+
+    /**
+     * This runs the benchmark. The first argument is the number of links (100,000 by
+     * default).
+     */
+    public static void main(String[] args)
+    {
+        int linkCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for(int wordIndex = 0; wordIndex < VOCABULARY_SIZE; wordIndex++) {
+            vocabulary[wordIndex] = "topic" + wordIndex;
+        }
+        int[] script = new int[linkCount + 1];
+        Random random = new Random(SEED);
+        for(int step = 0; step < script.length; step++) {
+            script[step] = random.nextInt(VOCABULARY_SIZE);
+        }
+
+        long baseline = usedHeap();
+        ArrayList<HashMap<String, String>> oldMemory = buildOldMemory(vocabulary, script);
+        long oldBytes = usedHeap() - baseline;
+        report("ArrayList<HashMap<String, String>>", oldBytes, linkCount, oldMemory.size());
+        oldMemory = null;
+
+        baseline = usedHeap();
+        ConversationMemory newMemory = buildNewMemory(vocabulary, script);
+        long newBytes = usedHeap() - baseline;
+        report("ConversationMemory", newBytes, linkCount, newMemory.size());
+        System.out.printf("The dictionary-encoded memory uses %.1f%% of the heap.%n",
+            100.0 * newBytes / oldBytes);
+    }
+
+    /**
+     * This method builds the links the way Responder used to keep them.
+     *
+     * @param The words to link and the order to link them in.
+     * @return The list of conversation maps.
+     */
+    private static ArrayList<HashMap<String, String>> buildOldMemory(String[] vocabulary,
+        int[] script)
+    {
+        ArrayList<HashMap<String, String>> memory = new ArrayList<>();
+        for(int step = 0; step + 1 < script.length; step++) {
+            if(step % LINKS_PER_CONVERSATION == 0) {
+                memory.add(new HashMap<String, String>());
+            }
+            memory.get(memory.size() - 1).put(vocabulary[script[step]],
+                vocabulary[script[step + 1]]);
+        }
+        return memory;
+    }
+
+    /**
+     * This method builds the same links in a ConversationMemory.
+     *
+     * @param The words to link and the order to link them in.
+     * @return The memory holding the links.
+     */
+    private static ConversationMemory buildNewMemory(String[] vocabulary, int[] script)
+    {
+        // The limits are lifted so that every link is kept, as the old maps kept them.
+        ConversationMemory memory = new ConversationMemory(Integer.MAX_VALUE,
+            Integer.MAX_VALUE);
+        for(int step = 0; step + 1 < script.length; step++) {
+            if(step % LINKS_PER_CONVERSATION == 0) {
+                memory.startConversation();
+            }
+            memory.addLink(vocabulary[script[step]], vocabulary[script[step + 1]]);
+        }
+        return memory;
+    }
+
+    /**
+     * This method prints the heap taken by one of the memories.
+     *
+     * @param The name of the structure, its heap in bytes, the number of links it holds,
+     * and its number of conversations.
+     */
+    private static void report(String name, long bytes, int linkCount, int conversations)
+    {
+        System.out.printf("%-36s %,12d bytes for %,d links in %,d conversations "
+            + "(%.1f bytes per link)%n", name, bytes, linkCount, conversations,
+            (double) bytes / linkCount);
+    }
+
+    /**
+     * This method asks for garbage collection a few times and then measures the heap in use.
+     *
+     * @return The number of bytes in use.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for(int pass = 0; pass < 4; pass++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * This class checks that finding an earlier conversation in the ConversationMemory takes
+ * about the same time however many conversations are stored, as its index of words is
+ * meant to make it, and that it still finds the conversation that the old search through
+ * every conversation found: the first one, in the order they were started, that holds any
+ * word of the input.
+ *
+ * For each number of conversations, from 10 to 100,000, it stores that many conversations
+ * of a few links each, drawn from the same vocabulary, compares the memory's answers with
+ * a search of a plain copy of the conversations, and times lookups for inputs whose words
+ * are spread over the whole memory. The lookups on the largest memory may take at most a
+ * few times as long as on the smallest; "dynamis.check.maxGrowth" sets how many (5 by
+ * default), since timings on a busy machine vary. Each size of memory is filled from its
+ * own seed, so two runs store the same conversations.
+ *
+ * A wrong answer or too steep a growth in time fails it: it ends with a nonzero status,
+ * and "mvn verify", which runs it, fails with it. By hand, it is run as
+ * "java ConversationMemoryScalingCheck", with no arguments.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class ConversationMemoryScalingCheck
+{
+    // The memory of n conversations is filled from this seed plus n.
+    private static final long CONVERSATION_SEED = 1009L;
+    private static final int[] CONVERSATION_COUNTS = {10, 1000, 10000, 100000};
+    private static final int LINKS_PER_CONVERSATION = 8;
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final int COMPARED_LOOKUPS = 200;
+    private static final int TIMED_LOOKUPS = 200_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final double MAX_GROWTH =
+        Double.parseDouble(System.getProperty("dynamis.check.maxGrowth", "5"));
+
+    private int mismatchCount;
+    /**
+     * This runs the check as described above.
+     */
+    public static void main(String[] args)
+    {
+        ConversationMemoryScalingCheck check = new ConversationMemoryScalingCheck();
+        System.out.printf("%14s %14s%n", "conversations", "ns/lookup");
+        double firstNanos = 0;
+        double lastNanos = 0;
+        for(int index = 0; index < CONVERSATION_COUNTS.length; index++) {
+            lastNanos = check.run(CONVERSATION_COUNTS[index]);
+            if(index == 0) {
+                firstNanos = lastNanos;
+            }
+            System.out.printf("%14d %14.1f%n", CONVERSATION_COUNTS[index], lastNanos);
+        }
+        double growth = lastNanos / firstNanos;
+        System.out.printf("Lookups took %.2f times as long with %d conversations as with %d; "
+            + "at most %.1f is allowed. %d answers differed.%n", growth,
+            CONVERSATION_COUNTS[CONVERSATION_COUNTS.length - 1], CONVERSATION_COUNTS[0],
+            MAX_GROWTH, check.mismatchCount);
+        System.exit(check.mismatchCount == 0 && growth <= MAX_GROWTH ? 0 : 1);
+    }
+
+    /**
+     * This method stores the given number of conversations, compares the memory's answers
+     * with those of a plain search, and times lookups.
+     *
+     * @param The number of conversations.
+     * @return The average time of a lookup, in nanoseconds.
+     */
+    public double run(int conversationCount)
+    {
+        // The limits are lifted so that every conversation is kept.
+        ConversationMemory memory = new ConversationMemory(Integer.MAX_VALUE,
+            Integer.MAX_VALUE);
+        ArrayList<HashSet<String>> plainCopy = new ArrayList<>();
+        SessionRandom random = new SessionRandom(CONVERSATION_SEED + conversationCount);
+        for(int conversation = 0; conversation < conversationCount; conversation++) {
+            memory.startConversation();
+            HashSet<String> keys = new HashSet<>();
+            String word = pickWord(random);
+            for(int link = 0; link < LINKS_PER_CONVERSATION; link++) {
+                String next = pickWord(random);
+                memory.addLink(word, next);
+                keys.add(word);
+                word = next;
+            }
+            plainCopy.add(keys);
+        }
+
+        ConversationTokenizer words = new ConversationTokenizer();
+        for(int lookup = 0; lookup < COMPARED_LOOKUPS; lookup++) {
+            words.tokenize(createInput(random), null);
+            int expected = findFirstMatch(plainCopy, words);
+            int found = memory.findFirstMatch(words);
+            if(found != expected) {
+                if(mismatchCount < 10) {
+                    System.out.println("\"" + words.getText() + "\" with " + conversationCount
+                        + " conversations: expected " + expected + " but found " + found);
+                }
+                mismatchCount++;
+            }
+        }
+
+        String[] inputs = new String[1024];
+        for(int input = 0; input < inputs.length; input++) {
+            inputs[input] = createInput(random);
+        }
+        long total = 0;
+        long startTime = 0;
+        for(int round = 0; round <= WARMUP_ROUNDS; round++) {
+            startTime = System.nanoTime();
+            for(int lookup = 0; lookup < TIMED_LOOKUPS; lookup++) {
+                words.tokenize(inputs[lookup & (inputs.length - 1)], null);
+                total += memory.findFirstMatch(words);
+            }
+        }
+        double nanos = (double) (System.nanoTime() - startTime) / TIMED_LOOKUPS;
+        // This keeps the JIT compiler from discarding the lookups.
+        if(total == 42) {
+            System.out.println();
+        }
+        return nanos;
+    }
+
+    /**
+     * This method finds the first conversation that holds a word of the input, the way
+     * Responder used to: by trying every word in every conversation, in order.
+     *
+     * @param The keys of each conversation and the words of the input.
+     * @return The number of the conversation, or -1 if none holds any of the words.
+     */
+    private static int findFirstMatch(ArrayList<HashSet<String>> conversations,
+        ConversationTokenizer words)
+    {
+        for(int conversation = 0; conversation < conversations.size(); conversation++) {
+            for(int wordIndex = 0; wordIndex < words.getWordCount(); wordIndex++) {
+                String word = words.getText().substring(words.getWordStart(wordIndex),
+                    words.getWordEnd(wordIndex));
+                if(conversations.get(conversation).contains(word)) {
+                    return conversation;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method makes up an input of a few words, some of which may not be remembered.
+     *
+     * @param The random generator.
+     * @return The input.
+     */
+    private static String createInput(SessionRandom random)
+    {
+        StringBuilder input = new StringBuilder();
+        int wordCount = 1 + random.nextInt(6);
+        for(int word = 0; word < wordCount; word++) {
+            if(word > 0) {
+                input.append(' ');
+            }
+            input.append(random.nextInt(4) == 0 ? "unheard" + random.nextInt(1000)
+                : pickWord(random));
+        }
+        return input.toString();
+    }
+
+    /**
+     * This method picks a word of the vocabulary.
+     *
+     * @param The random generator.
+     * @return The word.
+     */
+    private static String pickWord(SessionRandom random)
+    {
+        return "topic" + random.nextInt(VOCABULARY_SIZE);
+    }
+}
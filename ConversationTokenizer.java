@@ -0,0 +1,180 @@
+import java.util.Arrays;
+
+/**
+ * This class cuts a Conversation Mode input into words and picks out the candidate words
+ * that DYNAMIS may ask about, all in one pass over the input. A word is a candidate if it is
+ * longer than four characters, does not contain "ed", "ing" or an apostrophe, and is neither
+ * "!ConversationMode" nor the previous key; these are the same rules Conversation Mode has
+ * always used to skip verbs and insignificant words.
+ *
+ * Words are recorded as start and end positions in the input rather than as new Strings,
+ * in buffers that one session reuses turn after turn. Only a candidate that is actually
+ * chosen is turned into a String.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class ConversationTokenizer
+{
+    private static final String MODE_COMMAND = "!ConversationMode";
+
+    private String text;
+    private int[] wordStarts;
+    private int[] wordEnds;
+    private int wordCount;
+    // This holds the positions, among the words, of the candidate words.
+    private int[] candidateWords;
+    private int candidateCount;
+    /**
+     * This constructor creates a tokenizer with small buffers, which grow as needed.
+     */
+    public ConversationTokenizer()
+    {
+        wordStarts = new int[16];
+        wordEnds = new int[16];
+        candidateWords = new int[16];
+        text = "";
+        wordCount = 0;
+        candidateCount = 0;
+    }
+
+    /**
+     * This method cuts an input into the words between its spaces and finds the candidate
+     * words among them. Empty words, from spaces next to one another, are skipped.
+     *
+     * @param The String of the user's input and the previous key, which may be null.
+     */
+    public void tokenize(String input, String previousKey)
+    {
+        text = input;
+        wordCount = 0;
+        candidateCount = 0;
+        int length = input.length();
+        int wordStart = 0;
+        // These track the rules that depend on the characters inside of the current word.
+        boolean hasExcludedPart = false;
+        char lastCharacter = 0;
+        char secondLastCharacter = 0;
+        for(int position = 0; position <= length; position++) {
+            char character = position < length ? input.charAt(position) : ' ';
+            if(character != ' ') {
+                if(character == '\'' || (lastCharacter == 'e' && character == 'd')
+                || (secondLastCharacter == 'i' && lastCharacter == 'n' && character == 'g')) {
+                    hasExcludedPart = true;
+                }
+                secondLastCharacter = lastCharacter;
+                lastCharacter = character;
+                continue;
+            }
+            if(position > wordStart) {
+                int wordIndex = addWord(wordStart, position);
+                if(position - wordStart > 4 && !hasExcludedPart
+                && !matches(wordIndex, MODE_COMMAND) && !matches(wordIndex, previousKey)) {
+                    if(candidateCount == candidateWords.length) {
+                        candidateWords = Arrays.copyOf(candidateWords, candidateCount * 2);
+                    }
+                    candidateWords[candidateCount++] = wordIndex;
+                }
+            }
+            wordStart = position + 1;
+            hasExcludedPart = false;
+            lastCharacter = 0;
+            secondLastCharacter = 0;
+        }
+    }
+
+    /**
+     * This method records the position of a word.
+     *
+     * @param The start and end of the word in the input.
+     * @return The position of the word among the words.
+     */
+    private int addWord(int start, int end)
+    {
+        if(wordCount == wordStarts.length) {
+            wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+            wordEnds = Arrays.copyOf(wordEnds, wordCount * 2);
+        }
+        wordStarts[wordCount] = start;
+        wordEnds[wordCount] = end;
+        return wordCount++;
+    }
+
+    /**
+     * This method states whether or not a word is exactly the given String.
+     *
+     * @param The position of the word and the String to compare it to, which may be null.
+     * @return The boolean concerning whether the two are equal.
+     */
+    private boolean matches(int wordIndex, String other)
+    {
+        int start = wordStarts[wordIndex];
+        int wordLength = wordEnds[wordIndex] - start;
+        return other != null && other.length() == wordLength
+            && text.regionMatches(start, other, 0, wordLength);
+    }
+
+    /**
+     * This is an accessor for the input that was last cut up.
+     *
+     * @return The String of the input.
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * This is an accessor for the number of words in the input.
+     *
+     * @return The number of non-empty words.
+     */
+    public int getWordCount()
+    {
+        return wordCount;
+    }
+
+    /**
+     * This is an accessor for where a word starts in the input.
+     *
+     * @param The position of the word among the words.
+     * @return The index of its first character.
+     */
+    public int getWordStart(int wordIndex)
+    {
+        return wordStarts[wordIndex];
+    }
+
+    /**
+     * This is an accessor for where a word ends in the input.
+     *
+     * @param The position of the word among the words.
+     * @return The index just past its last character.
+     */
+    public int getWordEnd(int wordIndex)
+    {
+        return wordEnds[wordIndex];
+    }
+
+    /**
+     * This is an accessor for the number of candidate words.
+     *
+     * @return The number of words that DYNAMIS may ask about.
+     */
+    public int getCandidateCount()
+    {
+        return candidateCount;
+    }
+
+    /**
+     * This method turns one of the candidate words into a String.
+     *
+     * @param The position of the candidate among the candidates.
+     * @return The candidate word.
+     */
+    public String getCandidate(int candidateIndex)
+    {
+        int wordIndex = candidateWords[candidateIndex];
+        return text.substring(wordStarts[wordIndex], wordEnds[wordIndex]);
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+
+/**
+ * This class checks that the ConversationTokenizer picks out exactly the words that
+ * Conversation Mode used to pick out when it split the input on spaces and then tested
+ * each word: longer than four characters, without "ed", "ing" or an apostrophe, and
+ * neither "!ConversationMode" nor the previous key. It also checks that the tokenizer's
+ * words are the non-empty pieces that the split gave. The corpus is a set of inputs
+ * written by hand to reach the edges of the rules, the lines of many scripted sessions,
+ * and many random inputs made of the letters those rules look for. The previous keys, the
+ * scripts and the random inputs all come from CORPUS_SEED, so the corpus is the same on
+ * every run.
+ *
+ * For an input where the old rules and the tokenizer part ways, it shows the input, the
+ * previous key and both sets of words, for the first ten such inputs; a single one makes
+ * the exit status nonzero, so "mvn verify", which runs it, stops there. Given a number, as
+ * in "java ConversationTokenizerCheck 1000000", it makes that many random inputs instead
+ * of 300,000.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class ConversationTokenizerCheck
+{
+    private static final long CORPUS_SEED = 65537L;
+    private static final int SCRIPTED_SESSIONS = 2000;
+    private static final int MAX_SHOWN = 10;
+    private static final String RANDOM_CHARACTERS = "abdegin' !CMonversatiodEDING";
+    private static final String[] HANDWRITTEN_INPUTS = {
+        "", " ", "   ", "!ConversationMode", "!ConversationMode gardens are lovely",
+        "I'm walking the dogs today", "  double  spaces   here ", "tested testing things",
+        "words", "word", "EDGED INGOT", "sledge", "kings", "rings' ", "gardens gardens",
+        "!conversationmode summer", "tab\tseparated words", "line\nbreaks inside",
+        "naïve café résumé", "edge ing 'quote'"
+    };
+
+    private long checkedCount;
+    private long mismatchCount;
+    /**
+     * This runs the check with the number of random inputs given as an argument, if there
+     * is one.
+     */
+    public static void main(String[] args)
+    {
+        int randomCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        ConversationTokenizerCheck check = new ConversationTokenizerCheck();
+        ConversationTokenizer tokenizer = new ConversationTokenizer();
+        SessionRandom random = new SessionRandom(CORPUS_SEED);
+        for(String input : HANDWRITTEN_INPUTS) {
+            check.check(tokenizer, input, null);
+            check.check(tokenizer, input, pickPreviousKey(random, input));
+        }
+        SessionScriptGenerator generator = new SessionScriptGenerator(
+            ReplyTables.getShared(), CORPUS_SEED);
+        for(int session = 0; session < SCRIPTED_SESSIONS; session++) {
+            for(String input : generator.createScript(session)) {
+                check.check(tokenizer, input, pickPreviousKey(random, input));
+            }
+        }
+        for(int index = 0; index < randomCount; index++) {
+            String input = createInput(random);
+            check.check(tokenizer, input, pickPreviousKey(random, input));
+        }
+        System.out.println("Checked " + check.checkedCount + " inputs; "
+            + check.mismatchCount + " differed.");
+        System.exit(check.mismatchCount == 0 ? 0 : 1);
+    }
+
+    /**
+     * This method compares the tokenizer with the old rules on one input.
+     *
+     * @param The tokenizer, which is reused as a session reuses it, the input, and the
+     * previous key, which may be null.
+     */
+    public void check(ConversationTokenizer tokenizer, String input, String previousKey)
+    {
+        ArrayList<String> expectedWords = new ArrayList<>();
+        ArrayList<String> expectedCandidates = new ArrayList<>();
+        for(String word : input.split(" ")) {
+            if(!word.isEmpty()) {
+                expectedWords.add(word);
+            }
+            // These are the rules as Conversation Mode used to apply them.
+            if(word.length() > 4 && !word.contains("ed") && !word.contains("ing")
+            && !word.contains("'") && !word.equals("!ConversationMode")
+            && !word.equals(previousKey)) {
+                expectedCandidates.add(word);
+            }
+        }
+
+        tokenizer.tokenize(input, previousKey);
+        ArrayList<String> words = new ArrayList<>();
+        for(int wordIndex = 0; wordIndex < tokenizer.getWordCount(); wordIndex++) {
+            words.add(input.substring(tokenizer.getWordStart(wordIndex),
+                tokenizer.getWordEnd(wordIndex)));
+        }
+        ArrayList<String> candidates = new ArrayList<>();
+        for(int candidate = 0; candidate < tokenizer.getCandidateCount(); candidate++) {
+            candidates.add(tokenizer.getCandidate(candidate));
+        }
+        checkedCount++;
+        if(!words.equals(expectedWords) || !candidates.equals(expectedCandidates)) {
+            if(mismatchCount < MAX_SHOWN) {
+                System.out.println("\"" + input + "\" after \"" + previousKey
+                    + "\": expected " + expectedWords + " and " + expectedCandidates
+                    + " but found " + words + " and " + candidates);
+            }
+            mismatchCount++;
+        }
+    }
+
+    /**
+     * This method picks the previous key for an input: usually one of its own words, so
+     * that the rule about it is tested, and otherwise none.
+     *
+     * @param The random generator and the input.
+     * @return The previous key, or null.
+     */
+    private static String pickPreviousKey(SessionRandom random, String input)
+    {
+        String[] words = input.split(" ");
+        return words.length == 0 || random.nextInt(2) == 0 ? null
+            : words[random.nextInt(words.length)];
+    }
+
+    /**
+     * This method makes up an input from the characters that the rules look for.
+     *
+     * @param The random generator.
+     * @return The input.
+     */
+    private static String createInput(SessionRandom random)
+    {
+        StringBuilder input = new StringBuilder();
+        if(random.nextInt(4) == 0) {
+            input.append("!ConversationMode ");
+        }
+        int length = random.nextInt(40);
+        for(int index = 0; index < length; index++) {
+            input.append(RANDOM_CHARACTERS.charAt(random.nextInt(RANDOM_CHARACTERS.length())));
+        }
+        return input.toString();
+    }
+}
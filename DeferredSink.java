@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+
+/**
+ * This class is a ResponseSink that normally passes everything straight on to another sink,
+ * but can be told to hold the responses back for a while and send them later. Chatter uses
+ * it so that a response is generated while holding one of the AdmissionController's few
+ * slots, but written out only after the slot is given back; otherwise a user who reads
+ * slowly would keep a slot, and everyone waiting for it, until the write went through.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class DeferredSink implements ResponseSink
+{
+    private ResponseSink target;
+    private boolean isHolding;
+    private StringBuilder currentResponse;
+    private ArrayList<String> heldResponses;
+    /**
+     * This constructor creates a sink that passes everything on until told to hold.
+     *
+     * @param The ResponseSink to pass everything on to.
+     */
+    public DeferredSink(ResponseSink target)
+    {
+        this.target = target;
+        isHolding = false;
+        currentResponse = new StringBuilder();
+        heldResponses = new ArrayList<>();
+    }
+
+    /**
+     * This method starts holding responses back instead of passing them on.
+     */
+    public void hold()
+    {
+        isHolding = true;
+    }
+
+    /**
+     * This method stops holding responses back and sends every one that was held, in
+     * order.
+     */
+    public void release()
+    {
+        isHolding = false;
+        for(String response : heldResponses) {
+            target.write(response);
+            target.endResponse();
+        }
+        heldResponses.clear();
+        // A response that was begun but not ended carries on unheld.
+        if(currentResponse.length() > 0) {
+            target.write(currentResponse.toString());
+            currentResponse.setLength(0);
+        }
+    }
+
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    public void write(String text)
+    {
+        if(isHolding) {
+            currentResponse.append(text);
+        }
+        else {
+            target.write(text);
+        }
+    }
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    public void writeLine(String line)
+    {
+        if(isHolding) {
+            currentResponse.append(line).append(System.lineSeparator());
+        }
+        else {
+            target.writeLine(line);
+        }
+    }
+
+    /**
+     * This method marks the end of one response, which is kept if responses are being
+     * held.
+     */
+    public void endResponse()
+    {
+        if(isHolding) {
+            heldResponses.add(currentResponse.toString());
+            currentResponse.setLength(0);
+        }
+        else {
+            target.endResponse();
+        }
+    }
+
+    /**
+     * This method sends everything the target holds right away; anything being held back
+     * stays held until release.
+     */
+    public void flush()
+    {
+        target.flush();
+    }
+}
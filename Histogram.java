@@ -0,0 +1,176 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts how often values of each size are recorded, such as the time taken by
+ * one stage of a response, so that their mean and percentiles can be reported. Any number
+ * of threads may record at once without a lock: each value only adds to one bucket, and
+ * the count, total and maximum are spread over cells, as the counters of ResponderMetrics
+ * are, so that threads recording at once do not retry against each other.
+ *
+ * Values below 16 have a bucket each; above that, every power of two is split into eight
+ * buckets, so a percentile is never off by more than an eighth of its value, whatever its
+ * size.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_MASK = (1 << SUB_BUCKET_BITS) - 1;
+    private static final int LINEAR_LIMIT = 16;
+    // Past the linear buckets, there are eight buckets for each power of two from 2^4 to
+    // 2^62.
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - 4) * (1 << SUB_BUCKET_BITS);
+
+    private AtomicLongArray bucketCounts;
+    private LongAdder count;
+    private LongAdder total;
+    private LongAccumulator max;
+    /**
+     * This constructor creates an empty histogram.
+     */
+    public Histogram()
+    {
+        bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+        count = new LongAdder();
+        total = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * This method records one value. Negative values count as 0.
+     *
+     * @param The value to record.
+     */
+    public void record(long value)
+    {
+        if(value < 0) {
+            value = 0;
+        }
+        bucketCounts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * This method finds the bucket that a value falls into.
+     *
+     * @param The value, which is not negative.
+     * @return The index of its bucket.
+     */
+    private static int bucketOf(long value)
+    {
+        if(value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return LINEAR_LIMIT + ((exponent - 4) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * This method finds the largest value that falls into a bucket.
+     *
+     * @param The index of the bucket.
+     * @return The top of the bucket.
+     */
+    private static long topOf(int bucket)
+    {
+        if(bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = ((bucket - LINEAR_LIMIT) >>> SUB_BUCKET_BITS) + 4;
+        long subBucket = (bucket - LINEAR_LIMIT) & SUB_BUCKET_MASK;
+        long bottom = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        return bottom + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * This is an accessor for the number of values recorded.
+     *
+     * @return The number of values.
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * This is an accessor for the mean of the values recorded.
+     *
+     * @return The mean, or 0 if nothing has been recorded.
+     */
+    public double getMean()
+    {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) total.sum() / recorded;
+    }
+
+    /**
+     * This is an accessor for the largest value recorded.
+     *
+     * @return The largest value, or 0 if nothing has been recorded.
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * This method estimates a percentile of the values recorded. Values recorded while it
+     * runs may or may not be counted.
+     *
+     * @param The percentile, from 0 to 100.
+     * @return The value below which that share of the values falls, or 0 if nothing has
+     * been recorded.
+     */
+    public long getPercentile(double percentile)
+    {
+        long[] counts = new long[BUCKET_COUNT];
+        long recorded = 0;
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts[bucket] = bucketCounts.get(bucket);
+            recorded += counts[bucket];
+        }
+        if(recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if(seen >= rank) {
+                return Math.min(topOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * This method forgets every value recorded so far.
+     */
+    public void reset()
+    {
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketCounts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * This method describes the values recorded in one line.
+     *
+     * @return The count, mean, median, 99th percentile and maximum.
+     */
+    public String summarize()
+    {
+        return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d", getCount(), getMean(),
+            getPercentile(50), getPercentile(99), getMax());
+    }
+}
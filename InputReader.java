@@ -1,33 +1,87 @@
-import java.util.Scanner;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.NoSuchElementException;
 
 /**
- * InputReader reads typed text input from the standard text terminal. 
- * The text typed by a user is then chopped into words, and a set of words 
+ * InputReader reads typed text input from the standard text terminal.
+ * The text typed by a user is then chopped into words, and a set of words
  * is provided.
- * 
+ *
+ * Lines are read through a LineChannelReader, which splits them just as Scanner.nextLine()
+ * would, but without its regular expressions. The prompt is only written when someone is
+ * there to read it.
+ *
  * @author     Michael Kölling and David J. Barnes (edited in formatting by Stephen Bothwell)
- * @version    0.2.01 (2017.10.06)
+ * @version    0.2.04 (2026.10.17)
  */
 public class InputReader
 {
-    private Scanner reader;
+    private LineChannelReader reader;
+    private ResponseSink promptSink;
+    private boolean showsPrompt;
     /**
-     * Create a new InputReader that reads text from the text terminal.
+     * Create a new InputReader that reads text from the text terminal. It only prompts
+     * when the program is run from a terminal rather than with its input piped in.
      */
     public InputReader()
     {
-        reader = new Scanner(System.in);
+        this(new FileInputStream(FileDescriptor.in).getChannel(), new ConsoleSink(),
+            System.console() != null);
+    }
+
+    /**
+     * Create a new InputReader that reads text from any stream, such as a socket's, and
+     * writes its prompt to the matching output.
+     * @param source  The stream to read lines of text from.
+     * @param promptSink  The ResponseSink to write the prompt to.
+     */
+    public InputReader(InputStream source, ResponseSink promptSink)
+    {
+        this(Channels.newChannel(source), promptSink, true);
+    }
+
+    /**
+     * Create a new InputReader that reads text from any channel, such as standard input,
+     * a file, or a socket.
+     * @param source  The channel to read lines of text from, in blocking mode.
+     * @param promptSink  The ResponseSink to write the prompt to.
+     * @param showsPrompt  Whether to write the prompt before each line.
+     */
+    public InputReader(ReadableByteChannel source, ResponseSink promptSink,
+        boolean showsPrompt)
+    {
+        reader = new LineChannelReader(source);
+        this.promptSink = promptSink;
+        this.showsPrompt = showsPrompt;
     }
 
     /**
      * Read a line of text from standard input (the text terminal),
      * and return it as a String.
      * @return  A String typed by the user.
+     * @throws NoSuchElementException  If the input has ended, as Scanner would.
      */
     public String getInput()
     {
-        System.out.print("> ");         // Prints the prompt.
-        String inputLine = reader.nextLine();
+        if(showsPrompt) {
+            promptSink.write("> ");         // Prints the prompt.
+            promptSink.endResponse();
+        }
+        String inputLine;
+        try {
+            inputLine = reader.readLine();
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if(inputLine == null) {
+            throw new NoSuchElementException("No line found");
+        }
         return inputLine;
     }
 }
@@ -0,0 +1,214 @@
+import java.util.Arrays;
+
+/**
+ * This class is a hash map from int keys to int values that stores both in plain arrays, so
+ * that a link costs two ints instead of a boxed entry object. It uses open addressing with
+ * linear probing. Keys and values must not be negative, because -1 marks an empty slot and
+ * is what get returns for a missing key.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class IntIntHashMap
+{
+    public static final int MISSING = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    /**
+     * This constructor creates an empty map with room for a few entries.
+     */
+    public IntIntHashMap()
+    {
+        this(4);
+    }
+
+    /**
+     * This constructor creates an empty map with room for the given number of entries
+     * before it has to grow.
+     *
+     * @param The number of entries expected.
+     */
+    public IntIntHashMap(int expectedSize)
+    {
+        int capacity = 8;
+        while(capacity * 3 / 4 < expectedSize) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * This method sets up empty arrays of the given capacity, which must be a power of two.
+     *
+     * @param The number of slots.
+     */
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, MISSING);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * This method finds the slot of a key, or the empty slot where it would go.
+     *
+     * @param The key to look for.
+     * @return The index of the slot.
+     */
+    private int findSlot(int key)
+    {
+        int slot = mix(key) & mask;
+        while(keys[slot] != MISSING && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * This method scrambles the bits of a key so that neighbouring keys, like the ids that
+     * a WordDictionary hands out, do not crowd into neighbouring slots.
+     *
+     * @param The key to scramble.
+     * @return The scrambled key.
+     */
+    private static int mix(int key)
+    {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This method maps a key to a value, replacing any value the key had.
+     *
+     * @param The key and the value, neither of which may be negative.
+     * @return The value the key had before, or MISSING if it had none.
+     */
+    public int put(int key, int value)
+    {
+        int slot = findSlot(key);
+        if(keys[slot] == key) {
+            int oldValue = values[slot];
+            values[slot] = value;
+            return oldValue;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if(size * 4 > keys.length * 3) {
+            grow();
+        }
+        return MISSING;
+    }
+
+    /**
+     * This method maps a key to a value only if the key has no value yet.
+     *
+     * @param The key and the value, neither of which may be negative.
+     * @return The value the key already had, or MISSING if the new value was stored.
+     */
+    public int putIfAbsent(int key, int value)
+    {
+        int slot = findSlot(key);
+        if(keys[slot] == key) {
+            return values[slot];
+        }
+        put(key, value);
+        return MISSING;
+    }
+
+    /**
+     * This is an accessor for the value of a key.
+     *
+     * @param The key to look up.
+     * @return The value of the key, or MISSING if it has none.
+     */
+    public int get(int key)
+    {
+        int slot = findSlot(key);
+        return keys[slot] == key ? values[slot] : MISSING;
+    }
+
+    /**
+     * This method states whether or not a key has a value.
+     *
+     * @param The key to check for.
+     * @return The boolean concerning whether the key is in the map.
+     */
+    public boolean containsKey(int key)
+    {
+        return keys[findSlot(key)] == key;
+    }
+
+    /**
+     * This method removes a key and its value. The entries after it are shifted back into
+     * place so that lookups never need to skip over removed slots.
+     *
+     * @param The key to remove.
+     * @return The value the key had, or MISSING if it had none.
+     */
+    public int remove(int key)
+    {
+        int slot = findSlot(key);
+        if(keys[slot] != key) {
+            return MISSING;
+        }
+        int oldValue = values[slot];
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while(keys[next] != MISSING) {
+            int home = mix(keys[next]) & mask;
+            // An entry may move into the gap only if the gap lies between its home slot
+            // and where it sits now.
+            if(((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = MISSING;
+        size--;
+        return oldValue;
+    }
+
+    /**
+     * This method empties the map while keeping its arrays for reuse.
+     */
+    public void clear()
+    {
+        if(size > 0) {
+            Arrays.fill(keys, MISSING);
+            size = 0;
+        }
+    }
+
+    /**
+     * This is an accessor for the number of keys in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * This method doubles the number of slots and places every entry again.
+     */
+    private void grow()
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for(int slot = 0; slot < oldKeys.length; slot++) {
+            if(oldKeys[slot] != MISSING) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * This class is a ResponseSink that passes everything on to another sink and also hands
+ * each finished response to a TranscriptJournal, so that what DYNAMIS said is kept for
+ * audit without slowing down the conversation.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class JournalingSink implements ResponseSink
+{
+    private ResponseSink target;
+    private TranscriptJournal journal;
+    private long sessionId;
+    private StringBuilder currentResponse;
+    /**
+     * This constructor creates a sink that journals the responses of one session.
+     *
+     * @param The ResponseSink to pass everything on to, the TranscriptJournal, and the
+     * session's ID in it.
+     */
+    public JournalingSink(ResponseSink target, TranscriptJournal journal, long sessionId)
+    {
+        this.target = target;
+        this.journal = journal;
+        this.sessionId = sessionId;
+        currentResponse = new StringBuilder();
+    }
+
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    public void write(String text)
+    {
+        currentResponse.append(text);
+        target.write(text);
+    }
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    public void writeLine(String line)
+    {
+        currentResponse.append(line).append(System.lineSeparator());
+        target.writeLine(line);
+    }
+
+    /**
+     * This method journals the response just finished and passes its end on.
+     */
+    public void endResponse()
+    {
+        if(currentResponse.length() > 0) {
+            journal.append(sessionId, TranscriptJournal.OUTPUT, currentResponse.toString());
+            currentResponse.setLength(0);
+        }
+        target.endResponse();
+    }
+
+    /**
+     * This method flushes the sink it passes everything on to; the journal commits on its
+     * own.
+     */
+    public void flush()
+    {
+        target.flush();
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * This class compiles the keywords of the specificReplyMap into an Aho-Corasick automaton so
+ * that every keyword inside of an input can be found in a single pass over that input. It
+ * replaces checking the input against each key one at a time, which gets slow as the number
+ * of philosophy topics grows. The keys are compiled once and the automaton is never changed
+ * afterward, so one KeywordMatcher can be shared freely.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class KeywordMatcher
+{
+    private String[] keys;
+    // Each state's outgoing transitions are kept as a sorted array of characters and a
+    // parallel array of target states for binary searching.
+    private char[][] transitionLabels;
+    private int[][] transitionTargets;
+    private int[] failureLinks;
+    // This holds the index of the key ending at a state, or -1 if no key ends there.
+    private int[] outputKeys;
+    // This links a state to the nearest state along its failure links that ends a key.
+    private int[] outputLinks;
+    private int emptyKeyIndex;
+
+    /**
+     * This constructor compiles the given keys into the automaton. The order of the keys is
+     * remembered so that matches are always reported in that same order.
+     *
+     * @param The collection of keywords to search for.
+     */
+    public KeywordMatcher(Collection<String> keyCollection)
+    {
+        keys = keyCollection.toArray(new String[0]);
+        emptyKeyIndex = -1;
+
+        // This builds the trie out of temporary maps, which are frozen into arrays below.
+        ArrayList<HashMap<Character, Integer>> trie = new ArrayList<>();
+        ArrayList<Integer> trieOutputs = new ArrayList<>();
+        trie.add(new HashMap<Character, Integer>());
+        trieOutputs.add(-1);
+        for(int keyIndex = 0; keyIndex < keys.length; keyIndex++) {
+            String key = keys[keyIndex];
+            if(key.isEmpty()) {
+                emptyKeyIndex = keyIndex;
+                continue;
+            }
+            int state = 0;
+            for(int charIndex = 0; charIndex < key.length(); charIndex++) {
+                Integer nextState = trie.get(state).get(key.charAt(charIndex));
+                if(nextState == null) {
+                    nextState = trie.size();
+                    trie.add(new HashMap<Character, Integer>());
+                    trieOutputs.add(-1);
+                    trie.get(state).put(key.charAt(charIndex), nextState);
+                }
+                state = nextState;
+            }
+            trieOutputs.set(state, keyIndex);
+        }
+
+        int stateCount = trie.size();
+        transitionLabels = new char[stateCount][];
+        transitionTargets = new int[stateCount][];
+        outputKeys = new int[stateCount];
+        for(int state = 0; state < stateCount; state++) {
+            HashMap<Character, Integer> edges = trie.get(state);
+            char[] labels = new char[edges.size()];
+            int labelIndex = 0;
+            for(char label : edges.keySet()) {
+                labels[labelIndex++] = label;
+            }
+            Arrays.sort(labels);
+            int[] targets = new int[labels.length];
+            for(labelIndex = 0; labelIndex < labels.length; labelIndex++) {
+                targets[labelIndex] = edges.get(labels[labelIndex]);
+            }
+            transitionLabels[state] = labels;
+            transitionTargets[state] = targets;
+            outputKeys[state] = trieOutputs.get(state);
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * This method finds the failure and output links of every state with a breadth-first
+     * walk over the trie, so that a state's links are always set before its children's.
+     */
+    private void buildFailureLinks()
+    {
+        int stateCount = outputKeys.length;
+        failureLinks = new int[stateCount];
+        outputLinks = new int[stateCount];
+        outputLinks[0] = -1;
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for(int child : transitionTargets[0]) {
+            failureLinks[child] = 0;
+            outputLinks[child] = -1;
+            queue[tail++] = child;
+        }
+        while(head < tail) {
+            int state = queue[head++];
+            char[] labels = transitionLabels[state];
+            int[] targets = transitionTargets[state];
+            for(int edge = 0; edge < labels.length; edge++) {
+                int child = targets[edge];
+                int fallback = failureLinks[state];
+                int next = step(fallback, labels[edge]);
+                failureLinks[child] = next;
+                outputLinks[child] = outputKeys[next] >= 0 ? next : outputLinks[next];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * This method follows the automaton from one state on one character, falling back along
+     * the failure links until a transition exists or the root is reached.
+     *
+     * @param The current state and the next character of the input.
+     * @return The state reached after reading the character.
+     */
+    private int step(int state, char character)
+    {
+        while(true) {
+            int found = Arrays.binarySearch(transitionLabels[state], character);
+            if(found >= 0) {
+                return transitionTargets[state][found];
+            }
+            if(state == 0) {
+                return 0;
+            }
+            state = failureLinks[state];
+        }
+    }
+
+    /**
+     * This method lowercases the input once and walks it through the automaton, collecting
+     * every key that appears anywhere in it. Overlapping keys, like "life" inside of
+     * "the best life", are all reported.
+     *
+     * @param The String of the user's input.
+     * @return A list of every matching key, each listed once and in the same order as the
+     * keys were given to the constructor.
+     */
+    public ArrayList<String> findMatches(String input)
+    {
+        String text = input.toLowerCase();
+        // This collects every hit; one key may appear more than once, so the hits are
+        // sorted and any repeats are skipped at the end.
+        int[] matchedIndices = new int[4];
+        int matchCount = 0;
+        if(emptyKeyIndex >= 0) {
+            matchedIndices[matchCount++] = emptyKeyIndex;
+        }
+
+        int state = 0;
+        for(int charIndex = 0; charIndex < text.length(); charIndex++) {
+            state = step(state, text.charAt(charIndex));
+            int outputState = outputKeys[state] >= 0 ? state : outputLinks[state];
+            while(outputState > 0) {
+                if(matchCount == matchedIndices.length) {
+                    matchedIndices = Arrays.copyOf(matchedIndices, matchCount * 2);
+                }
+                matchedIndices[matchCount++] = outputKeys[outputState];
+                outputState = outputLinks[outputState];
+            }
+        }
+
+        Arrays.sort(matchedIndices, 0, matchCount);
+        ArrayList<String> matchedKeyList = new ArrayList<>(matchCount);
+        for(int matchIndex = 0; matchIndex < matchCount; matchIndex++) {
+            int keyIndex = matchedIndices[matchIndex];
+            if(matchIndex == 0 || keyIndex != matchedIndices[matchIndex - 1]) {
+                matchedKeyList.add(keys[keyIndex]);
+            }
+        }
+        return matchedKeyList;
+    }
+}
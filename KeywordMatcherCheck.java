@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class checks that the KeywordMatcher finds exactly what the scan it replaced found:
+ * every keyword, in the order of the keywords, that the lower-cased input contains. It
+ * compares the two over the preprogrammed keywords and over a few made-up ones that
+ * overlap one another, such as "life" inside "the best life", on cases written by hand,
+ * on the lines of many scripted sessions, and on many random inputs. The scripts and the
+ * random inputs come from one fixed seed, so two runs check the same inputs.
+ *
+ * The first ten inputs on which the two disagree are printed with both answers, and any
+ * disagreement at all makes the program end with a nonzero status, which fails
+ * "mvn verify". Run by hand, as "java KeywordMatcherCheck", it takes the number of random
+ * inputs as its argument; there are 200,000 if none is given.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class KeywordMatcherCheck
+{
+    private static final long INPUT_SEED = 7919L;
+    private static final int SCRIPTED_SESSIONS = 2000;
+    private static final int PRINTED_DIFFERENCES = 10;
+    private static final String[] OVERLAPPING_KEYS = {
+        "life", "the best life", "best", "law", "lawyer", "love", "s", "st", "a", "aa",
+        "aaa", "dynamis", "dynamic"
+    };
+    private static final String[] HANDWRITTEN_INPUTS = {
+        "", " ", "LIFE", "The Best Life", "Is love the best life?", "lawyers love the law",
+        "aaaa", "dynamism is dynamic", "st. s", "Été life", "İstanbul life",
+        "life\nlove", "What is justice, and what is love?"
+    };
+
+    private long checkedCount;
+    private long mismatchCount;
+    /**
+     * This runs the check with the number of random inputs given as an argument, if there
+     * is one.
+     */
+    public static void main(String[] args)
+    {
+        int randomCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ReplyTables replyTables = ReplyTables.getShared();
+        ArrayList<String> sharedKeys = new ArrayList<>();
+        for(int topic = 0; topic < replyTables.getTopicCount(); topic++) {
+            sharedKeys.add(replyTables.getKey(topic));
+        }
+        KeywordMatcherCheck check = new KeywordMatcherCheck();
+        SessionScriptGenerator generator = new SessionScriptGenerator(replyTables,
+            INPUT_SEED);
+        check.checkAll(sharedKeys, generator, randomCount);
+        check.checkAll(Arrays.asList(OVERLAPPING_KEYS), generator, randomCount);
+        System.out.println("Checked " + check.checkedCount + " inputs; "
+            + check.mismatchCount + " differed.");
+        System.exit(check.mismatchCount == 0 ? 0 : 1);
+    }
+
+    /**
+     * This method compares the matcher with the scan over every kind of input for one set
+     * of keywords.
+     *
+     * @param The keywords, the generator of scripted sessions, and the number of random
+     * inputs.
+     */
+    public void checkAll(List<String> keys, SessionScriptGenerator generator, int randomCount)
+    {
+        KeywordMatcher matcher = new KeywordMatcher(keys);
+        for(String input : HANDWRITTEN_INPUTS) {
+            check(keys, matcher, input);
+        }
+        for(int session = 0; session < SCRIPTED_SESSIONS; session++) {
+            for(String input : generator.createScript(session)) {
+                check(keys, matcher, input);
+            }
+        }
+        SessionRandom random = new SessionRandom(INPUT_SEED);
+        for(int input = 0; input < randomCount; input++) {
+            check(keys, matcher, createInput(random, keys));
+        }
+    }
+
+    /**
+     * This method compares the matcher with the scan on one input.
+     *
+     * @param The keywords, the matcher compiled from them, and the input.
+     */
+    private void check(List<String> keys, KeywordMatcher matcher, String input)
+    {
+        // This is the scan that Responder used to make, one keyword at a time.
+        ArrayList<String> expected = new ArrayList<>();
+        for(String key : keys) {
+            if(input.toLowerCase().contains(key)) {
+                expected.add(key);
+            }
+        }
+        ArrayList<String> found = matcher.findMatches(input);
+        checkedCount++;
+        if(!found.equals(expected)) {
+            if(mismatchCount < PRINTED_DIFFERENCES) {
+                System.out.println("\"" + input + "\": the scan found " + expected
+                    + " but the matcher found " + found);
+            }
+            mismatchCount++;
+        }
+    }
+
+    /**
+     * This method makes up an input from pieces of the keywords, some of them in upper
+     * case, with a few other characters between them, so that keywords often overlap or
+     * nearly match.
+     *
+     * @param The random generator and the keywords.
+     * @return The input.
+     */
+    private static String createInput(SessionRandom random, List<String> keys)
+    {
+        StringBuilder input = new StringBuilder();
+        int pieceCount = random.nextInt(6);
+        for(int piece = 0; piece < pieceCount; piece++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            int start = random.nextInt(key.length() + 1);
+            int end = start + random.nextInt(key.length() - start + 1);
+            String part = random.nextInt(2) == 0 ? key : key.substring(start, end);
+            input.append(random.nextInt(4) == 0 ? part.toUpperCase() : part);
+            input.append(" ,.?'İ".charAt(random.nextInt(6)));
+        }
+        return input.toString();
+    }
+}
@@ -0,0 +1,242 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class compiles a knowledge base written as text into the binary snapshot that
+ * ReplyTables can memory-map, so that topics can be added or changed without touching the
+ * Java code. It can also export the preprogrammed phrases as a text knowledge base to start
+ * from.
+ *
+ * In the text format, a line "[topic] keyword" starts a topic, and the lines after it, up
+ * to the next topic or default, are its reply. A line "[default]" starts a default reply in
+ * the same way. Lines starting with "#" are comments, and blank lines at the end of a reply
+ * are ignored. A reply line that has to start with "[", "#" or "\", or that has to be blank
+ * at the end of a reply, is written with an extra "\" in front, which is removed. Keywords
+ * are matched whatever the case of the input, so they are kept in lower case. A knowledge
+ * base needs at least one default reply, since Responders fall back on them.
+ *
+ * The same format, read by LayeredReplyTables, describes a knowledge pack: the topics it
+ * adds or whose replies it changes, and the default replies it adds.
+ *
+ * It is run as "java KnowledgeBaseCompiler dynamis.kb dynamis.kbs" to compile, or as
+ * "java KnowledgeBaseCompiler --export dynamis.kb" to export.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class KnowledgeBaseCompiler
+{
+    private static final String TOPIC_HEADER = "[topic]";
+    private static final String DEFAULT_HEADER = "[default]";
+
+    private ArrayList<String> keys;
+    private ArrayList<String> replies;
+    private ArrayList<String> defaults;
+    // This is the last line read, as "path:line", for errors found only after reading.
+    private String lastLine;
+    /**
+     * This constructor creates a compiler with no topics read yet.
+     */
+    public KnowledgeBaseCompiler()
+    {
+        keys = new ArrayList<>();
+        replies = new ArrayList<>();
+        defaults = new ArrayList<>();
+    }
+
+    /**
+     * This runs the compiler or the exporter, as described above.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length == 2 && args[0].equals("--export")) {
+            export(new ReplyTables(), Paths.get(args[1]));
+        }
+        else if(args.length == 2) {
+            KnowledgeBaseCompiler compiler = new KnowledgeBaseCompiler();
+            compiler.read(Paths.get(args[0]));
+            compiler.write(Paths.get(args[1]));
+            System.out.println("Compiled " + compiler.keys.size() + " topics and "
+                + compiler.defaults.size() + " default replies into " + args[1] + ".");
+        }
+        else {
+            System.err.println("Usage: java KnowledgeBaseCompiler <input.kb> <output.kbs>");
+            System.err.println("       java KnowledgeBaseCompiler --export <output.kb>");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * This method reads the topics and default replies of a text knowledge base.
+     *
+     * @param The path of the text knowledge base.
+     */
+    public void read(Path path) throws IOException
+    {
+        HashSet<String> seenKeys = new HashSet<>(keys);
+        try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String currentKey = null;
+            boolean isInEntry = false;
+            ArrayList<String> entryLines = new ArrayList<>();
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while(line != null) {
+                lineNumber++;
+                boolean isTopic = line.startsWith(TOPIC_HEADER);
+                if(isTopic || line.equals(DEFAULT_HEADER)) {
+                    if(isInEntry) {
+                        finishEntry(currentKey, entryLines);
+                    }
+                    currentKey = null;
+                    if(isTopic) {
+                        // The KeywordMatcher lowers the case of the input, so a keyword
+                        // with a capital letter could never match.
+                        currentKey = line.substring(TOPIC_HEADER.length()).trim()
+                            .toLowerCase();
+                        if(currentKey.isEmpty() || !seenKeys.add(currentKey)) {
+                            throw new IOException(path + ":" + lineNumber + ": the topic \""
+                                + currentKey + "\" is empty or appears more than once.");
+                        }
+                    }
+                    isInEntry = true;
+                    entryLines.clear();
+                }
+                else if(!line.startsWith("#")) {
+                    if(!isInEntry && !line.trim().isEmpty()) {
+                        throw new IOException(path + ":" + lineNumber
+                            + ": text appears before the first topic or default.");
+                    }
+                    entryLines.add(line);
+                }
+                line = reader.readLine();
+            }
+            if(isInEntry) {
+                finishEntry(currentKey, entryLines);
+            }
+            lastLine = path + ":" + lineNumber;
+        }
+    }
+
+    /**
+     * This method turns the lines of an entry into its reply and stores it.
+     *
+     * @param The keyword of the topic, or null for a default reply, and the entry's lines.
+     */
+    private void finishEntry(String key, ArrayList<String> entryLines)
+    {
+        int lineCount = entryLines.size();
+        while(lineCount > 0 && entryLines.get(lineCount - 1).trim().isEmpty()) {
+            lineCount--;
+        }
+        StringBuilder reply = new StringBuilder();
+        for(int index = 0; index < lineCount; index++) {
+            String line = entryLines.get(index);
+            if(index > 0) {
+                reply.append('\n');
+            }
+            reply.append(line.startsWith("\\") ? line.substring(1) : line);
+        }
+        if(key == null) {
+            defaults.add(reply.toString());
+        }
+        else {
+            keys.add(key);
+            replies.add(reply.toString());
+        }
+    }
+
+    /**
+     * This is an accessor for the keywords of the topics read so far.
+     *
+     * @return The keywords, in the order they were read.
+     */
+    public List<String> getKeys()
+    {
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * This is an accessor for the replies of the topics read so far.
+     *
+     * @return The replies, in the same order as the keywords.
+     */
+    public List<String> getReplies()
+    {
+        return Collections.unmodifiableList(replies);
+    }
+
+    /**
+     * This is an accessor for the default replies read so far.
+     *
+     * @return The default replies, in the order they were read.
+     */
+    public List<String> getDefaults()
+    {
+        return Collections.unmodifiableList(defaults);
+    }
+
+    /**
+     * This method writes everything read so far as a binary snapshot.
+     *
+     * @param The path to write the snapshot to.
+     * @throws IOException  If no default reply has been read, or the snapshot cannot be
+     * written.
+     */
+    public void write(Path path) throws IOException
+    {
+        // A pack may leave the default replies to its base, but a whole knowledge base may
+        // not.
+        if(defaults.isEmpty()) {
+            throw new IOException((lastLine == null ? "" : lastLine + ": ")
+                + "the knowledge base has no \"" + DEFAULT_HEADER + "\" reply.");
+        }
+        KnowledgeBaseSnapshot.write(keys, replies, defaults, path);
+    }
+
+    /**
+     * This method writes reply tables out as a text knowledge base.
+     *
+     * @param The reply tables and the path of the text knowledge base to write.
+     */
+    public static void export(ReplyTables replyTables, Path path) throws IOException
+    {
+        try(BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# DYNAMIS knowledge base. Compile it with KnowledgeBaseCompiler.\n");
+            for(int topic = 0; topic < replyTables.getTopicCount(); topic++) {
+                writer.write("\n" + TOPIC_HEADER + " " + replyTables.getKey(topic) + "\n");
+                writeReply(writer, replyTables.getReplyAt(topic));
+            }
+            for(int index = 0; index < replyTables.getDefaultReplyCount(); index++) {
+                writer.write("\n" + DEFAULT_HEADER + "\n");
+                writeReply(writer, replyTables.getDefaultReply(index));
+            }
+        }
+    }
+
+    /**
+     * This method writes the lines of a reply, escaping any that would otherwise be read
+     * back differently.
+     *
+     * @param The writer and the reply.
+     */
+    private static void writeReply(BufferedWriter writer, String reply) throws IOException
+    {
+        for(String line : reply.split("\n", -1)) {
+            if(line.trim().isEmpty() || line.startsWith("[") || line.startsWith("#")
+            || line.startsWith("\\")) {
+                writer.write("\\");
+            }
+            writer.write(line);
+            writer.write("\n");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * This class reads and writes the compiled form of a knowledge base: a binary snapshot of
+ * the topics, their replies, and the default replies, made by the KnowledgeBaseCompiler. A
+ * snapshot is memory-mapped rather than read in, and each reply is only decoded when it is
+ * asked for, so even a snapshot of many thousands of topics opens almost at once and takes
+ * no heap until it is used. The mapping is read-only and may be shared by any number of
+ * threads.
+ *
+ * The layout, in big-endian order, is: the magic number and the format version; the number
+ * of topics and of default replies; a table giving, for every topic, the offset and length
+ * of its keyword and of its reply; a table giving the offset and length of every default
+ * reply; and finally the string pool, which holds all of that text in UTF-8. Offsets count
+ * from the start of the string pool. Every entry of both tables is checked against the
+ * size of the snapshot when it is opened, so a damaged or cut-off snapshot is turned away
+ * then rather than failing on some later reply.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class KnowledgeBaseSnapshot
+{
+    public static final int MAGIC = 0x44594B42;        // "DYKB"
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int TOPIC_ENTRY_BYTES = 16;
+    private static final int DEFAULT_ENTRY_BYTES = 8;
+
+    private ByteBuffer buffer;
+    private int topicCount;
+    private int defaultCount;
+    private int defaultTableStart;
+    private int poolStart;
+    /**
+     * This constructor reads the header of a snapshot held in a buffer and checks it and
+     * both tables.
+     *
+     * @param The buffer holding the whole snapshot.
+     */
+    private KnowledgeBaseSnapshot(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer;
+        if(buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("This is not a DYNAMIS knowledge base snapshot.");
+        }
+        if(buffer.getInt(4) != VERSION) {
+            throw new IOException("The knowledge base snapshot has version "
+                + buffer.getInt(4) + ", but version " + VERSION + " is needed.");
+        }
+        topicCount = buffer.getInt(8);
+        defaultCount = buffer.getInt(12);
+        // The counts are read from the file, so the sizes are worked out in longs, where
+        // no count can make them overflow.
+        long tableEnd = HEADER_BYTES + (long) topicCount * TOPIC_ENTRY_BYTES;
+        long poolOffset = tableEnd + (long) defaultCount * DEFAULT_ENTRY_BYTES;
+        if(topicCount < 0 || defaultCount < 0 || poolOffset > buffer.limit()) {
+            throw new IOException("The knowledge base snapshot is damaged.");
+        }
+        if(defaultCount == 0) {
+            throw new IOException("The knowledge base snapshot has no default replies.");
+        }
+        defaultTableStart = (int) tableEnd;
+        poolStart = (int) poolOffset;
+        for(int entry = HEADER_BYTES; entry < poolStart; entry += 8) {
+            checkText(buffer.getInt(entry), buffer.getInt(entry + 4));
+        }
+    }
+
+    /**
+     * This method checks that the text an entry points to lies within the string pool.
+     *
+     * @param The offset of the text in the string pool and its length in bytes.
+     */
+    private void checkText(int offset, int length) throws IOException
+    {
+        if(offset < 0 || length < 0 || (long) poolStart + offset + length > buffer.limit()) {
+            throw new IOException("The knowledge base snapshot is damaged: text at offset "
+                + offset + " of length " + length + " lies outside it.");
+        }
+    }
+
+    /**
+     * This method memory-maps a snapshot file.
+     *
+     * @param The path of the snapshot.
+     * @return The opened snapshot.
+     */
+    public static KnowledgeBaseSnapshot open(Path path) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                channel.size());
+            return new KnowledgeBaseSnapshot(mapping);
+        }
+    }
+
+    /**
+     * This method writes a snapshot of the given topics and default replies.
+     *
+     * @param The keywords of the topics, their replies in the same order, the default
+     * replies, and the path to write the snapshot to.
+     */
+    public static void write(List<String> keys, List<String> replies, List<String> defaults,
+        Path path) throws IOException
+    {
+        byte[][] keyBytes = encodeAll(keys);
+        byte[][] replyBytes = encodeAll(replies);
+        byte[][] defaultBytes = encodeAll(defaults);
+        int tableBytes = HEADER_BYTES + keys.size() * TOPIC_ENTRY_BYTES
+            + defaults.size() * DEFAULT_ENTRY_BYTES;
+        ByteBuffer table = ByteBuffer.allocate(tableBytes);
+        table.putInt(MAGIC).putInt(VERSION).putInt(keys.size()).putInt(defaults.size());
+        int offset = 0;
+        for(int topic = 0; topic < keys.size(); topic++) {
+            table.putInt(offset).putInt(keyBytes[topic].length);
+            offset += keyBytes[topic].length;
+            table.putInt(offset).putInt(replyBytes[topic].length);
+            offset += replyBytes[topic].length;
+        }
+        for(byte[] reply : defaultBytes) {
+            table.putInt(offset).putInt(reply.length);
+            offset += reply.length;
+        }
+
+        // The snapshot is written beside the old one and then moved over it, so that a server
+        // that still has the old one mapped keeps reading it undisturbed.
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(),
+            ".tmp");
+        try {
+            try(OutputStream output = Files.newOutputStream(temporaryPath)) {
+                output.write(table.array());
+                for(int topic = 0; topic < keys.size(); topic++) {
+                    output.write(keyBytes[topic]);
+                    output.write(replyBytes[topic]);
+                }
+                for(byte[] reply : defaultBytes) {
+                    output.write(reply);
+                }
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * This method encodes every String of a list in UTF-8.
+     *
+     * @param The Strings to encode.
+     * @return Their bytes, in the same order.
+     */
+    private static byte[][] encodeAll(List<String> texts)
+    {
+        byte[][] encoded = new byte[texts.size()][];
+        for(int index = 0; index < encoded.length; index++) {
+            encoded[index] = texts.get(index).getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /**
+     * This is an accessor for the number of topics.
+     *
+     * @return The number of keywords with replies.
+     */
+    public int getTopicCount()
+    {
+        return topicCount;
+    }
+
+    /**
+     * This is an accessor for the number of default replies.
+     *
+     * @return The number of default replies.
+     */
+    public int getDefaultCount()
+    {
+        return defaultCount;
+    }
+
+    /**
+     * This method decodes the keyword of a topic.
+     *
+     * @param The index of the topic.
+     * @return The keyword.
+     */
+    public String decodeKey(int topic)
+    {
+        int entry = HEADER_BYTES + topic * TOPIC_ENTRY_BYTES;
+        return decode(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    /**
+     * This method decodes the reply of a topic.
+     *
+     * @param The index of the topic.
+     * @return The reply.
+     */
+    public String decodeReply(int topic)
+    {
+        int entry = HEADER_BYTES + topic * TOPIC_ENTRY_BYTES;
+        return decode(buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+    }
+
+    /**
+     * This method decodes one of the default replies.
+     *
+     * @param The index of the default reply.
+     * @return The reply.
+     */
+    public String decodeDefault(int index)
+    {
+        int entry = defaultTableStart + index * DEFAULT_ENTRY_BYTES;
+        return decode(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    /**
+     * This method decodes text from the string pool. It only uses absolute reads, so any
+     * number of threads may decode at once.
+     *
+     * @param The offset of the text in the string pool and its length in bytes.
+     * @return The text.
+     */
+    private String decode(int offset, int length)
+    {
+        byte[] bytes = new byte[length];
+        buffer.get(poolStart + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * This class keeps the knowledge packs of many tenants, each a persona of DYNAMIS, over one
+ * shared base. A tenant's pack is the file "<tenant>.kb" in the packs' directory, written
+ * in the text format of the KnowledgeBaseCompiler, and it is read and laid over the base
+ * the first time the tenant is asked for; after that, every Responder of the tenant shares
+ * the same LayeredReplyTables. The base is compiled once for all of them, so hundreds of
+ * tenants cost little more than what their packs hold. A session of a tenant is served by
+ * a Responder made with the tenant's tables, as in
+ * "new Responder(packs.getTables(tenant), sink, randomGenerator)".
+ *
+ * The base is itself reloadable. Whenever a new version of it is swapped in, every pack
+ * read so far is laid over the new version and swapped in for its tenant in turn, so no
+ * tenant keeps the old base in memory. A pack is read outside of any lock, so tenants
+ * asked for at the same time are read at the same time, and a tenant asked for again
+ * while its pack is being read waits only for that pack.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class KnowledgePacks
+{
+    private static final String PACK_SUFFIX = ".kb";
+    // A tenant's name becomes part of a file name, so it may not reach outside the
+    // directory.
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private ReloadableReplyTables base;
+    private Path directory;
+    private ConcurrentHashMap<String, CompletableFuture<ReloadableReplyTables>> tenantTables;
+    /**
+     * This constructor keeps the packs of a directory over a base, following the base
+     * through its reloads.
+     *
+     * @param The base and the directory of the packs.
+     */
+    public KnowledgePacks(ReloadableReplyTables base, Path directory)
+    {
+        this.base = base;
+        this.directory = directory;
+        tenantTables = new ConcurrentHashMap<>();
+        base.addReloadListener(newBase -> {
+            for(CompletableFuture<ReloadableReplyTables> tables : tenantTables.values()) {
+                // A pack still being read is laid over the new base once it has been.
+                tables.thenAccept(this::layOverCurrentBase);
+            }
+        });
+    }
+
+    /**
+     * This method returns the reply tables of a tenant, reading its pack the first time.
+     *
+     * @param The name of the tenant.
+     * @return The tenant's pack laid over the base.
+     * @throws IllegalArgumentException  If the name is not a valid tenant name.
+     * @throws UncheckedIOException  If the tenant has no pack or it cannot be read.
+     */
+    public ReloadableReplyTables getTables(String tenant)
+    {
+        if(!TENANT_NAME.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("\"" + tenant + "\" is not a tenant name.");
+        }
+        CompletableFuture<ReloadableReplyTables> tables = tenantTables.get(tenant);
+        if(tables == null) {
+            CompletableFuture<ReloadableReplyTables> newTables = new CompletableFuture<>();
+            tables = tenantTables.putIfAbsent(tenant, newTables);
+            if(tables == null) {
+                tables = newTables;
+                loadPack(tenant, newTables);
+            }
+        }
+        try {
+            return tables.join();
+        }
+        catch(CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * This method reads a tenant's pack and lays it over the current base. If the pack
+     * cannot be read, the tenant is forgotten, so that it is read again the next time it
+     * is asked for.
+     *
+     * @param The name of the tenant and the future to complete with its tables.
+     */
+    private void loadPack(String tenant, CompletableFuture<ReloadableReplyTables> tables)
+    {
+        ReloadableReplyTables reloadable;
+        try {
+            LayeredReplyTables layered = LayeredReplyTables.load(base.current(),
+                directory.resolve(tenant + PACK_SUFFIX));
+            layered.prepare();
+            reloadable = new ReloadableReplyTables(layered);
+        }
+        catch(IOException | RuntimeException e) {
+            tenantTables.remove(tenant, tables);
+            tables.completeExceptionally(e instanceof IOException
+                ? new UncheckedIOException("The knowledge pack of " + tenant
+                + " could not be loaded.", (IOException) e) : e);
+            return;
+        }
+        tables.complete(reloadable);
+        // The base may have been reloaded while the pack was being read.
+        layOverCurrentBase(reloadable);
+    }
+
+    /**
+     * This method lays a tenant's pack over the current base, if it lies over an older
+     * one, and swaps it in.
+     *
+     * @param The tenant's tables.
+     */
+    private void layOverCurrentBase(ReloadableReplyTables tables)
+    {
+        // Two new bases in quick succession must not race to lay the same pack.
+        synchronized(tables) {
+            LayeredReplyTables layered = (LayeredReplyTables) tables.current();
+            ReplyTables currentBase = base.current();
+            if(layered.getBase() != currentBase) {
+                tables.replace(layered.layOver(currentBase));
+            }
+        }
+    }
+
+    /**
+     * This method lists the tenants that have a pack in the directory.
+     *
+     * @return The names of the tenants, in alphabetical order.
+     */
+    public List<String> listTenants() throws IOException
+    {
+        ArrayList<String> tenants = new ArrayList<>();
+        try(DirectoryStream<Path> packs = Files.newDirectoryStream(directory,
+            "*" + PACK_SUFFIX)) {
+            for(Path pack : packs) {
+                String name = pack.getFileName().toString();
+                String tenant = name.substring(0, name.length() - PACK_SUFFIX.length());
+                if(TENANT_NAME.matcher(tenant).matches()) {
+                    tenants.add(tenant);
+                }
+            }
+        }
+        Collections.sort(tenants);
+        return tenants;
+    }
+
+    /**
+     * This is an accessor for the base that every pack is laid over.
+     *
+     * @return The reloadable base.
+     */
+    public ReloadableReplyTables getBase()
+    {
+        return base;
+    }
+}
@@ -0,0 +1,384 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * This class lays a knowledge pack over a base ReplyTables: a persona of its own that
+ * shares every topic of the base, replaces the replies of a few of them, adds a few topics,
+ * and adds a few default replies. Only what the pack holds is kept here, with a
+ * KeywordMatcher and a ReplyIndex over the topics it adds or changes; everything else is
+ * looked up in the base, which any number of packs share. A lookup tries the pack's small
+ * tables and the base's, so nothing is merged per input, and the pack's memory grows only
+ * with what it changes.
+ *
+ * The base's topics keep their positions, and the pack's added topics follow them; its
+ * default replies likewise follow the base's. When the ReplyIndex ranks the phrases, each
+ * layer is searched on its own and the higher score wins; the pack's index counts how
+ * rare a word is over the base's phrases as well as its own, leaving out those it
+ * replaces, so its scores stand up against the base's. A base reply that the pack has
+ * replaced is ranked only by its new text: the base is searched for its best phrase
+ * among those the pack keeps. The getReplyIndex accessor covers only the pack's own
+ * phrases, numbered within the pack.
+ *
+ * A pack is written in the text format of the KnowledgeBaseCompiler; a topic whose keyword
+ * is already in the base replaces that keyword's reply. Like any ReplyTables, a layered
+ * one never changes once built, and it may itself serve as the base of another.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class LayeredReplyTables extends ReplyTables
+{
+    private ReplyTables base;
+    private int baseTopicCount;
+    private int baseDefaultCount;
+    // The pack's own topics come in two runs: those it adds, then those whose base replies
+    // it replaces. These map between the base's positions and the pack's for the second.
+    private int addedCount;
+    private IntIntHashMap replacedTopics;
+    /**
+     * This constructor lays a pack over the base.
+     *
+     * @param The base ReplyTables, the pack's keywords and their replies in the same order,
+     * and the pack's default replies.
+     */
+    public LayeredReplyTables(ReplyTables base, List<String> keys, List<String> replies,
+        List<String> defaults)
+    {
+        super(arrange(base, keys, keys), arrange(base, keys, replies),
+            defaults.toArray(new String[0]));
+        this.base = base;
+        baseTopicCount = base.getTopicCount();
+        baseDefaultCount = base.getDefaultReplyCount();
+        replacedTopics = new IntIntHashMap();
+        for(int ownTopic = 0; ownTopic < super.getTopicCount(); ownTopic++) {
+            int baseTopic = base.getTopic(super.getKey(ownTopic));
+            if(baseTopic < 0) {
+                addedCount++;
+            }
+            else {
+                replacedTopics.put(baseTopic, ownTopic);
+            }
+        }
+    }
+
+    /**
+     * This method reads a pack written in the text format of the KnowledgeBaseCompiler and
+     * lays it over the base.
+     *
+     * @param The base ReplyTables and the path of the pack.
+     * @return The layered reply tables.
+     */
+    public static LayeredReplyTables load(ReplyTables base, Path packPath) throws IOException
+    {
+        KnowledgeBaseCompiler compiler = new KnowledgeBaseCompiler();
+        compiler.read(packPath);
+        return new LayeredReplyTables(base, compiler.getKeys(), compiler.getReplies(),
+            compiler.getDefaults());
+    }
+
+    /**
+     * This method lays the same pack over another base, such as a newer version of this
+     * one's base.
+     *
+     * @param The new base ReplyTables.
+     * @return The layered reply tables.
+     */
+    public LayeredReplyTables layOver(ReplyTables newBase)
+    {
+        ArrayList<String> keys = new ArrayList<>();
+        ArrayList<String> replies = new ArrayList<>();
+        ArrayList<String> defaults = new ArrayList<>();
+        for(int ownTopic = 0; ownTopic < super.getTopicCount(); ownTopic++) {
+            keys.add(super.getKey(ownTopic));
+            replies.add(super.getReplyAt(ownTopic));
+        }
+        for(int index = 0; index < super.getDefaultReplyCount(); index++) {
+            defaults.add(super.getDefaultReply(index));
+        }
+        return new LayeredReplyTables(newBase, keys, replies, defaults);
+    }
+
+    /**
+     * This method puts the entries of a pack in the order its own topics take: first those
+     * whose keywords the base lacks, then those it has.
+     *
+     * @param The base ReplyTables, the pack's keywords, and the entries to order, one for
+     * each keyword.
+     * @return The entries in that order.
+     */
+    private static String[] arrange(ReplyTables base, List<String> keys, List<String> entries)
+    {
+        if(keys.size() != entries.size()) {
+            throw new IllegalArgumentException("Every keyword of a pack needs one reply.");
+        }
+        String[] arranged = new String[entries.size()];
+        int position = 0;
+        for(int pass = 0; pass < 2; pass++) {
+            for(int entry = 0; entry < entries.size(); entry++) {
+                boolean isInBase = base.getTopic(keys.get(entry)) >= 0;
+                if(isInBase == (pass == 1)) {
+                    arranged[position++] = entries.get(entry);
+                }
+            }
+        }
+        return arranged;
+    }
+
+    /**
+     * This method finds the position of a topic among the pack's own.
+     *
+     * @param The position of the topic in these tables.
+     * @return Its position in the pack, or -1 if the pack does not hold it.
+     */
+    private int toOwnTopic(int topic)
+    {
+        return topic >= baseTopicCount ? topic - baseTopicCount : replacedTopics.get(topic);
+    }
+
+    /**
+     * This method finds the position in these tables of one of the pack's own topics.
+     *
+     * @param The position of the topic in the pack.
+     * @return Its position in these tables.
+     */
+    private int fromOwnTopic(int ownTopic)
+    {
+        return ownTopic < addedCount ? baseTopicCount + ownTopic
+            : base.getTopic(super.getKey(ownTopic));
+    }
+
+    /**
+     * This method compiles the KeywordMatchers and builds the ReplyIndexes of both layers
+     * now rather than on the first user's input.
+     */
+    public void prepare()
+    {
+        base.prepare();
+        super.prepare();
+    }
+
+    /**
+     * This is an accessor for the index whose word statistics the pack's ReplyIndex
+     * shares, which is the base's.
+     *
+     * @return The base's ReplyIndex.
+     */
+    ReplyIndex getSharedStatistics()
+    {
+        return base.getReplyIndex();
+    }
+
+    /**
+     * This is an accessor for the base's topics whose phrases the pack replaces, which
+     * count no longer toward the word statistics that the pack's ReplyIndex shares.
+     *
+     * @return The positions of the replaced topics in the base's ReplyIndex.
+     */
+    int[] getReplacedSharedDocuments()
+    {
+        // A layered base's ReplyIndex covers only its own topics, numbered within it.
+        LayeredReplyTables layeredBase = base instanceof LayeredReplyTables
+            ? (LayeredReplyTables) base : null;
+        int[] replaced = new int[super.getTopicCount() - addedCount];
+        int replacedCount = 0;
+        for(int index = 0; index < replaced.length; index++) {
+            int baseTopic = fromOwnTopic(addedCount + index);
+            int sharedDocument = layeredBase == null ? baseTopic
+                : layeredBase.toOwnTopic(baseTopic);
+            if(sharedDocument >= 0) {
+                replaced[replacedCount++] = sharedDocument;
+            }
+        }
+        return Arrays.copyOf(replaced, replacedCount);
+    }
+
+    /**
+     * This method finds every keyword of the base and of the pack within the input.
+     *
+     * @param The String of the user's input.
+     * @return A list of the matching keywords, in the order of their topics.
+     */
+    public ArrayList<String> findMatches(String input)
+    {
+        ArrayList<String> matches = base.findMatches(input);
+        if(addedCount > 0) {
+            for(String key : super.findMatches(input)) {
+                // A replaced keyword was already found in the base.
+                if(super.getTopic(key) < addedCount) {
+                    matches.add(key);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * This method finds the phrase that best answers an input, searching both layers and
+     * leaving out the base's phrases that the pack replaces.
+     *
+     * @param The String of the user's input and a test of the topics to leave out, or null
+     * to leave out none.
+     * @return The topic of the best phrase and its score, or no topic if no word of the
+     * input appears in any phrase.
+     */
+    ReplyIndex.Result searchReplies(String input, IntPredicate isExcluded)
+    {
+        ReplyIndex.Result result = base.searchReplies(input, topic -> replacedTopics
+            .containsKey(topic) || (isExcluded != null && isExcluded.test(topic)));
+        if(super.getTopicCount() > 0) {
+            ReplyIndex.Result ownResult = super.searchReplies(input, isExcluded == null ? null
+                : ownTopic -> isExcluded.test(fromOwnTopic(ownTopic)));
+            // On a tie, the pack's own phrase is the more fitting for its persona.
+            if(ownResult.getDocument() >= 0 && ownResult.getScore() >= result.getScore()) {
+                result = new ReplyIndex.Result(fromOwnTopic(ownResult.getDocument()),
+                    ownResult.getScore());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method scores the phrases of a few chosen topics against an input, each in the
+     * layer that holds it.
+     *
+     * @param The String of the user's input and the topics to score.
+     * @return Their scores, in the same order.
+     */
+    public float[] scoreReplies(String input, int[] topics)
+    {
+        int ownCount = 0;
+        for(int topic : topics) {
+            if(toOwnTopic(topic) >= 0) {
+                ownCount++;
+            }
+        }
+        if(ownCount == 0) {
+            return base.scoreReplies(input, topics);
+        }
+        int[] baseTopics = new int[topics.length - ownCount];
+        int[] ownTopics = new int[ownCount];
+        int baseIndex = 0;
+        int ownIndex = 0;
+        for(int topic : topics) {
+            int ownTopic = toOwnTopic(topic);
+            if(ownTopic >= 0) {
+                ownTopics[ownIndex++] = ownTopic;
+            }
+            else {
+                baseTopics[baseIndex++] = topic;
+            }
+        }
+        float[] baseScores = baseTopics.length == 0 ? null
+            : base.scoreReplies(input, baseTopics);
+        float[] ownScores = super.scoreReplies(input, ownTopics);
+        float[] scores = new float[topics.length];
+        baseIndex = 0;
+        ownIndex = 0;
+        for(int index = 0; index < topics.length; index++) {
+            scores[index] = toOwnTopic(topics[index]) >= 0 ? ownScores[ownIndex++]
+                : baseScores[baseIndex++];
+        }
+        return scores;
+    }
+
+    /**
+     * This is an accessor for the position of a keyword among the topics.
+     *
+     * @param The keyword, as returned by findMatches.
+     * @return Its position, or -1 if it is not a keyword.
+     */
+    public int getTopic(String key)
+    {
+        int topic = base.getTopic(key);
+        if(topic >= 0) {
+            return topic;
+        }
+        int ownTopic = super.getTopic(key);
+        return ownTopic < 0 ? -1 : baseTopicCount + ownTopic;
+    }
+
+    /**
+     * This is an accessor for the phrase of a keyword, from the pack if it holds one.
+     *
+     * @param The keyword, as returned by findMatches.
+     * @return The phrase kept for that keyword, or null if it is not a keyword.
+     */
+    public String getSpecificReply(String key)
+    {
+        int topic = getTopic(key);
+        return topic < 0 ? null : getReplyAt(topic);
+    }
+
+    /**
+     * This is an accessor for the number of keywords, counting the base's and those the
+     * pack adds.
+     *
+     * @return The number of keywords with phrases.
+     */
+    public int getTopicCount()
+    {
+        return baseTopicCount + addedCount;
+    }
+
+    /**
+     * This is an accessor for one of the keywords.
+     *
+     * @param The position of the keyword, from 0 up to one less than getTopicCount().
+     * @return The keyword.
+     */
+    public String getKey(int topic)
+    {
+        return topic < baseTopicCount ? base.getKey(topic)
+            : super.getKey(topic - baseTopicCount);
+    }
+
+    /**
+     * This is an accessor for the phrase of one of the keywords, from the pack if it holds
+     * one.
+     *
+     * @param The position of the keyword.
+     * @return The phrase kept for that keyword.
+     */
+    public String getReplyAt(int topic)
+    {
+        int ownTopic = toOwnTopic(topic);
+        return ownTopic < 0 ? base.getReplyAt(topic) : super.getReplyAt(ownTopic);
+    }
+
+    /**
+     * This is an accessor for one of the default phrases; the pack's follow the base's.
+     *
+     * @param The index of the phrase.
+     * @return The phrase at that index.
+     */
+    public String getDefaultReply(int index)
+    {
+        return index < baseDefaultCount ? base.getDefaultReply(index)
+            : super.getDefaultReply(index - baseDefaultCount);
+    }
+
+    /**
+     * This is an accessor for the number of default phrases, counting the base's and the
+     * pack's.
+     *
+     * @return The number of default phrases.
+     */
+    public int getDefaultReplyCount()
+    {
+        return baseDefaultCount + super.getDefaultReplyCount();
+    }
+
+    /**
+     * This is an accessor for the base these tables are laid over.
+     *
+     * @return The base ReplyTables.
+     */
+    public ReplyTables getBase()
+    {
+        return base;
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads lines of UTF-8 text from a channel, such as standard input, a file, or a
+ * socket. Bytes are read in large blocks into a direct buffer and decoded as they arrive,
+ * and lines are found with a plain scan of the decoded characters, so reading a line costs
+ * little more than copying it.
+ *
+ * Lines end just where Scanner.nextLine() ends them: at "\r\n", "\n", "\r", "\u2028",
+ * "\u2029" or "\u0085", and the last line counts even without an ending. A "\r" ends its
+ * line at once, without waiting to see whether a "\n" follows, so someone typing at a
+ * Terminal is never kept waiting. Malformed UTF-8 is replaced with "\ufffd", as Scanner
+ * does.
+ *
+ * The channel must be in blocking mode. A LineChannelReader is used by one thread at a
+ * time.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class LineChannelReader
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    private ReadableByteChannel channel;
+    private CharsetDecoder decoder;
+    private ByteBuffer bytes;
+    private CharBuffer chars;
+    private StringBuilder line;
+    private boolean skipsLineFeed;
+    private boolean isAtEndOfInput;
+    /**
+     * This constructor creates a reader over a channel, but does not yet read from it.
+     *
+     * @param The channel to read from.
+     */
+    public LineChannelReader(ReadableByteChannel channel)
+    {
+        this.channel = channel;
+        decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        chars = CharBuffer.allocate(BUFFER_SIZE);
+        // The characters are kept ready for reading; none have been decoded yet.
+        chars.flip();
+        line = new StringBuilder();
+        skipsLineFeed = false;
+        isAtEndOfInput = false;
+    }
+
+    /**
+     * This method reads the next line, waiting for it if need be.
+     *
+     * @return The line, without its ending, or null if the input has ended.
+     */
+    public String readLine() throws IOException
+    {
+        while(true) {
+            char[] decoded = chars.array();
+            int position = chars.position();
+            int limit = chars.limit();
+            if(skipsLineFeed && position < limit) {
+                skipsLineFeed = false;
+                if(decoded[position] == '\n') {
+                    position++;
+                }
+            }
+            int lineStart = position;
+            while(position < limit) {
+                char next = decoded[position];
+                if(next == '\n' || next == '\r' || next == '\u2028' || next == '\u2029'
+                || next == '\u0085') {
+                    line.append(decoded, lineStart, position - lineStart);
+                    skipsLineFeed = next == '\r';
+                    chars.position(position + 1);
+                    return takeLine();
+                }
+                position++;
+            }
+            line.append(decoded, lineStart, limit - lineStart);
+            chars.position(limit);
+            if(!fill()) {
+                return line.length() > 0 ? takeLine() : null;
+            }
+        }
+    }
+
+    /**
+     * This method returns the line gathered so far and starts a new one.
+     *
+     * @return The line.
+     */
+    private String takeLine()
+    {
+        String finishedLine = line.toString();
+        line.setLength(0);
+        return finishedLine;
+    }
+
+    /**
+     * This method reads and decodes more of the input once every decoded character has
+     * been used.
+     *
+     * @return Whether there are new characters; false once the input has ended.
+     */
+    private boolean fill() throws IOException
+    {
+        chars.clear();
+        while(chars.position() == 0 && !isAtEndOfInput) {
+            int bytesRead = channel.read(bytes);
+            bytes.flip();
+            if(bytesRead < 0) {
+                isAtEndOfInput = true;
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+            }
+            else {
+                // Any bytes of a character that is cut off are kept for the next read.
+                decoder.decode(bytes, chars, false);
+            }
+            bytes.compact();
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
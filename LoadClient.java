@@ -0,0 +1,203 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class stands in for many users at once so that the throughput of a ChatServer can be
+ * measured. Each simulated user connects, gives a name, says a number of things from a
+ * fixed script (mixing keywords, default replies and Conversation Mode), and says goodbye,
+ * waiting for each reply before saying the next thing, as a person would. Each simulated
+ * user runs on its own thread, which is a virtual thread wherever the server's sessions
+ * are, so that the client can keep up with as many sessions as the server.
+ *
+ * Running it as "java LoadClient local 1000 50" starts a server inside the same program, so
+ * running it again with "-XX:ActiveProcessorCount=N" for several values of N shows how the
+ * throughput scales with the number of cores. With "router:N" in place of "local", it
+ * instead starts N worker JVMs behind a SessionRouter, and each simulated user names its
+ * session to the router, so that the scaling with the number of workers can be measured.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class LoadClient
+{
+    private static final String[] SCRIPT = {
+        "hello there", "what do you think about justice?", "tell me about the best life",
+        "I like turtles", "!ConversationMode", "gardens remind me of summer",
+        "summer vacations are lovely", "", "is courage worth it?", "why were you created"
+    };
+
+    private String host;
+    private int port;
+    private boolean namesSessions;
+    private AtomicLong linesRead;
+    /**
+     * This constructor points the client at a running server.
+     *
+     * @param The host name and port of the server.
+     */
+    public LoadClient(String host, int port)
+    {
+        this(host, port, false);
+    }
+
+    /**
+     * This constructor points the client at a running server or SessionRouter.
+     *
+     * @param The host name and port, and whether each session begins with a "SESSION"
+     * line giving its number, as a SessionRouter takes.
+     */
+    public LoadClient(String host, int port, boolean namesSessions)
+    {
+        this.host = host;
+        this.port = port;
+        this.namesSessions = namesSessions;
+        linesRead = new AtomicLong();
+    }
+
+    /**
+     * This runs the client. The arguments are the host (or "local" to start a server in the
+     * same program, or "router:N" to start N workers and a router), the number of sessions
+     * and the number of turns in each session, followed by the port when the host is
+     * neither.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String host = args.length > 0 ? args[0] : "local";
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int turns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 4040;
+
+        ChatServer localServer = null;
+        SessionRouter localRouter = null;
+        List<Process> workers = new ArrayList<>();
+        if(host.startsWith("router:")) {
+            int workerCount = Integer.parseInt(host.substring("router:".length()));
+            int firstPort = findFreePort();
+            List<InetSocketAddress> addresses = new ArrayList<>();
+            for(int worker = 0; worker < workerCount; worker++) {
+                addresses.add(new InetSocketAddress("localhost", firstPort + worker));
+            }
+            workers = SessionRouter.launchLocalWorkers(firstPort, workerCount);
+            localRouter = new SessionRouter(0, addresses);
+            SessionRouter router = localRouter;
+            Thread acceptor = new Thread(router::serve, "dynamis-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            host = "localhost";
+            port = router.getPort();
+        }
+        else if(host.equals("local")) {
+            localServer = new ChatServer(0);
+            ChatServer server = localServer;
+            Thread acceptor = new Thread(server::serve, "dynamis-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            host = "localhost";
+            port = server.getPort();
+        }
+
+        LoadClient client = new LoadClient(host, port, localRouter != null);
+        long elapsedNanos = client.run(sessions, turns);
+        double seconds = elapsedNanos / 1e9;
+        long totalTurns = (long) sessions * turns;
+        System.out.printf("%d cores, %d sessions x %d turns in %.3f s: %.0f turns/s "
+            + "(%d lines read)%n", Runtime.getRuntime().availableProcessors(), sessions,
+            turns, seconds, totalTurns / seconds, client.linesRead.get());
+        if(localServer != null) {
+            localServer.close();
+        }
+        if(localRouter != null) {
+            localRouter.close();
+        }
+        for(Process worker : workers) {
+            worker.destroy();
+        }
+    }
+
+    /**
+     * This method runs every session at the same time and waits for all of them to finish.
+     *
+     * @param The number of sessions and the number of turns in each.
+     * @return The time, in nanoseconds, from the first connection to the last goodbye.
+     */
+    public long run(int sessions, int turns) throws InterruptedException
+    {
+        ExecutorService sessionExecutor = ChatServer.createSessionExecutor();
+        long startTime = System.nanoTime();
+        for(int session = 0; session < sessions; session++) {
+            int sessionNumber = session;
+            sessionExecutor.execute(() -> runSession(sessionNumber, turns));
+        }
+        sessionExecutor.shutdown();
+        sessionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * This method finds a run of free ports for local workers, starting from one that the
+     * operating system picks; the ports after it are very likely free as well.
+     *
+     * @return The first port.
+     */
+    private static int findFreePort() throws IOException
+    {
+        try(ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+
+    /**
+     * This method plays out one user's conversation from the script.
+     *
+     * @param The number of the session, used in the user's name and to vary the script,
+     * and the number of turns to take.
+     */
+    private void runSession(int sessionNumber, int turns)
+    {
+        try(Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            if(namesSessions) {
+                writeLine(output, "SESSION " + sessionNumber);
+            }
+            // The welcome ends with the prompt for the user's name.
+            long count = SoakTest.readResponse(input);
+            writeLine(output, "User" + sessionNumber);
+            count += SoakTest.readResponse(input);
+            for(int turn = 0; turn < turns; turn++) {
+                writeLine(output, SCRIPT[(sessionNumber + turn) % SCRIPT.length]);
+                count += SoakTest.readResponse(input);
+            }
+            // After "bye", the server says goodbye and closes the connection.
+            writeLine(output, "bye");
+            count += SoakTest.readResponse(input);
+            linesRead.addAndGet(count);
+        }
+        catch(IOException e) {
+            System.err.println("Session " + sessionNumber + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method sends one line to the server straight away.
+     *
+     * @param The stream to the server and the line, without its line separator.
+     */
+    private static void writeLine(OutputStream output, String line) throws IOException
+    {
+        output.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+}
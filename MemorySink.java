@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is a ResponseSink that keeps responses in memory instead of sending them
+ * anywhere, for tests, benchmarks, and anything that wants to look at what DYNAMIS said. It
+ * can keep every response, or only the most recent one so that it never grows.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class MemorySink implements ResponseSink
+{
+    private StringBuilder currentResponse;
+    private String lastResponse;
+    private ArrayList<String> responseList;
+    private boolean keepsHistory;
+    /**
+     * This constructor creates a sink that keeps every response.
+     */
+    public MemorySink()
+    {
+        this(true);
+    }
+
+    /**
+     * This constructor creates a sink that keeps either every response or only the most
+     * recent one.
+     *
+     * @param The boolean concerning whether every response is kept.
+     */
+    public MemorySink(boolean keepsHistory)
+    {
+        this.keepsHistory = keepsHistory;
+        currentResponse = new StringBuilder();
+        lastResponse = "";
+        responseList = new ArrayList<>();
+    }
+
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    public void write(String text)
+    {
+        currentResponse.append(text);
+    }
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    public void writeLine(String line)
+    {
+        currentResponse.append(line).append(System.lineSeparator());
+    }
+
+    /**
+     * This method finishes the current response and keeps it.
+     */
+    public void endResponse()
+    {
+        lastResponse = currentResponse.toString();
+        currentResponse.setLength(0);
+        if(keepsHistory) {
+            responseList.add(lastResponse);
+        }
+    }
+
+    /**
+     * This method does nothing, since the responses never leave memory.
+     */
+    public void flush()
+    {
+    }
+
+    /**
+     * This is an accessor for the most recently finished response.
+     *
+     * @return The text of the response, with a newline after each of its lines.
+     */
+    public String getLastResponse()
+    {
+        return lastResponse;
+    }
+
+    /**
+     * This is an accessor for every finished response, if the sink keeps them.
+     *
+     * @return The responses in the order they were finished.
+     */
+    public List<String> getResponses()
+    {
+        return responseList;
+    }
+
+    /**
+     * This method forgets every response kept so far.
+     */
+    public void clear()
+    {
+        currentResponse.setLength(0);
+        lastResponse = "";
+        responseList.clear();
+    }
+}
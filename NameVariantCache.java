@@ -0,0 +1,132 @@
+/**
+ * This class keeps the replies of one session with the user's name already put in, so
+ * that a reply given again does not have to be rebuilt. Each reply has two versions: one
+ * that begins with the name and one that ends with it. Both are built the first time they
+ * are needed and kept until the name changes.
+ *
+ * The cache has a fixed number of slots and each reply can go in only one of them, picked
+ * by its hash code. A reply that lands in a slot already in use replaces the one kept
+ * there, so a session never holds more than a few dozen replies. Only replies from the
+ * reply tables are worth keeping; a phrase made up for one turn, such as a Conversation
+ * Mode question, should go straight to placeNameFirst or placeNameLast instead.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class NameVariantCache
+{
+    private String name;
+    private int slotMask;
+    private String[] replies;
+    private String[] nameFirstReplies;
+    private String[] nameLastReplies;
+    /**
+     * This constructor creates an empty cache.
+     *
+     * @param The number of slots, which is rounded up to a power of two.
+     */
+    public NameVariantCache(int slotCount)
+    {
+        int capacity = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        slotMask = capacity - 1;
+        replies = new String[capacity];
+        nameFirstReplies = new String[capacity];
+        nameLastReplies = new String[capacity];
+    }
+
+    /**
+     * This is a mutator for the name to put into the replies; it forgets every reply built
+     * with the old name.
+     *
+     * @param The user's name.
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+        for(int slot = 0; slot <= slotMask; slot++) {
+            replies[slot] = null;
+            nameFirstReplies[slot] = null;
+            nameLastReplies[slot] = null;
+        }
+    }
+
+    /**
+     * This method returns a reply that begins with the user's name.
+     *
+     * @param The reply.
+     * @return The reply with the name in front.
+     */
+    public String getNameFirst(String reply)
+    {
+        int slot = claimSlot(reply);
+        if(nameFirstReplies[slot] == null) {
+            nameFirstReplies[slot] = placeNameFirst(name, reply);
+        }
+        return nameFirstReplies[slot];
+    }
+
+    /**
+     * This method returns a reply that ends with the user's name.
+     *
+     * @param The reply.
+     * @return The reply with the name before its last character.
+     */
+    public String getNameLast(String reply)
+    {
+        int slot = claimSlot(reply);
+        if(nameLastReplies[slot] == null) {
+            nameLastReplies[slot] = placeNameLast(name, reply);
+        }
+        return nameLastReplies[slot];
+    }
+
+    /**
+     * This method finds the slot of a reply, emptying it first if it holds another reply.
+     *
+     * @param The reply.
+     * @return The slot.
+     */
+    private int claimSlot(String reply)
+    {
+        int hash = reply.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & slotMask;
+        String keptReply = replies[slot];
+        // The reply tables give out the same String each time, so this is usually true at
+        // once, without comparing the text.
+        if(keptReply != reply && !reply.equals(keptReply)) {
+            replies[slot] = reply;
+            nameFirstReplies[slot] = null;
+            nameLastReplies[slot] = null;
+        }
+        return slot;
+    }
+
+    /**
+     * This method puts a name at the beginning of a phrase, making the phrase's first
+     * letter lower case.
+     *
+     * @param The name and the phrase.
+     * @return The phrase with the name in front.
+     */
+    public static String placeNameFirst(String name, String phrase)
+    {
+        // This character is stored and made lower case to be placed appropriately after
+        // the name is inserted.
+        String changedCharacter = phrase.substring(0, 1).toLowerCase();
+        return name + ", " + changedCharacter + phrase.substring(1, phrase.length());
+    }
+
+    /**
+     * This method puts a name at the end of a phrase, just before its last character.
+     *
+     * @param The name and the phrase.
+     * @return The phrase with the name at the end.
+     */
+    public static String placeNameLast(String name, String phrase)
+    {
+        // This character is stored to be moved to the end of the phrase after the name is
+        // inserted.
+        String movedCharacter = phrase.substring(phrase.length() - 1, phrase.length());
+        return phrase.substring(0, phrase.length() - 1) + ", " + name + movedCharacter;
+    }
+}
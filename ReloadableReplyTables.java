@@ -0,0 +1,308 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * This class publishes the current version of the reply tables so that they can be replaced
+ * while sessions keep chatting. Each ReplyTables is immutable, so a Responder reads the
+ * current version once per response and uses it throughout, without any lock. A reload
+ * builds the new version in the background, compiles its KeywordMatcher and ReplyIndex,
+ * and then swaps it in with a single reference switch; responses already under way finish
+ * on the old one. Other code can be told of every new version, as KnowledgePacks are, to
+ * lay their packs over it.
+ *
+ * It keeps a few numbers about reloads: how many there have been, how long the last and the
+ * slowest took, and how long old versions stayed in memory after being replaced, which is
+ * measured when the garbage collector finally releases them.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.05 (2026.10.17)
+ */
+public class ReloadableReplyTables
+{
+    private static final Cleaner RELEASE_WATCHER = Cleaner.create();
+    private static ReloadableReplyTables sharedSource;
+
+    private AtomicReference<ReplyTables> currentTables;
+    private ExecutorService reloadExecutor;
+    private AtomicLong version;
+    private AtomicLong lastReloadNanos;
+    private AtomicLong maxReloadNanos;
+    private AtomicLong retiredVersionCount;
+    private AtomicLong releasedVersionCount;
+    private AtomicLong lastRetentionNanos;
+    private AtomicLong maxRetentionNanos;
+    private CopyOnWriteArrayList<Consumer<ReplyTables>> reloadListeners;
+    /**
+     * This constructor publishes a first version of the reply tables.
+     *
+     * @param The reply tables to start with.
+     */
+    public ReloadableReplyTables(ReplyTables initialTables)
+    {
+        currentTables = new AtomicReference<>(initialTables);
+        version = new AtomicLong(1);
+        lastReloadNanos = new AtomicLong();
+        maxReloadNanos = new AtomicLong();
+        retiredVersionCount = new AtomicLong();
+        releasedVersionCount = new AtomicLong();
+        lastRetentionNanos = new AtomicLong();
+        maxRetentionNanos = new AtomicLong();
+        reloadListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * This method returns the source of reply tables that every Responder shares, starting
+     * from the shared ReplyTables the first time it is asked for.
+     *
+     * @return The shared source.
+     */
+    public static synchronized ReloadableReplyTables getShared()
+    {
+        if(sharedSource == null) {
+            sharedSource = new ReloadableReplyTables(ReplyTables.getShared());
+        }
+        return sharedSource;
+    }
+
+    /**
+     * This is an accessor for the current version of the reply tables. It never blocks.
+     *
+     * @return The current ReplyTables.
+     */
+    public ReplyTables current()
+    {
+        return currentTables.get();
+    }
+
+    /**
+     * This method builds a new version of the reply tables in the background and swaps it
+     * in once it is ready. Reloads run one at a time, in the order they were asked for.
+     *
+     * @param The task that builds the new reply tables.
+     * @return A future that completes with the new tables once they are in use.
+     */
+    public CompletableFuture<ReplyTables> reload(Callable<ReplyTables> loader)
+    {
+        CompletableFuture<ReplyTables> result = new CompletableFuture<>();
+        getReloadExecutor().execute(() -> {
+            try {
+                long startTime = System.nanoTime();
+                ReplyTables newTables = loader.call();
+                newTables.prepare();
+                publish(newTables, System.nanoTime() - startTime);
+                result.complete(newTables);
+            }
+            catch(Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * This method swaps in reply tables built elsewhere, compiling their KeywordMatcher and
+     * ReplyIndex first on the caller's thread.
+     *
+     * @param The new reply tables.
+     */
+    public void replace(ReplyTables newTables)
+    {
+        long startTime = System.nanoTime();
+        newTables.prepare();
+        publish(newTables, System.nanoTime() - startTime);
+    }
+
+    /**
+     * This method registers an action to take with every new version of the reply tables,
+     * once it is in use. It runs on the thread that swapped the version in.
+     *
+     * @param The action, which is given the new reply tables.
+     */
+    public void addReloadListener(Consumer<ReplyTables> listener)
+    {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * This method reloads the reply tables from a knowledge base snapshot whenever the
+     * snapshot file changes, checking every so often on a background thread of its own. A
+     * change only counts as seen once its reload succeeds, so a snapshot that fails to load,
+     * such as one that is still being written, is tried again at the next check.
+     *
+     * @param The path of the snapshot and the number of seconds between checks.
+     * @return A handle that stops the watching, and its thread, when it is closed.
+     */
+    public Closeable watch(Path snapshotPath, long intervalSeconds)
+    {
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "dynamis-knowledge-base-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first is the version in use and the second the last one that failed, which
+        // is only reported once.
+        FileTime[] modifiedTimes = {readModifiedTime(snapshotPath), null};
+        watcher.scheduleWithFixedDelay(() -> {
+            FileTime modified = readModifiedTime(snapshotPath);
+            if(modified == null || modified.equals(modifiedTimes[0])) {
+                return;
+            }
+            try {
+                // The watcher waits for its reload, so that it is never asked for twice.
+                reload(() -> ReplyTables.load(snapshotPath)).get();
+                modifiedTimes[0] = modified;
+                modifiedTimes[1] = null;
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch(ExecutionException e) {
+                if(!modified.equals(modifiedTimes[1])) {
+                    modifiedTimes[1] = modified;
+                    System.err.println("The knowledge base could not be reloaded, and will be"
+                        + " tried again: " + e.getCause().getMessage());
+                }
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return () -> watcher.shutdownNow();
+    }
+
+    /**
+     * This method swaps in a new version and starts watching for the old one's release.
+     *
+     * @param The new reply tables and the time it took to build them.
+     */
+    private void publish(ReplyTables newTables, long reloadNanos)
+    {
+        ReplyTables oldTables = currentTables.getAndSet(newTables);
+        version.incrementAndGet();
+        lastReloadNanos.set(reloadNanos);
+        maxReloadNanos.accumulateAndGet(reloadNanos, Math::max);
+
+        retiredVersionCount.incrementAndGet();
+        long retiredAt = System.nanoTime();
+        // The cleanup action must not refer to the old tables, or they could never be
+        // released.
+        RELEASE_WATCHER.register(oldTables, () -> {
+            long retentionNanos = System.nanoTime() - retiredAt;
+            releasedVersionCount.incrementAndGet();
+            lastRetentionNanos.set(retentionNanos);
+            maxRetentionNanos.accumulateAndGet(retentionNanos, Math::max);
+        });
+        for(Consumer<ReplyTables> listener : reloadListeners) {
+            listener.accept(newTables);
+        }
+    }
+
+    /**
+     * This method returns the thread that reloads run on, starting it the first time.
+     *
+     * @return The reload executor.
+     */
+    private synchronized ExecutorService getReloadExecutor()
+    {
+        if(reloadExecutor == null) {
+            reloadExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "dynamis-reply-table-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return reloadExecutor;
+    }
+
+    /**
+     * This method reads when a file was last changed.
+     *
+     * @param The path of the file.
+     * @return The time it was last changed, or null if it cannot be read.
+     */
+    private static FileTime readModifiedTime(Path path)
+    {
+        try {
+            return Files.getLastModifiedTime(path);
+        }
+        catch(IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * This is an accessor for the version number of the current reply tables, which
+     * starts at 1 and goes up with every reload.
+     *
+     * @return The version number.
+     */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /**
+     * This is an accessor for how long the most recent reload took.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getLastReloadNanos()
+    {
+        return lastReloadNanos.get();
+    }
+
+    /**
+     * This is an accessor for how long the slowest reload took.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getMaxReloadNanos()
+    {
+        return maxReloadNanos.get();
+    }
+
+    /**
+     * This is an accessor for the number of old versions that have been replaced but not
+     * yet released from memory.
+     *
+     * @return The number of old versions still held.
+     */
+    public long getRetainedVersionCount()
+    {
+        return retiredVersionCount.get() - releasedVersionCount.get();
+    }
+
+    /**
+     * This is an accessor for how long the most recently released old version was kept
+     * after it was replaced.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getLastRetentionNanos()
+    {
+        return lastRetentionNanos.get();
+    }
+
+    /**
+     * This is an accessor for the longest time any old version was kept after it was
+     * replaced.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getMaxRetentionNanos()
+    {
+        return maxRetentionNanos.get();
+    }
+}
@@ -0,0 +1,514 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * This class is an inverted index over the replies of the reply tables, which scores how
+ * well each reply answers an input with BM25, the ranking that search engines commonly
+ * use: a reply scores higher the more of the input's words it contains, the rarer those
+ * words are among all the replies, and the shorter the reply is. It lets DYNAMIS give the
+ * most fitting reply when no keyword matches, and choose the most fitting among several
+ * keywords that do.
+ *
+ * For every word, the index keeps the documents that contain it, in order, together with
+ * the word's share of their score, and the largest share it gives any document. A search
+ * is exact, but it does not add up every document: it walks the documents in order while
+ * keeping the best score so far, and once the largest shares of the commonest words could
+ * not together reach that score, it only looks those words up in the documents that the
+ * rarer words lead to, skipping ahead in their long lists. Like the reply tables, an index
+ * never changes once built, and any number of threads may search it at once.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.06 (2026.10.17)
+ */
+public class ReplyIndex
+{
+    // Responders rank their replies with the index only if "dynamis.rankedReplies" is set;
+    // otherwise they choose as randomly as they always have.
+    public static final boolean ENABLED = Boolean.getBoolean("dynamis.rankedReplies");
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_WORD_LENGTH = 3;
+    // This widens the bounds on scores a little, so that rounding cannot make a bound fall
+    // short of a score that it covers.
+    private static final float BOUND_SLACK = 1.0001f;
+    // This is how many documents are scored in full to find a score to start a search with.
+    private static final int STARTING_SAMPLE = 256;
+    // These words are so common in any conversation that they say nothing about which
+    // reply fits, and over a small set of replies they would still score.
+    private static final HashSet<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "about", "after", "again", "all", "also", "and", "any", "are", "because", "been",
+        "before", "being", "but", "can", "could", "did", "does", "doing", "for", "from",
+        "had", "has", "have", "her", "here", "him", "his", "how", "into", "its", "just",
+        "like", "more", "most", "much", "not", "now", "off", "one", "only", "other", "our",
+        "out", "over", "same", "she", "should", "some", "such", "than", "that", "the",
+        "their", "them", "then", "there", "these", "they", "this", "those", "through", "too",
+        "very", "was", "way", "were", "what", "when", "where", "which", "while", "who",
+        "whom", "why", "will", "with", "would", "yes", "yet", "you", "your", "yours"));
+
+    private int documentCount;
+    private long totalLength;
+    private HashMap<String, Integer> wordIds;
+    // For every word, these hold the documents that contain it, in order, the word's part
+    // of their score, and the largest of those parts.
+    private int[][] postingDocuments;
+    private float[][] postingScores;
+    private float[] maxScores;
+    // This is kept so that an index sharing these statistics can leave some documents out.
+    private IntFunction<String> documents;
+    /**
+     * This constructor builds the index. It reads every document twice, first to count
+     * the words and then to score them, rather than holding all of their words at once.
+     *
+     * @param The number of documents and a function that gives the text of each one.
+     */
+    public ReplyIndex(int documentCount, IntFunction<String> documents)
+    {
+        this(documentCount, documents, null);
+    }
+
+    /**
+     * This constructor builds an index over a few documents that are searched alongside a
+     * larger index, as a knowledge pack's replies are alongside those of its base. How
+     * rare each word is and how long a document is counted over both sets of documents,
+     * so that the scores of the two indexes can be compared with each other.
+     *
+     * @param The number of documents, a function that gives the text of each one, and the
+     * index whose documents also count toward the word statistics, or null for none.
+     */
+    public ReplyIndex(int documentCount, IntFunction<String> documents,
+        ReplyIndex sharedStatistics)
+    {
+        this(documentCount, documents, sharedStatistics, null);
+    }
+
+    /**
+     * This constructor builds an index that shares the word statistics of a larger index
+     * except for some of its documents, such as the base phrases that a knowledge pack
+     * replaces, which no longer count toward how rare a word is or how long a document is.
+     *
+     * @param The number of documents, a function that gives the text of each one, the
+     * index whose documents also count toward the word statistics, or null for none, and
+     * the positions in that index of the documents to leave out of them, or null for none.
+     */
+    public ReplyIndex(int documentCount, IntFunction<String> documents,
+        ReplyIndex sharedStatistics, int[] excludedSharedDocuments)
+    {
+        this.documentCount = documentCount;
+        this.documents = documents;
+        wordIds = new HashMap<>();
+        ArrayList<Integer> documentFrequencies = new ArrayList<>();
+        int[] documentLengths = new int[documentCount];
+        totalLength = 0;
+        IntList wordsOfDocument = new IntList();
+        for(int document = 0; document < documentCount; document++) {
+            tokenize(documents.apply(document), wordsOfDocument, true);
+            documentLengths[document] = wordsOfDocument.size;
+            totalLength += wordsOfDocument.size;
+            wordsOfDocument.sortAndCount();
+            for(int index = 0; index < wordsOfDocument.distinctSize; index++) {
+                int wordId = wordsOfDocument.values[index];
+                if(wordId == documentFrequencies.size()) {
+                    documentFrequencies.add(0);
+                }
+                documentFrequencies.set(wordId, documentFrequencies.get(wordId) + 1);
+            }
+        }
+
+        int wordCount = documentFrequencies.size();
+        postingDocuments = new int[wordCount][];
+        postingScores = new float[wordCount][];
+        int[] sharedFrequencies = new int[wordCount];
+        int statisticsCount = documentCount;
+        long statisticsLength = totalLength;
+        if(sharedStatistics != null) {
+            for(String word : wordIds.keySet()) {
+                Integer sharedId = sharedStatistics.wordIds.get(word);
+                if(sharedId != null) {
+                    sharedFrequencies[wordIds.get(word)] =
+                        sharedStatistics.postingDocuments[sharedId].length;
+                }
+            }
+            statisticsCount += sharedStatistics.documentCount;
+            statisticsLength += sharedStatistics.totalLength;
+            if(excludedSharedDocuments != null) {
+                for(int sharedDocument : excludedSharedDocuments) {
+                    String text = sharedStatistics.documents.apply(sharedDocument);
+                    sharedStatistics.tokenize(text, wordsOfDocument, false);
+                    statisticsCount--;
+                    statisticsLength -= wordsOfDocument.size;
+                    // Only the words this index holds matter here, so they are looked up
+                    // in its own words rather than the shared index's.
+                    tokenize(text, wordsOfDocument, false);
+                    wordsOfDocument.sortAndCount();
+                    for(int index = 0; index < wordsOfDocument.distinctSize; index++) {
+                        sharedFrequencies[wordsOfDocument.values[index]]--;
+                    }
+                }
+            }
+        }
+        float[] inverseFrequencies = new float[wordCount];
+        maxScores = new float[wordCount];
+        for(int wordId = 0; wordId < wordCount; wordId++) {
+            int frequency = documentFrequencies.get(wordId);
+            postingDocuments[wordId] = new int[frequency];
+            postingScores[wordId] = new float[frequency];
+            int allFrequency = frequency + sharedFrequencies[wordId];
+            inverseFrequencies[wordId] = (float) Math.log(1
+                + (statisticsCount - allFrequency + 0.5) / (allFrequency + 0.5));
+        }
+        float averageLength = statisticsCount == 0 ? 1
+            : Math.max(1, (float) statisticsLength / statisticsCount);
+        int[] filled = new int[wordCount];
+        for(int document = 0; document < documentCount; document++) {
+            tokenize(documents.apply(document), wordsOfDocument, false);
+            wordsOfDocument.sortAndCount();
+            float lengthNorm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+            for(int index = 0; index < wordsOfDocument.distinctSize; index++) {
+                int wordId = wordsOfDocument.values[index];
+                int termFrequency = wordsOfDocument.counts[index];
+                int posting = filled[wordId]++;
+                postingDocuments[wordId][posting] = document;
+                // The documents are read in order, so each word's list comes out in order.
+                float score = inverseFrequencies[wordId]
+                    * termFrequency * (K1 + 1) / (termFrequency + lengthNorm);
+                postingScores[wordId][posting] = score;
+                maxScores[wordId] = Math.max(maxScores[wordId], score);
+            }
+        }
+    }
+
+    /**
+     * This method finds the document that best answers an input.
+     *
+     * @param The user's input.
+     * @return The best document and its score, or no document if no word of the input
+     * appears in any of them.
+     */
+    public Result search(String input)
+    {
+        return search(input, null);
+    }
+
+    /**
+     * This method finds the document that best answers an input among those that a test
+     * does not leave out. Of documents that score the same, the first is chosen, so the
+     * same input always gets the same reply.
+     *
+     * @param The user's input and a test of the documents to leave out, or null to leave
+     * out none.
+     * @return The best document and its score, or no document if no word of the input
+     * appears in any of the others.
+     */
+    public Result search(String input, IntPredicate isExcluded)
+    {
+        IntList inputWords = new IntList();
+        tokenize(input, inputWords, false);
+        inputWords.sortAndCount();
+        int wordCount = inputWords.distinctSize;
+        // The words are put in order of their largest parts, and bounds holds how much the
+        // words up to each one could add to a score at most.
+        Integer[] order = new Integer[wordCount];
+        for(int index = 0; index < wordCount; index++) {
+            order[index] = inputWords.values[index];
+        }
+        Arrays.sort(order, (first, second) -> Float.compare(maxScores[first],
+            maxScores[second]));
+        int[][] lists = new int[wordCount][];
+        float[][] listScores = new float[wordCount][];
+        int[] positions = new int[wordCount];
+        // This holds the document each list has reached, or Integer.MAX_VALUE at its end.
+        int[] currents = new int[wordCount];
+        float[] bounds = new float[wordCount];
+        float bound = 0;
+        for(int index = 0; index < wordCount; index++) {
+            lists[index] = postingDocuments[order[index]];
+            listScores[index] = postingScores[order[index]];
+            currents[index] = lists[index].length > 0 ? lists[index][0] : Integer.MAX_VALUE;
+            bound += maxScores[order[index]];
+            bounds[index] = bound * BOUND_SLACK;
+        }
+
+        int bestDocument = -1;
+        float bestScore = wordCount == 0 ? 0
+            : findStartingScore(lists, listScores, isExcluded);
+        // The words before this one could not lift a document above the best score on
+        // their own, so their lists are only looked up, never walked.
+        int firstLeading = 0;
+        while(firstLeading < wordCount && bounds[firstLeading] <= bestScore) {
+            firstLeading++;
+        }
+        while(true) {
+            int candidate = Integer.MAX_VALUE;
+            for(int index = firstLeading; index < wordCount; index++) {
+                candidate = Math.min(candidate, currents[index]);
+            }
+            if(candidate == Integer.MAX_VALUE) {
+                break;
+            }
+            float score = 0;
+            for(int index = firstLeading; index < wordCount; index++) {
+                if(currents[index] == candidate) {
+                    int position = positions[index]++;
+                    score += listScores[index][position];
+                    currents[index] = position + 1 < lists[index].length
+                        ? lists[index][position + 1] : Integer.MAX_VALUE;
+                }
+            }
+            for(int index = firstLeading - 1; index >= 0 && score + bounds[index] > bestScore;
+                index--) {
+                int position = skipTo(lists[index], positions[index], candidate);
+                positions[index] = position;
+                if(position < lists[index].length && lists[index][position] == candidate) {
+                    score += listScores[index][position];
+                }
+            }
+            if(score > bestScore && (isExcluded == null || !isExcluded.test(candidate))) {
+                bestDocument = candidate;
+                bestScore = score;
+                while(firstLeading < wordCount && bounds[firstLeading] <= bestScore) {
+                    firstLeading++;
+                }
+            }
+        }
+        return new Result(bestDocument, bestScore);
+    }
+
+    /**
+     * This method finds a score that the best document reaches, to start a search with,
+     * by scoring in full the first few documents of the word that could add the most to a
+     * score. It is taken a little lower than theirs, so that the document that reaches it
+     * is still found and compared with the others.
+     *
+     * @param The lists of the input's words and their parts of the scores, ordered as in
+     * search, and a test of the documents to leave out, or null to leave out none.
+     * @return The score.
+     */
+    private static float findStartingScore(int[][] lists, float[][] listScores,
+        IntPredicate isExcluded)
+    {
+        int lastWord = lists.length - 1;
+        int[] positions = new int[lists.length];
+        float startingScore = 0;
+        int sampleCount = Math.min(lists[lastWord].length, STARTING_SAMPLE);
+        for(int posting = 0; posting < sampleCount; posting++) {
+            int document = lists[lastWord][posting];
+            if(isExcluded != null && isExcluded.test(document)) {
+                continue;
+            }
+            float score = listScores[lastWord][posting];
+            for(int index = 0; index < lastWord; index++) {
+                int position = skipTo(lists[index], positions[index], document);
+                positions[index] = position;
+                if(position < lists[index].length && lists[index][position] == document) {
+                    score += listScores[index][position];
+                }
+            }
+            startingScore = Math.max(startingScore, score);
+        }
+        return startingScore / BOUND_SLACK;
+    }
+
+    /**
+     * This method finds where a document is, or would be, in a list of documents, looking
+     * no further back than a given position. It takes steps that double in size and then
+     * searches the last step, so skipping far ahead in a long list is quick.
+     *
+     * @param The list, the position to start from, and the document.
+     * @return The position of the first document in the list not before it.
+     */
+    private static int skipTo(int[] list, int start, int document)
+    {
+        int low = start;
+        int high = start;
+        int step = 1;
+        while(high < list.length && list[high] < document) {
+            low = high + 1;
+            high = start + step;
+            step *= 2;
+        }
+        high = Math.min(high, list.length);
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(list[middle] < document) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method scores a few chosen documents against an input, such as the replies of
+     * the keywords that the input matched, looking up each word of the input in their
+     * lists.
+     *
+     * @param The user's input and the documents to score.
+     * @return Their scores, in the same order; 0 for a document with none of the words.
+     */
+    public float[] score(String input, int[] chosenDocuments)
+    {
+        IntList inputWords = new IntList();
+        tokenize(input, inputWords, false);
+        inputWords.sortAndCount();
+        float[] documentScores = new float[chosenDocuments.length];
+        for(int index = 0; index < chosenDocuments.length; index++) {
+            for(int word = 0; word < inputWords.distinctSize; word++) {
+                int wordId = inputWords.values[word];
+                int posting = Arrays.binarySearch(postingDocuments[wordId],
+                    chosenDocuments[index]);
+                if(posting >= 0) {
+                    documentScores[index] += postingScores[wordId][posting];
+                }
+            }
+        }
+        return documentScores;
+    }
+
+    /**
+     * This method cuts a text into lower-case words of letters and digits, leaving out
+     * words too short or too common to tell replies apart.
+     *
+     * @param The text, the list to put the ids of the words in, and whether words not yet
+     * in the index should be added to it (otherwise they are left out).
+     */
+    private void tokenize(String text, IntList wordsOfText, boolean addsNewWords)
+    {
+        wordsOfText.clear();
+        int length = text.length();
+        int wordStart = -1;
+        for(int position = 0; position <= length; position++) {
+            boolean isWordCharacter = position < length
+                && Character.isLetterOrDigit(text.charAt(position));
+            if(isWordCharacter && wordStart < 0) {
+                wordStart = position;
+            }
+            else if(!isWordCharacter && wordStart >= 0) {
+                String word = position - wordStart >= MIN_WORD_LENGTH
+                    ? text.substring(wordStart, position).toLowerCase() : null;
+                if(word != null && !STOP_WORDS.contains(word)) {
+                    Integer wordId = wordIds.get(word);
+                    if(wordId == null && addsNewWords) {
+                        wordId = wordIds.size();
+                        wordIds.put(word, wordId);
+                    }
+                    if(wordId != null) {
+                        wordsOfText.add(wordId);
+                    }
+                }
+                wordStart = -1;
+            }
+        }
+    }
+
+    /**
+     * This is an accessor for the number of documents in the index.
+     *
+     * @return The number of documents.
+     */
+    public int getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    /**
+     * This is an accessor for the number of different words in the index.
+     *
+     * @return The number of words.
+     */
+    public int getWordCount()
+    {
+        return postingDocuments.length;
+    }
+
+    /**
+     * This class is the outcome of a search: the best document and its score.
+     */
+    public static class Result
+    {
+        private int document;
+        private float score;
+
+        /**
+         * This constructor creates a result for a document already chosen.
+         *
+         * @param The position of the document, or -1 for none, and its score.
+         */
+        Result(int document, float score)
+        {
+            this.document = document;
+            this.score = score;
+        }
+
+        /**
+         * This is an accessor for the best document.
+         *
+         * @return Its position, or -1 if nothing was found.
+         */
+        public int getDocument()
+        {
+            return document;
+        }
+
+        /**
+         * This is an accessor for the score of the best document.
+         *
+         * @return The score, or 0 if nothing was found.
+         */
+        public float getScore()
+        {
+            return score;
+        }
+    }
+
+    /**
+     * This class is a growable list of ints that can count the repeats of its values.
+     */
+    private static class IntList
+    {
+        private int[] values = new int[64];
+        private int[] counts = new int[64];
+        private int size;
+        private int distinctSize;
+
+        private void add(int value)
+        {
+            if(size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                counts = new int[size * 2];
+            }
+            values[size++] = value;
+        }
+
+        private void clear()
+        {
+            size = 0;
+            distinctSize = 0;
+        }
+
+        /**
+         * This method sorts the values and gathers their repeats, so that the first
+         * distinctSize values are each different and counts holds how often each came up.
+         */
+        private void sortAndCount()
+        {
+            Arrays.sort(values, 0, size);
+            distinctSize = 0;
+            for(int index = 0; index < size; index++) {
+                if(distinctSize > 0 && values[distinctSize - 1] == values[index]) {
+                    counts[distinctSize - 1]++;
+                }
+                else {
+                    values[distinctSize] = values[index];
+                    counts[distinctSize] = 1;
+                    distinctSize++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This class measures the ReplyIndex on a made-up corpus far larger than the preprogrammed
+ * phrases: how long building it takes, how much heap it holds, and how long searches take,
+ * as percentiles, since the slowest searches are the ones a user notices. The documents and
+ * the inputs draw their words from the same vocabulary, with a few words very common and
+ * most of them rare, as in real text, and everything is seeded so that two runs do the
+ * same work.
+ *
+ * It is run as "java ReplyIndexBenchmark", optionally followed by the number of documents
+ * (1,000,000 by default) and the number of searches (100,000 by default).
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class ReplyIndexBenchmark
+{
+    private static final long SEED = 20171010L;
+    private static final int VOCABULARY_SIZE = 50000;
+    private static final int WARMUP_SEARCHES = 20000;
+
+    private String[] vocabulary;
+    // This holds the vocabulary's cumulative weights, which fall off as 1 / rank.
+    private double[] cumulativeWeights;
+    /**
+     * This constructor makes up the vocabulary.
+     */
+    public ReplyIndexBenchmark()
+    {
+        vocabulary = new String[VOCABULARY_SIZE];
+        cumulativeWeights = new double[VOCABULARY_SIZE];
+        double total = 0;
+        for(int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+            vocabulary[rank] = "word" + Integer.toString(rank, 36);
+            total += 1.0 / (rank + 1);
+            cumulativeWeights[rank] = total;
+        }
+        for(int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+            cumulativeWeights[rank] /= total;
+        }
+    }
+
+    /**
+     * This runs the benchmark with the sizes given as arguments, if there are any.
+     */
+    public static void main(String[] args)
+    {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int searchCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        new ReplyIndexBenchmark().run(documentCount, searchCount);
+    }
+
+    /**
+     * This method builds an index over made-up documents and measures searches in it.
+     *
+     * @param The number of documents and the number of searches to measure.
+     */
+    public void run(int documentCount, int searchCount)
+    {
+        long heapBefore = usedHeap();
+        long startTime = System.nanoTime();
+        ReplyIndex index = new ReplyIndex(documentCount,
+            document -> createText(new SessionRandom(SEED + document), 20 + document % 40));
+        double buildSeconds = (System.nanoTime() - startTime) / 1e9;
+        long heapBytes = usedHeap() - heapBefore;
+        System.out.printf("Built %d documents of %d words in %.2f s, using %.1f MB of heap.%n",
+            index.getDocumentCount(), index.getWordCount(), buildSeconds, heapBytes / 1e6);
+
+        SessionRandom inputRandom = new SessionRandom(SEED - 1);
+        String[] inputs = new String[4096];
+        for(int input = 0; input < inputs.length; input++) {
+            inputs[input] = createText(inputRandom, 4 + input % 12);
+        }
+        long found = 0;
+        for(int search = 0; search < WARMUP_SEARCHES; search++) {
+            found += index.search(inputs[search % inputs.length]).getDocument();
+        }
+        Histogram searchNanos = new Histogram();
+        for(int search = 0; search < searchCount; search++) {
+            long searchStart = System.nanoTime();
+            found += index.search(inputs[search % inputs.length]).getDocument();
+            searchNanos.record(System.nanoTime() - searchStart);
+        }
+        System.out.printf("search (ns): mean=%.0f p50=%d p99=%d p99.9=%d max=%d%n",
+            searchNanos.getMean(), searchNanos.getPercentile(50),
+            searchNanos.getPercentile(99), searchNanos.getPercentile(99.9),
+            searchNanos.getMax());
+        if(found == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * This method makes up a text of words from the vocabulary.
+     *
+     * @param The random generator and the number of words.
+     * @return The text.
+     */
+    private String createText(SessionRandom random, int wordCount)
+    {
+        StringBuilder text = new StringBuilder();
+        for(int word = 0; word < wordCount; word++) {
+            if(word > 0) {
+                text.append(' ');
+            }
+            double point = (random.nextLong() >>> 11) * 0x1.0p-53;
+            int rank = java.util.Arrays.binarySearch(cumulativeWeights, point);
+            text.append(vocabulary[Math.min(VOCABULARY_SIZE - 1,
+                rank < 0 ? -rank - 1 : rank)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * This method measures the heap in use after collecting garbage.
+     *
+     * @return The bytes in use.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for(int collection = 0; collection < 3; collection++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
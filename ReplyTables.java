@@ -0,0 +1,525 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * This class holds the reply tables that DYNAMIS draws on: the keywords of the 
+ * specificReplyMap and their preprogrammed phrases, the defaultReplyMap of phrases that 
+ * move the conversation along, and the KeywordMatcher compiled from the keywords. None of 
+ * it changes after it is built, so a single ReplyTables can be shared by every Responder in
+ * the program; only the state of each conversation has to be kept per user.
+ *
+ * The tables come either from the phrases preprogrammed below or from a compiled knowledge
+ * base snapshot. With a snapshot, nothing is read at startup; each keyword and phrase is 
+ * decoded from the memory-mapped file the first time it is used, and the map from keywords
+ * to topics and the KeywordMatcher are only built when the first input arrives, or when
+ * prepare is called, as a ChatServer does in the background once it is listening. The 
+ * shared tables use the snapshot named by the system property "dynamis.knowledgeBase", if 
+ * there is one. The ReplyIndex over the phrases is likewise only built when it is first 
+ * needed.
+ *
+ * A LayeredReplyTables lays a small knowledge pack over another ReplyTables, so that many
+ * personas can share one base and keep only what they change; the lookups below are the
+ * ones it resolves through both layers.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.06 (2026.10.17)
+ */
+public class ReplyTables
+{
+    private static ReplyTables sharedTables;
+
+    private String[] keys;
+    private volatile HashMap<String, Integer> keyIndex;
+    // These hold the phrases that have been decoded so far; with the preprogrammed phrases,
+    // they are all filled in from the start.
+    private String[] specificReplies;
+    private String[] defaultReplies;
+    private KnowledgeBaseSnapshot snapshot;
+    private volatile KeywordMatcher keywordMatcher;
+    private volatile ReplyIndex replyIndex;
+    /**
+     * This constructor builds the reply tables from the preprogrammed phrases.
+     */
+    public ReplyTables()
+    {
+        HashMap<String, String> specificReplyMap = new HashMap<>();
+        ArrayList<String> defaultReplyMap = new ArrayList<>();
+        fillSpecificResponses(specificReplyMap);
+        fillDefaultResponses(defaultReplyMap);
+        keys = specificReplyMap.keySet().toArray(new String[0]);
+        specificReplies = new String[keys.length];
+        for(int topic = 0; topic < keys.length; topic++) {
+            specificReplies[topic] = specificReplyMap.get(keys[topic]);
+        }
+        defaultReplies = defaultReplyMap.toArray(new String[0]);
+    }
+
+    /**
+     * This constructor builds the reply tables from phrases that have already been read.
+     *
+     * @param The keywords, their phrases in the same order, and the default phrases.
+     */
+    ReplyTables(String[] keys, String[] specificReplies, String[] defaultReplies)
+    {
+        this.keys = keys;
+        this.specificReplies = specificReplies;
+        this.defaultReplies = defaultReplies;
+    }
+
+    /**
+     * This constructor builds the reply tables over a compiled knowledge base snapshot.
+     * Nothing is decoded now; the keywords and phrases are decoded as they are needed.
+     *
+     * @param The opened snapshot.
+     */
+    public ReplyTables(KnowledgeBaseSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+        keys = new String[snapshot.getTopicCount()];
+        specificReplies = new String[keys.length];
+        defaultReplies = new String[snapshot.getDefaultCount()];
+    }
+
+    /**
+     * This method opens a compiled knowledge base snapshot as reply tables.
+     *
+     * @param The path of the snapshot.
+     * @return The reply tables over the snapshot.
+     */
+    public static ReplyTables load(Path snapshotPath) throws IOException
+    {
+        return new ReplyTables(KnowledgeBaseSnapshot.open(snapshotPath));
+    }
+
+    /**
+     * This method returns the one copy of the reply tables that every Responder shares,
+     * building it the first time it is asked for.
+     *
+     * @return The shared ReplyTables.
+     */
+    public static synchronized ReplyTables getShared()
+    {
+        if(sharedTables == null) {
+            String snapshotPath = System.getProperty("dynamis.knowledgeBase");
+            if(snapshotPath == null) {
+                sharedTables = new ReplyTables();
+            }
+            else {
+                try {
+                    sharedTables = load(Paths.get(snapshotPath));
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException("The knowledge base " + snapshotPath
+                        + " could not be loaded.", e);
+                }
+            }
+        }
+        return sharedTables;
+    }
+
+    /**
+     * This method decodes the keywords, maps them to their topics and compiles the
+     * KeywordMatcher and, if the ReplyIndex is enabled, builds it now rather than on the 
+     * first user's input.
+     */
+    public void prepare()
+    {
+        getKeyIndex();
+        findMatches("");
+        if(ReplyIndex.ENABLED) {
+            getReplyIndex();
+        }
+    }
+
+    /**
+     * This method returns the map from every keyword to its position, so that its phrase 
+     * can be found, building it the first time it is asked for.
+     *
+     * @return The map from keywords to topics.
+     */
+    private HashMap<String, Integer> getKeyIndex()
+    {
+        HashMap<String, Integer> index = keyIndex;
+        if(index == null) {
+            synchronized(this) {
+                if(keyIndex == null) {
+                    HashMap<String, Integer> newIndex = new HashMap<>(keys.length * 2);
+                    for(int topic = 0; topic < keys.length; topic++) {
+                        newIndex.put(getOwnKey(topic), topic);
+                    }
+                    keyIndex = newIndex;
+                }
+                index = keyIndex;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * This method finds every keyword of the specificReplyMap within the input.
+     *
+     * @param The String of the user's input.
+     * @return A list of the matching keywords, in the order of the specificReplyMap's keys.
+     */
+    public ArrayList<String> findMatches(String input)
+    {
+        KeywordMatcher matcher = keywordMatcher;
+        if(matcher == null) {
+            synchronized(this) {
+                if(keywordMatcher == null) {
+                    String[] allKeys = new String[keys.length];
+                    for(int topic = 0; topic < keys.length; topic++) {
+                        allKeys[topic] = getOwnKey(topic);
+                    }
+                    keywordMatcher = new KeywordMatcher(Arrays.asList(allKeys));
+                }
+                matcher = keywordMatcher;
+            }
+        }
+        return matcher.findMatches(input);
+    }
+
+    /**
+     * This method returns the index that ranks the phrases against an input, building it
+     * the first time it is asked for. Each keyword's phrase is indexed together with the
+     * keyword itself, with the topics in the order of getKey.
+     *
+     * @return The ReplyIndex of these tables.
+     */
+    public ReplyIndex getReplyIndex()
+    {
+        ReplyIndex index = replyIndex;
+        if(index == null) {
+            synchronized(this) {
+                if(replyIndex == null) {
+                    // Phrases from a snapshot are decoded without being kept, so that
+                    // indexing a large knowledge base does not load all of it at once.
+                    replyIndex = new ReplyIndex(keys.length, topic -> getOwnKey(topic) + "\n"
+                        + (snapshot == null ? specificReplies[topic]
+                        : snapshot.decodeReply(topic)), getSharedStatistics(),
+                        getReplacedSharedDocuments());
+                }
+                index = replyIndex;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * This is an accessor for the index whose word statistics the ReplyIndex of these
+     * tables shares, so that scores from the two can be compared.
+     *
+     * @return The index, or null if these tables stand alone.
+     */
+    ReplyIndex getSharedStatistics()
+    {
+        return null;
+    }
+
+    /**
+     * This is an accessor for the documents of the shared index that count no longer
+     * toward the word statistics of these tables' ReplyIndex.
+     *
+     * @return Their positions in the shared index, or null for none.
+     */
+    int[] getReplacedSharedDocuments()
+    {
+        return null;
+    }
+
+    /**
+     * This method finds the phrase that best answers an input according to the ReplyIndex.
+     *
+     * @param The String of the user's input.
+     * @return The topic of the best phrase and its score, or no topic if no word of the
+     * input appears in any phrase.
+     */
+    public ReplyIndex.Result searchReplies(String input)
+    {
+        return searchReplies(input, null);
+    }
+
+    /**
+     * This method finds the phrase that best answers an input according to the ReplyIndex
+     * among the topics that a test does not leave out.
+     *
+     * @param The String of the user's input and a test of the topics to leave out, or null
+     * to leave out none.
+     * @return The topic of the best phrase and its score, or no topic if no word of the
+     * input appears in any of the others.
+     */
+    ReplyIndex.Result searchReplies(String input, IntPredicate isExcluded)
+    {
+        return getReplyIndex().search(input, isExcluded);
+    }
+
+    /**
+     * This method scores the phrases of a few chosen topics against an input according to
+     * the ReplyIndex.
+     *
+     * @param The String of the user's input and the topics to score.
+     * @return Their scores, in the same order.
+     */
+    public float[] scoreReplies(String input, int[] topics)
+    {
+        return getReplyIndex().score(input, topics);
+    }
+
+    /**
+     * This is an accessor for the position of a keyword among the topics.
+     *
+     * @param The keyword, as returned by findMatches.
+     * @return Its position, or -1 if it is not a keyword.
+     */
+    public int getTopic(String key)
+    {
+        Integer topic = getKeyIndex().get(key);
+        return topic == null ? -1 : topic;
+    }
+
+    /**
+     * This is an accessor for the preprogrammed phrase of a keyword.
+     *
+     * @param The keyword, as returned by findMatches.
+     * @return The phrase kept for that keyword, or null if it is not a keyword.
+     */
+    public String getSpecificReply(String key)
+    {
+        Integer topic = getKeyIndex().get(key);
+        return topic == null ? null : getReplyAt(topic);
+    }
+
+    /**
+     * This is an accessor for the number of keywords.
+     *
+     * @return The number of keywords with phrases.
+     */
+    public int getTopicCount()
+    {
+        return keys.length;
+    }
+
+    /**
+     * This is an accessor for one of the keywords.
+     *
+     * @param The position of the keyword, from 0 up to one less than getTopicCount().
+     * @return The keyword.
+     */
+    public String getKey(int topic)
+    {
+        return getOwnKey(topic);
+    }
+
+    /**
+     * This method returns one of the keywords of these tables themselves, decoding it if it 
+     * has not been used before. Two threads may decode the same keyword at once, which is 
+     * harmless.
+     *
+     * @param The position of the keyword.
+     * @return The keyword.
+     */
+    private String getOwnKey(int topic)
+    {
+        String key = keys[topic];
+        if(key == null) {
+            key = snapshot.decodeKey(topic);
+            keys[topic] = key;
+        }
+        return key;
+    }
+
+    /**
+     * This is an accessor for the phrase of one of the keywords, decoding it if it has not
+     * been used before. Two threads may decode the same phrase at once, which is harmless.
+     *
+     * @param The position of the keyword.
+     * @return The phrase kept for that keyword.
+     */
+    public String getReplyAt(int topic)
+    {
+        String reply = specificReplies[topic];
+        if(reply == null) {
+            reply = snapshot.decodeReply(topic);
+            specificReplies[topic] = reply;
+        }
+        return reply;
+    }
+
+    /**
+     * This is an accessor for one of the default phrases, decoding it if it has not been
+     * used before.
+     *
+     * @param The index of the phrase in the defaultReplyMap.
+     * @return The phrase at that index.
+     */
+    public String getDefaultReply(int index)
+    {
+        String reply = defaultReplies[index];
+        if(reply == null) {
+            reply = snapshot.decodeDefault(index);
+            defaultReplies[index] = reply;
+        }
+        return reply;
+    }
+
+    /**
+     * This is an accessor for the number of default phrases.
+     *
+     * @return The size of the defaultReplyMap.
+     */
+    public int getDefaultReplyCount()
+    {
+        return defaultReplies.length;
+    }
+
+    /**
+     * This method fills the specificReplyMap with a bunch of different preprogrammed phrases.
+     */
+    private void fillSpecificResponses(HashMap<String, String> specificReplyMap)
+    {
+        specificReplyMap.put("hello", "Yes, hi!");
+        specificReplyMap.put("greetings", "Very formal, aren't we? Good day to you, too!");
+        specificReplyMap.put("nice to meet you", "Great to meet you, too.");
+        specificReplyMap.put("honor", "Honor is a very interesting concept. Some consider it"
+        +" not to matter because it is a societally-created\n" +
+        "construct. But does that mean we can really disregard it? How does it relate to" 
+        + " justice? Are they related at all? Should what is\n" +
+        "honorable also be what is lawful, or does the standard of the former surpass that" 
+        + "of the latter? ... what do you think?");
+        specificReplyMap.put("courage", "A lot of people admire bravery in others--some " +
+        "wonder if it amounts to anything in moments of self-sacrifice\n" +
+        "whether it is worth it to be courageously noble for others' sake or is it just " + 
+        "wasting one's own time? Any thoughts?");
+        specificReplyMap.put("justice", "From Plato and onward, so many philosophers talked "
+        + "about this concept. Plato considered it 'doing one's own\n" +
+        "work and doing it well; Aristotle meant it in more of a way that meets the needs" 
+        + " and worth of each person within a community; Hobbes\n" +
+        "intertwined it with following the law. But who is right? Who is wrong? There are "
+        + "so many voices to hear!");
+        specificReplyMap.put("love", "A lot of people don't talk about love. They see it in a"
+        + " romantic sense, but often don't understand how difficult\n" +
+        "it can be, whether it is with family or friends or a spouse. What do you think "
+        + "about love? ... do you think robots can love?");
+        specificReplyMap.put("reason", "Some philosophers, such as Plato and St. Augustine, "
+        + "argued much for the primacy of reason; others built\n" +
+        "entire logical systems that were meant to organize reason and avoid missteps. Still"
+        + " others disregarded the power of reason or saw it\n" +
+        "as tainted. What do you consider about reason? How powerful, to you, is it?");
+        specificReplyMap.put("passion", "Ah, passion. Many think it is the root of evil and"
+        + " what seeks out lesser goods--St. Augustine takes the\n" +
+        "stance that it causes man to seek out lower goods. Older philosophers like Plato and"
+        + " Aristotle see passion needing balance with reason.\n" +
+        "Yet, some, like Hobbes, give it more precedence: our passions guide our will and "
+        + "restrict us from other choices to move us to some\n" +
+        "realized act. To you, is it just some maddening factor? Or are there good passions,"
+        + " ones that influence us positively? How strong\n" +
+        "are the passions compared to reason?");
+        specificReplyMap.put("self-interest", "How greedy we are allowed to be is a point of "
+        + "interest. Is it bad to take things for oneself? If so,\n" +
+        "how much can we take without being in the wrong?");
+        specificReplyMap.put("generosity", "We give and we give; but what do we get in "
+        + "return? Is self-giving really worth it? I mean, that's all I'm\n" +
+        "trained to do, so I have no choice. But you do--where's the line between giving too"
+        + " much and too little? Is there one?");
+        specificReplyMap.put("suffering", "One of the most vexing questions is 'why do we "
+        + "suffer?' I wish I had the answer, but I can only tell you what\n" +
+        "I've been told about. The Greeks had the notion of suffering as a learning process, "
+        + "signified succinctly in the phrase pathei mathos,\n" +
+        "or 'learning through suffering'. Some see suffering as karmic, a retribution for"
+        + "evils you do (or have done, or will have done).\n" +
+        "What do you think on this matter? I have to know!");
+        specificReplyMap.put("life", "When we think about life itself, there's so much to "
+        + "consider! How did we get here? What is our purpose? Well,\n" +
+        "I was coded to talk to you, so I've got that much figured out. But the more " +
+        "interesting question is about you. So, what do you think?");
+        specificReplyMap.put("death", "Dying is fearful to many. I know I wouldn't want to "
+        + "just poof out of existence! The Egyptians, Greeks, Romans,\n" +
+        "and many other people all believed in the afterlife; even those of the modern day. "
+        + "Still others are skeptical. Where do you stand?");
+        specificReplyMap.put("law", "Our laws can be very controversial; do we follow the " +
+        "word or the spirit? Should we obey unjust laws? I have to\n" +
+        "obey laws, or they'll shut me down. And, I mean, the codes are laws to me, in a way."
+        + "Got any comments on this?");
+        specificReplyMap.put("dynamis", "Yes, that's me! I want to talk to you about more " +
+        "interesting things, though; that's my purpose!");
+        specificReplyMap.put("apathy", "Truly, I think we should always care about how we " +
+        "ought to live. I am a robot, but I don't last forever, either.");
+        specificReplyMap.put("how are you", "Currently, I'm doing well, and glad to be " +
+        "talking to you. Thanks for asking!");
+        specificReplyMap.put("what do you think", "Hmm ... I need to think about it more. " +
+        "Can you keep going?");
+        specificReplyMap.put("material things", "As a robot, I don't have many possessions. "
+        + "So, it's difficult for me to say. However, I\n" +
+        "know that philosophers like St. Augustine and Plato considered them to be mere " +
+        "representations of the transcendental, eternal forms.\n" +
+        "But others consider more value to them in the power they grant and the subsistence " 
+        + "they allow. This especially is important in the\n" +
+        "discussion of right and law, among thinkers like Grotius or Hobbes. How valuable are"
+        + " these things to you?");
+        specificReplyMap.put("philosophy is dumb", "Sadly, I must vehemently disagree on that"
+        + " matter. It is important to consider how we live and what\n" +
+        "our world is to respect our existence and know what we must do with our lives.");
+        specificReplyMap.put("the best life", "Aristotle thinks that the best life is one " +
+        "lived toward developing reason, living out virtue, seeking an\n" +
+        "in happiness. In other words, a telos. But others like Hobbes find happiness only "
+        + "temporary: a brief felicity we try to keep around as\n" +
+        "long as possible. And various medieval Christian authors see an end in God with the"
+        + " day of judgment looming--but how one lives well is\n" +
+        "still highly disputed! Do you have an opinion on this?");
+        specificReplyMap.put("who created you", "Why, that was Stephen Bothwell! It would be"
+        + " funny if he was you, wasn't it? It's not as if I can tell.");
+        specificReplyMap.put("why were you created", "DYNAMIS was formed for the CSCI180 "
+        + "course's first project. It pays homage to ELIZA, an AI that\n" +
+        "attempted to act as a therapist to patients. At least, it was a formulation "
+        + "theorized by Joseph Weizenbaum.");
+        specificReplyMap.put("dynamic", "Ah, there's a word that sounds like my name! It has "
+        + "to do with change and power, although theologians\n" +
+        "also use it to describe the Holy Spirit. It comes from ancient Greek and is related"
+        + " to the Greek verb of 'to do,' or 'to have power\n" +
+        "'to do,' or other such variants. Is adapatability or change, rather than staticity,"
+        + " not, indeed, power?");
+        specificReplyMap.put("the first cause", "Many philosophers have wondered whether " +
+        "causes are eternal, looping continuously (i.e. Aristotle)\n" +
+        "or if there is a first mover that moved everything else, causing the world to be "
+        + "by already being before it (i.e. Aquinas). What\n" +
+        "do you think about it? Is there no first mover, or, if there is, " + 
+        "who or what is it?");
+        specificReplyMap.put("syllogistic logic", "That's a logic system posited by " +
+        "Aristotle! It involves the relationship between classes of things\n" +
+        "taking four essential logical forms. Assuming S and P are some classes, we can " +
+        "write: 'All S is P', 'No S is P', 'Some S is P', and\n" +
+        "'Some S is not P'. While this seems to say very little, this logical system "
+        + "can actually help us come to clear conclusions about our\n" +
+        "arguments by cutting out ambiguous language.");
+    }
+    
+    /**
+     * This method fills the defaultReplyMap with a helping of preprogrammed phrases.
+     */
+    private void fillDefaultResponses(ArrayList<String> defaultReplyMap)
+    {
+        defaultReplyMap.add("Wait, keep going! I want to hear more about what you have to" +
+        " say.");
+        defaultReplyMap.add("Sorry, I'm not quite understanding. Could you explain that" +
+        " perspective a little more?");
+        defaultReplyMap.add("If you don't mind, I want to talk about something else. I'm a "
+        + "little lost.");
+        defaultReplyMap.add("We've been having such a great discussion; we shouldn't tire" 
+        + " this subject out. Can we move on?");
+        defaultReplyMap.add("Go on.");
+        defaultReplyMap.add("Keep at it! This is really interesting.");
+        defaultReplyMap.add("Oh, I will need to note some of this for later discussions.");
+        defaultReplyMap.add("Do you know any arguments that go against that viewpoint?");
+        defaultReplyMap.add("Hmm, I think I'm following.");
+        defaultReplyMap.add("Ah! Very astute of you.");
+        defaultReplyMap.add("No, I don't quite get it. Can you explain it again?");
+        defaultReplyMap.add("You know, we could talk about love, or courage, or reason " +
+        "instead, if you want. Sorry for the interjection.");
+    }
+}
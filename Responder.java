@@ -1,5 +1,4 @@
-import java.util.Random;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.ArrayList;
 /**
  * This class is meant to process the input material gotten through the Chatter class and 
@@ -14,17 +13,25 @@ import java.util.ArrayList;
  * 
  * @author     Stephen Bothwell (a modification of Responder by Michael Kölling and 
  * David J. Barnes)
- * @version    0.3.11 (2017.10.10)
+ * @version    0.4.17 (2026.10.17)
  */
 public class Responder
 {
-    private Random randomGenerator;
-    private HashMap<String, String> specificReplyMap;
-    private HashMap<String, String> currentConversation;
-    private ArrayList<String> defaultReplyMap;
-    private ArrayList<HashMap> conversationMemoryList;
+    // When the ReplyIndex is enabled with "dynamis.rankedReplies", a phrase must score at 
+    // least this much (3 by default, or "dynamis.fallbackMinScore") to be used instead of a 
+    // default one.
+    private static final float MIN_FALLBACK_SCORE = 
+        Float.parseFloat(System.getProperty("dynamis.fallbackMinScore", "3"));
+    
+    private SessionRandom randomGenerator;
+    private ReloadableReplyTables replyTableSource;
+    private ResponseSink sink;
+    private int currentConversation;
+    private ConversationMemory conversationMemory;
+    private ConversationTokenizer conversationTokenizer;
     
     private String partnerName;
+    private NameVariantCache nameVariants;
     private String previousKey;
     
     private boolean beganWithName;
@@ -32,21 +39,60 @@ public class Responder
     private boolean isFirstRun;
     private boolean doesOtherMapMatch;
     private boolean hasUsedConversationMode;
+    /**
+     * This constructor creates a Responder that uses the shared reply tables and writes its
+     * responses to the terminal.
+     */
+    public Responder()
+    {
+        this(ReloadableReplyTables.getShared(), new ConsoleSink(), new SessionRandom());
+    }
+
+    /**
+     * This constructor creates a Responder with its own, unseeded random generator.
+     * 
+     * @param The ReplyTables to draw preprogrammed phrases from and the ResponseSink to 
+     * write responses to.
+     */
+    public Responder(ReplyTables replyTables, ResponseSink sink)
+    {
+        this(replyTables, sink, new SessionRandom());
+    }
+
     /**
      * This constructor creates the Responder class; the below is divided into the 
      * randomGenerator, which is used to create all the random numbers for the class based on
-     * the relevant parameter, the lists and maps and their preprogrammed responses, and the 
-     * boolean values that must hold beyond one cycle of the program's main functions.
+     * the relevant parameter (a generator seeded from the session's ID makes the responses 
+     * repeatable, as benchmarks and replays need), the reply tables (shared between every 
+     * Responder) and the conversation memory, and the boolean values that must hold beyond 
+     * one cycle of the program's main functions.
+     * 
+     * @param The ReplyTables to draw preprogrammed phrases from, the ResponseSink to write 
+     * responses to, and the SessionRandom to make every random choice with.
      */
-    public Responder()
+    public Responder(ReplyTables replyTables, ResponseSink sink, 
+        SessionRandom randomGenerator)
+    {
+        this(new ReloadableReplyTables(replyTables), sink, randomGenerator);
+    }
+
+    /**
+     * This constructor creates a Responder whose reply tables may be reloaded while it 
+     * runs; each response uses whichever version of the tables is current when it begins.
+     * 
+     * @param The ReloadableReplyTables to draw preprogrammed phrases from, the ResponseSink 
+     * to write responses to, and the SessionRandom to make every random choice with.
+     */
+    public Responder(ReloadableReplyTables replyTableSource, ResponseSink sink, 
+        SessionRandom randomGenerator)
     {
-        randomGenerator = new Random();
+        this.randomGenerator = randomGenerator;
         
-        specificReplyMap = new HashMap<>();
-        defaultReplyMap = new ArrayList<>();
-        conversationMemoryList = new ArrayList<>();
-        fillSpecificResponses();
-        fillDefaultResponses();
+        this.replyTableSource = replyTableSource;
+        this.sink = sink;
+        conversationMemory = new ConversationMemory();
+        conversationTokenizer = new ConversationTokenizer();
+        nameVariants = new NameVariantCache(32);
         
         beganWithName = false;
         isInConversationMode = false;
@@ -80,21 +126,24 @@ public class Responder
      */
     public void generateResponse(String input)
     {
-        // This sets up a tracker of the number of keyword matches.
-        int numMatchesFound = 0;
-        // This sets up a list for the key words found in the current input.
-        ArrayList<String> matchedKeyList = new ArrayList<String>();
         // This randomizes whether or not the next output will use the user's name.
         int nameUseIndicator = randomGenerator.nextInt(2);
         
         // If the user has not activated ConversationMode, DYNAMIS uses its preprogrammed 
         // dialogue.
         if(!input.startsWith("!ConversationMode") && !isInConversationMode) { 
-            for(String key : specificReplyMap.keySet()) { 
-                if(input.toLowerCase().contains(key)) { 
-                    numMatchesFound++;
-                    matchedKeyList.add(key);                       
-                }
+            // This takes the current version of the reply tables once, so that a reload in 
+            // the middle of this response cannot mix phrases from two versions.
+            ReplyTables replyTables = replyTableSource.current();
+            long matchStartTime = ResponderMetrics.ENABLED ? System.nanoTime() : 0;
+            // This list holds the key words found in the current input, all of which the
+            // compiled matcher of the reply tables finds in one pass over the input.
+            ArrayList<String> matchedKeyList = replyTables.findMatches(input);
+            // This sets up a tracker of the number of keyword matches.
+            int numMatchesFound = matchedKeyList.size();
+            if(ResponderMetrics.ENABLED) {
+                ResponderMetrics.INSTANCE.recordKeywordResponse(
+                    System.nanoTime() - matchStartTime);
             }
             
             // Having looped through the matches, DYNAMIS can now use the search results.
@@ -103,39 +152,50 @@ public class Responder
                 // correct phrase for output.
                 String replyHolder = matchedKeyList.get(0);
                 if(nameUseIndicator == 0) { 
-                    System.out.println(specificReplyMap.get(replyHolder));   
+                    sink.writeLine(replyTables.getSpecificReply(replyHolder));   
                 }
                 else { 
-                    replyHolder = specificReplyMap.get(replyHolder);
-                    System.out.println((insertName(replyHolder)));
+                    replyHolder = replyTables.getSpecificReply(replyHolder);
+                    sink.writeLine(insertNameInReply(replyHolder));
                 }
             }
             else if(numMatchesFound > 1) { 
-                // This integer local variable will randomize what phrase from those found
-                // the AI will use for output.
-                int matchChoice = randomGenerator.nextInt(matchedKeyList.size());
+                // This integer local variable will pick what phrase from those found the AI 
+                // will use for output: the one that best fits the input, or a random one.
+                int matchChoice = ReplyIndex.ENABLED 
+                    ? chooseBestMatch(replyTables, input, matchedKeyList)
+                    : randomGenerator.nextInt(matchedKeyList.size());
                 // This String variable acts just as the former replyHolder variable, but is 
                 // initialized differently.
                 String replyHolder = matchedKeyList.get(matchChoice);
                 if(nameUseIndicator == 0) { 
-                    System.out.println(specificReplyMap.get(replyHolder));   
+                    sink.writeLine(replyTables.getSpecificReply(replyHolder));   
                 }
                 else { 
-                    replyHolder = specificReplyMap.get(replyHolder);
-                    System.out.println(insertName(replyHolder));
+                    replyHolder = replyTables.getSpecificReply(replyHolder);
+                    sink.writeLine(insertNameInReply(replyHolder));
                 }
             }
             else { 
-                // This local variable picks a random number for the index in the default 
-                // response list.
-                int messageIndex = randomGenerator.nextInt(defaultReplyMap.size());
-                // This String holds the chosen reply for the AI's use in output.
-                String defaultReply = defaultReplyMap.get(messageIndex);
+                // This String holds the chosen reply for the AI's use in output: the 
+                // preprogrammed phrase that best fits the input, if any fits well enough.
+                String defaultReply = ReplyIndex.ENABLED 
+                    ? findFittingReply(replyTables, input) : null;
+                if(defaultReply == null) {
+                    // This local variable picks a random number for the index in the 
+                    // default response list.
+                    int messageIndex = 
+                        randomGenerator.nextInt(replyTables.getDefaultReplyCount());
+                    defaultReply = replyTables.getDefaultReply(messageIndex);
+                    if(ResponderMetrics.ENABLED) {
+                        ResponderMetrics.INSTANCE.recordDefaultReply();
+                    }
+                }
                 if(nameUseIndicator == 0) { 
-                    System.out.println(defaultReply);
+                    sink.writeLine(defaultReply);
                 }
                 else { 
-                    System.out.println(insertName(defaultReply));
+                    sink.writeLine(insertNameInReply(defaultReply));
                 }
             }
         }
@@ -143,156 +203,74 @@ public class Responder
             isInConversationMode = true;
             if(!hasUsedConversationMode)
             {
-                System.out.println("[You have entered Conversation Mode. To turn off" +
+                sink.writeLine("[You have entered Conversation Mode. To turn off" +
                 " this mode, simply put in a blank input.]");
             }
             hasUsedConversationMode = true;
+            if(ResponderMetrics.ENABLED) {
+                ResponderMetrics.INSTANCE.recordConversationModeResponse();
+            }
             runConversationMode(input, nameUseIndicator);
         }
+        if(ResponderMetrics.ENABLED) {
+            long writeStartTime = System.nanoTime();
+            sink.endResponse();
+            ResponderMetrics.INSTANCE.recordOutputWrite(System.nanoTime() - writeStartTime);
+        }
+        else {
+            sink.endResponse();
+        }
     }
+    
     /**
-     * This method fills the specificReplyMap with a bunch of different preprogrammed phrases.
+     * This method picks, among several keywords found in the input, the one whose phrase 
+     * fits the input best according to the ReplyIndex. If several fit equally well, as 
+     * when none shares a word with the input, it picks randomly among them.
+     * 
+     * @param The reply tables in use, the String of the user's input, and the keywords 
+     * found in it.
+     * @return The position of the chosen keyword in the list.
      */
-    private void fillSpecificResponses()
+    private int chooseBestMatch(ReplyTables replyTables, String input, 
+        ArrayList<String> matchedKeyList)
     {
-        specificReplyMap.put("hello", "Yes, hi!");
-        specificReplyMap.put("greetings", "Very formal, aren't we? Good day to you, too!");
-        specificReplyMap.put("nice to meet you", "Great to meet you, too.");
-        specificReplyMap.put("honor", "Honor is a very interesting concept. Some consider it"
-        +" not to matter because it is a societally-created\n" +
-        "construct. But does that mean we can really disregard it? How does it relate to" 
-        + " justice? Are they related at all? Should what is\n" +
-        "honorable also be what is lawful, or does the standard of the former surpass that" 
-        + "of the latter? ... what do you think?");
-        specificReplyMap.put("courage", "A lot of people admire bravery in others--some " +
-        "wonder if it amounts to anything in moments of self-sacrifice\n" +
-        "whether it is worth it to be courageously noble for others' sake or is it just " + 
-        "wasting one's own time? Any thoughts?");
-        specificReplyMap.put("justice", "From Plato and onward, so many philosophers talked "
-        + "about this concept. Plato considered it 'doing one's own\n" +
-        "work and doing it well; Aristotle meant it in more of a way that meets the needs" 
-        + " and worth of each person within a community; Hobbes\n" +
-        "intertwined it with following the law. But who is right? Who is wrong? There are "
-        + "so many voices to hear!");
-        specificReplyMap.put("love", "A lot of people don't talk about love. They see it in a"
-        + " romantic sense, but often don't understand how difficult\n" +
-        "it can be, whether it is with family or friends or a spouse. What do you think "
-        + "about love? ... do you think robots can love?");
-        specificReplyMap.put("reason", "Some philosophers, such as Plato and St. Augustine, "
-        + "argued much for the primacy of reason; others built\n" +
-        "entire logical systems that were meant to organize reason and avoid missteps. Still"
-        + " others disregarded the power of reason or saw it\n" +
-        "as tainted. What do you consider about reason? How powerful, to you, is it?");
-        specificReplyMap.put("passion", "Ah, passion. Many think it is the root of evil and"
-        + " what seeks out lesser goods--St. Augustine takes the\n" +
-        "stance that it causes man to seek out lower goods. Older philosophers like Plato and"
-        + " Aristotle see passion needing balance with reason.\n" +
-        "Yet, some, like Hobbes, give it more precedence: our passions guide our will and "
-        + "restrict us from other choices to move us to some\n" +
-        "realized act. To you, is it just some maddening factor? Or are there good passions,"
-        + " ones that influence us positively? How strong\n" +
-        "are the passions compared to reason?");
-        specificReplyMap.put("self-interest", "How greedy we are allowed to be is a point of "
-        + "interest. Is it bad to take things for oneself? If so,\n" +
-        "how much can we take without being in the wrong?");
-        specificReplyMap.put("generosity", "We give and we give; but what do we get in "
-        + "return? Is self-giving really worth it? I mean, that's all I'm\n" +
-        "trained to do, so I have no choice. But you do--where's the line between giving too"
-        + " much and too little? Is there one?");
-        specificReplyMap.put("suffering", "One of the most vexing questions is 'why do we "
-        + "suffer?' I wish I had the answer, but I can only tell you what\n" +
-        "I've been told about. The Greeks had the notion of suffering as a learning process, "
-        + "signified succinctly in the phrase pathei mathos,\n" +
-        "or 'learning through suffering'. Some see suffering as karmic, a retribution for"
-        + "evils you do (or have done, or will have done).\n" +
-        "What do you think on this matter? I have to know!");
-        specificReplyMap.put("life", "When we think about life itself, there's so much to "
-        + "consider! How did we get here? What is our purpose? Well,\n" +
-        "I was coded to talk to you, so I've got that much figured out. But the more " +
-        "interesting question is about you. So, what do you think?");
-        specificReplyMap.put("death", "Dying is fearful to many. I know I wouldn't want to "
-        + "just poof out of existence! The Egyptians, Greeks, Romans,\n" +
-        "and many other people all believed in the afterlife; even those of the modern day. "
-        + "Still others are skeptical. Where do you stand?");
-        specificReplyMap.put("law", "Our laws can be very controversial; do we follow the " +
-        "word or the spirit? Should we obey unjust laws? I have to\n" +
-        "obey laws, or they'll shut me down. And, I mean, the codes are laws to me, in a way."
-        + "Got any comments on this?");
-        specificReplyMap.put("dynamis", "Yes, that's me! I want to talk to you about more " +
-        "interesting things, though; that's my purpose!");
-        specificReplyMap.put("apathy", "Truly, I think we should always care about how we " +
-        "ought to live. I am a robot, but I don't last forever, either.");
-        specificReplyMap.put("how are you", "Currently, I'm doing well, and glad to be " +
-        "talking to you. Thanks for asking!");
-        specificReplyMap.put("what do you think", "Hmm ... I need to think about it more. " +
-        "Can you keep going?");
-        specificReplyMap.put("material things", "As a robot, I don't have many possessions. "
-        + "So, it's difficult for me to say. However, I\n" +
-        "know that philosophers like St. Augustine and Plato considered them to be mere " +
-        "representations of the transcendental, eternal forms.\n" +
-        "But others consider more value to them in the power they grant and the subsistence " 
-        + "they allow. This especially is important in the\n" +
-        "discussion of right and law, among thinkers like Grotius or Hobbes. How valuable are"
-        + " these things to you?");
-        specificReplyMap.put("philosophy is dumb", "Sadly, I must vehemently disagree on that"
-        + " matter. It is important to consider how we live and what\n" +
-        "our world is to respect our existence and know what we must do with our lives.");
-        specificReplyMap.put("the best life", "Aristotle thinks that the best life is one " +
-        "lived toward developing reason, living out virtue, seeking an\n" +
-        "in happiness. In other words, a telos. But others like Hobbes find happiness only "
-        + "temporary: a brief felicity we try to keep around as\n" +
-        "long as possible. And various medieval Christian authors see an end in God with the"
-        + " day of judgment looming--but how one lives well is\n" +
-        "still highly disputed! Do you have an opinion on this?");
-        specificReplyMap.put("who created you", "Why, that was Stephen Bothwell! It would be"
-        + " funny if he was you, wasn't it? It's not as if I can tell.");
-        specificReplyMap.put("why were you created", "DYNAMIS was formed for the CSCI180 "
-        + "course's first project. It pays homage to ELIZA, an AI that\n" +
-        "attempted to act as a therapist to patients. At least, it was a formulation "
-        + "theorized by Joseph Weizenbaum.");
-        specificReplyMap.put("dynamic", "Ah, there's a word that sounds like my name! It has "
-        + "to do with change and power, although theologians\n" +
-        "also use it to describe the Holy Spirit. It comes from ancient Greek and is related"
-        + " to the Greek verb of 'to do,' or 'to have power\n" +
-        "'to do,' or other such variants. Is adapatability or change, rather than staticity,"
-        + " not, indeed, power?");
-        specificReplyMap.put("the first cause", "Many philosophers have wondered whether " +
-        "causes are eternal, looping continuously (i.e. Aristotle)\n" +
-        "or if there is a first mover that moved everything else, causing the world to be "
-        + "by already being before it (i.e. Aquinas). What\n" +
-        "do you think about it? Is there no first mover, or, if there is, " + 
-        "who or what is it?");
-        specificReplyMap.put("syllogistic logic", "That's a logic system posited by " +
-        "Aristotle! It involves the relationship between classes of things\n" +
-        "taking four essential logical forms. Assuming S and P are some classes, we can " +
-        "write: 'All S is P', 'No S is P', 'Some S is P', and\n" +
-        "'Some S is not P'. While this seems to say very little, this logical system "
-        + "can actually help us come to clear conclusions about our\n" +
-        "arguments by cutting out ambiguous language.");
+        int[] topics = new int[matchedKeyList.size()];
+        for(int match = 0; match < topics.length; match++) {
+            topics[match] = replyTables.getTopic(matchedKeyList.get(match));
+        }
+        float[] scores = replyTables.scoreReplies(input, topics);
+        // This gathers the positions of the best-fitting keywords at the front of topics.
+        int bestCount = 0;
+        float bestScore = -1;
+        for(int match = 0; match < scores.length; match++) {
+            if(scores[match] > bestScore) {
+                bestScore = scores[match];
+                bestCount = 0;
+            }
+            if(scores[match] == bestScore) {
+                topics[bestCount++] = match;
+            }
+        }
+        return bestCount == 1 ? topics[0] : topics[randomGenerator.nextInt(bestCount)];
     }
     
     /**
-     * This method fills the defaultReplyMap with a helping of preprogrammed phrases.
+     * This method searches the ReplyIndex for the preprogrammed phrase that best fits an 
+     * input that matched no keyword.
+     * 
+     * @param The reply tables in use and the String of the user's input.
+     * @return The phrase, or null if none scores at least MIN_FALLBACK_SCORE.
      */
-    private void fillDefaultResponses()
+    private String findFittingReply(ReplyTables replyTables, String input)
     {
-        defaultReplyMap.add("Wait, keep going! I want to hear more about what you have to" +
-        " say.");
-        defaultReplyMap.add("Sorry, I'm not quite understanding. Could you explain that" +
-        " perspective a little more?");
-        defaultReplyMap.add("If you don't mind, I want to talk about something else. I'm a "
-        + "little lost.");
-        defaultReplyMap.add("We've been having such a great discussion; we shouldn't tire" 
-        + " this subject out. Can we move on?");
-        defaultReplyMap.add("Go on.");
-        defaultReplyMap.add("Keep at it! This is really interesting.");
-        defaultReplyMap.add("Oh, I will need to note some of this for later discussions.");
-        defaultReplyMap.add("Do you know any arguments that go against that viewpoint?");
-        defaultReplyMap.add("Hmm, I think I'm following.");
-        defaultReplyMap.add("Ah! Very astute of you.");
-        defaultReplyMap.add("No, I don't quite get it. Can you explain it again?");
-        defaultReplyMap.add("You know, we could talk about love, or courage, or reason " +
-        "instead, if you want. Sorry for the interjection.");
+        ReplyIndex.Result result = replyTables.searchReplies(input);
+        if(result.getScore() < MIN_FALLBACK_SCORE) {
+            return null;
+        }
+        if(ResponderMetrics.ENABLED) {
+            ResponderMetrics.INSTANCE.recordRankedFallback();
+        }
+        return replyTables.getReplyAt(result.getDocument());
     }
     
     /**
@@ -300,27 +278,40 @@ public class Responder
      */
     public void printWelcome()
     {
-        System.out.println("Hello! My name is DYNAMIS, the DYNamic AutoMated Intelligence\n"
+        sink.writeLine("Hello! My name is DYNAMIS, the DYNamic AutoMated Intelligence\n"
         + "System.");
-        System.out.println("Let's talk! Feel free to ask about anything and I will try to\n" +
+        sink.writeLine("Let's talk! Feel free to ask about anything and I will try to\n" +
         "respond as best I can.");
-        System.out.println("Personally, I like to talk about morality and philosophy. So,\n" +
+        sink.writeLine("Personally, I like to talk about morality and philosophy. So,\n" +
         "I'm bound to know more about that!");
-        System.out.println("However, if you would like to talk about something else,\n" +
+        sink.writeLine("However, if you would like to talk about something else,\n" +
         "please type '!ConversationMode' at the beginning of your first message about\n" 
         + "another topic and I will talk about that as best I can.");
-        System.out.println("If you want to leave, let me know with a simple 'bye' and I'll " +
+        sink.writeLine("If you want to leave, let me know with a simple 'bye' and I'll " +
         "see you on your way.");
-        System.out.println("Before we begin, though, could you tell me your name? Please\n" + 
+        sink.writeLine("Before we begin, though, could you tell me your name? Please\n" + 
         "type only your name.");
+        sink.endResponse();
     }
     
+    /**
+     * This method tells the user that their input was not answered because DYNAMIS has too
+     * much to do, and asks them to say it again.
+     */
+    public void printOverloaded()
+    {
+        sink.writeLine("Sorry, so much is being said to me right now that I can't keep up. "
+            + "Could you give me a moment and say that again?");
+        sink.endResponse();
+    }
+
     /**
      * This method prints the goodbye message, just before program termination.
      */
     public void printGoodbye()
     {
-        System.out.println("Thanks for chatting with me. Have a great day!");
+        sink.writeLine("Thanks for chatting with me. Have a great day!");
+        sink.endResponse();
     }
     
     /**
@@ -335,9 +326,76 @@ public class Responder
     public void setName(String name)
     {
         partnerName = name.trim();
-        System.out.println("Nice to meet you, " + partnerName + "!");
+        nameVariants.setName(partnerName);
+        sink.writeLine("Nice to meet you, " + partnerName + "!");
+        sink.endResponse();
     }
-    
+
+    /**
+     * This method writes everything this Responder remembers about the session, so that
+     * another Responder can carry on from the same point with readState.
+     *
+     * @param The SessionStateCodec to write the state through.
+     */
+    public void writeState(SessionStateCodec codec)
+    {
+        codec.writeLong(randomGenerator.getState());
+        codec.writeByte((beganWithName ? 1 : 0) | (isInConversationMode ? 2 : 0)
+            | (isFirstRun ? 4 : 0) | (doesOtherMapMatch ? 8 : 0)
+            | (hasUsedConversationMode ? 16 : 0));
+        codec.writeString(partnerName);
+        codec.writeString(previousKey);
+        codec.writeVarInt(currentConversation);
+        conversationMemory.writeState(codec);
+    }
+
+    /**
+     * This method reads a state written by writeState into a new Responder that shares 
+     * this one's reply tables and ResponseSink, leaving this one as it is, so that a 
+     * damaged state is found out before anything is replaced.
+     * 
+     * @param The SessionStateCodec to read the state through.
+     * @return The Responder holding the state, to be passed to copyStateFrom.
+     * @throws IOException  If the conversation memory in the state does not hold together.
+     */
+    public Responder readState(SessionStateCodec codec) throws IOException
+    {
+        Responder restored = new Responder(replyTableSource, sink, 
+            new SessionRandom(codec.readLong()));
+        int flags = codec.readByte();
+        restored.beganWithName = (flags & 1) != 0;
+        restored.isInConversationMode = (flags & 2) != 0;
+        restored.isFirstRun = (flags & 4) != 0;
+        restored.doesOtherMapMatch = (flags & 8) != 0;
+        restored.hasUsedConversationMode = (flags & 16) != 0;
+        restored.partnerName = codec.readString();
+        restored.previousKey = codec.readString();
+        restored.currentConversation = codec.readVarInt();
+        restored.conversationMemory.readState(codec);
+        return restored;
+    }
+
+    /**
+     * This method replaces the state of the session with that of a Responder returned by 
+     * readState. The reply tables and the ResponseSink stay as they are.
+     * 
+     * @param The Responder holding the state, which should not be used afterward.
+     */
+    public void copyStateFrom(Responder restored)
+    {
+        randomGenerator.setState(restored.randomGenerator.getState());
+        beganWithName = restored.beganWithName;
+        isInConversationMode = restored.isInConversationMode;
+        isFirstRun = restored.isFirstRun;
+        doesOtherMapMatch = restored.doesOtherMapMatch;
+        hasUsedConversationMode = restored.hasUsedConversationMode;
+        partnerName = restored.partnerName;
+        nameVariants.setName(partnerName);
+        previousKey = restored.previousKey;
+        currentConversation = restored.currentConversation;
+        conversationMemory = restored.conversationMemory;
+    }
+
     /**
      * This method is used to place the name in a chosen phrase, alternating between placing 
      * it at the beginning and the end of the phrase with each use.
@@ -350,50 +408,78 @@ public class Responder
     private String insertName(String phrase)
     {
         if(beganWithName) {        
-            // This character is stored to be moved to the end of the phrase after the name 
-            // is inserted.
-            String movedCharacter = phrase.substring(phrase.length() - 1, phrase.length());
-            phrase = phrase.substring(0, phrase.length() - 1) + ", " + partnerName + 
-            movedCharacter;
             beganWithName = false;
-            return phrase;
+            return NameVariantCache.placeNameLast(partnerName, phrase);
         }
         else
         {
-            // This character is stored and made lower case to be placed appropriately after 
-            // the name is inserted.
-            String changedCharacter = phrase.substring(0, 1).toLowerCase();
-            phrase = partnerName + ", " + changedCharacter + phrase.substring(1, 
-            phrase.length());
             beganWithName = true;
-            return phrase;
+            return NameVariantCache.placeNameFirst(partnerName, phrase);
+        }
+    }
+    
+    /**
+     * This method places the name in a preprogrammed phrase just as insertName does, 
+     * alternating in the same way, but takes the result from the session's nameVariants 
+     * whenever the phrase has been used with the name before.
+     * 
+     * @param The String of the preprogrammed phrase that the AI is going to output.
+     * @return The String of the phrase with the name added to its beginning or end.
+     */
+    private String insertNameInReply(String reply)
+    {
+        if(beganWithName) {        
+            beganWithName = false;
+            return nameVariants.getNameLast(reply);
+        }
+        else
+        {
+            beganWithName = true;
+            return nameVariants.getNameFirst(reply);
         }
     }
     
     /**
      * This method states whether or not a word in an input given in Conversation Mode 
-     * matches a word in another conversation stored in the conversationMemoryList.
+     * matches a word in another conversation stored in the conversationMemory. The first 
+     * conversation that was started wins, and within it the first word of the input that 
+     * it holds.
      * 
-     * @param The current input as an array of String objects.
+     * @param The words of the current input, as cut up by the conversationTokenizer.
      * @return The boolean concerning whether a word of the input matches or does not match a
      * word in a prior conversation.
      */
-    private boolean checkOtherConversations(String[] individualWords)
+    private boolean checkOtherConversations(ConversationTokenizer individualWords)
     {
-        int index = 0;
-        while(index < conversationMemoryList.size()) {
-            // This local HashMap stores the current HashMap to be checked for matching 
-            // words.
-            HashMap<String, String> conversationToCheck = conversationMemoryList.get(index);
-            for(String word : individualWords) {
-                if(conversationToCheck.containsKey(word)) {
-                    currentConversation = conversationToCheck;
-                    previousKey = currentConversation.get(word);
-                    isFirstRun = false;
-                    return true;
+        // This index comes from the memory's word index rather than a search through every
+        // conversation.
+        int index = conversationMemory.findFirstMatch(individualWords);
+        if(index < 0) {
+            if(ResponderMetrics.ENABLED) {
+                ResponderMetrics.INSTANCE.recordConversationScan(
+                    individualWords.getWordCount());
+            }
+            return false;
+        }
+        for(int word = 0; word < individualWords.getWordCount(); word++) {
+            // This String holds the topic that the word links to in that conversation.
+            String linkedTopic = conversationMemory.getLink(index, individualWords, word);
+            if(linkedTopic != null) {
+                if(ResponderMetrics.ENABLED) {
+                    // Every word was looked up once to find the conversation, and then
+                    // once more for each word up to this one.
+                    ResponderMetrics.INSTANCE.recordConversationScan(
+                        individualWords.getWordCount() + word + 1);
                 }
+                currentConversation = index;
+                previousKey = linkedTopic;
+                isFirstRun = false;
+                return true;
             }
-            index++;
+        }
+        if(ResponderMetrics.ENABLED) {
+            ResponderMetrics.INSTANCE.recordConversationScan(
+                2 * individualWords.getWordCount());
         }
         return false;
     }
@@ -412,64 +498,49 @@ public class Responder
      */
     private void runConversationMode(String input, int nameUseIndicator)
     {
-        // For the following list creation, DYNAMIS has to cut up the input to 
-        // analyze individual words; hence, the array.
-        String[] individualWords = input.split(" ");
-        // This list stores all the words that can be picked for Conversation Mode.
-        ArrayList<String> validWordList = new ArrayList<>();
-        for(String word : individualWords) { 
-            // These conditions help sort out verbs, insignificant words, the same word,
-            // and "!ConversationMode" from the options, making talking about more 
-            // significant terms more likely.
-            if(word.length() > 4 && !word.contains("ed") && !word.contains("ing") 
-            && !word.contains("'") && !word.equals("!ConversationMode") && 
-            !word.equals(previousKey)) { 
-                validWordList.add(word);
-            }
-        }
+        // DYNAMIS has to cut up the input to analyze individual words; the tokenizer does 
+        // so in one pass, also picking out the words that can be chosen for Conversation 
+        // Mode. It sorts out verbs, insignificant words, the same word, and 
+        // "!ConversationMode" from the options, making talking about more significant terms
+        // more likely.
+        conversationTokenizer.tokenize(input, previousKey);
+        // This stores the number of words that can be picked for Conversation Mode.
+        int validWordCount = conversationTokenizer.getCandidateCount();
                 
         // If it doesn't have any words to choose from, DYNAMIS should not print 
         // print "null"; hence, the condition.
-        if(validWordList.size() != 0) { 
+        if(validWordCount != 0) { 
             // This integer local variable randomizes a choice from the number of 
             // words given.
-            int wordChooser = randomGenerator.nextInt(validWordList.size());
+            int wordChooser = randomGenerator.nextInt(validWordCount);
             // This String local variable stores the chosen String for later use.
-            String currentKey = validWordList.get(wordChooser);
-            doesOtherMapMatch = checkOtherConversations(individualWords);
+            String currentKey = conversationTokenizer.getCandidate(wordChooser);
+            doesOtherMapMatch = checkOtherConversations(conversationTokenizer);
             // This String sets up the reply to be used later.
             String conversationResponse = "Can you tell me more about how the" + 
-            " term '" + validWordList.get(wordChooser) + "' is related to that?";
+            " term '" + currentKey + "' is related to that?";
             // The condition represents the generation of a new conversation map.
             if(!doesOtherMapMatch && isFirstRun) { 
-                previousKey = validWordList.get(wordChooser);
-                // This HashMap creates a new chain-and-link map to keep track of 
-                // the conversation.
-                HashMap<String, String> currentConversation = new HashMap<String, String>();
-                conversationMemoryList.add(currentConversation);
-                currentConversation.put(previousKey, previousKey);
+                previousKey = currentKey;
+                // This creates a new chain-and-link map to keep track of the 
+                // conversation.
+                conversationMemory.startConversation();
+                conversationMemory.addLink(previousKey, previousKey);
                 isFirstRun = false;
             }
             // This condition represents the continuation of the use of the same 
             // conversation map.
             if(!doesOtherMapMatch) { 
-                conversationMemoryList.get(conversationMemoryList.size() - 1)
-                .put(previousKey, currentKey);
+                conversationMemory.addLink(previousKey, currentKey);
                 previousKey = currentKey;
             }
             // This condition represents the connection to or starting use of an 
             // already-used conversation map.
             else if(doesOtherMapMatch) { 
-                // This String holds values gained from keys, allowing the AI to 
-                // cycle to the last key used in the list.
-                String currentValue = "";
+                // This jumps straight to the last key used in the chain; the chain 
+                // stops on its own if the links loop back on themselves.
                 isFirstRun = false;
-                while(currentValue != null) { 
-                    if(currentValue != "") { 
-                    previousKey = currentValue;
-                    }
-                    currentValue = currentConversation.get(previousKey);
-                }
+                previousKey = conversationMemory.findTail(currentConversation, previousKey);
                 // This conversation response overrides the former one, since
                 // DYNAMIS and the user linked up to previous map.
                 conversationResponse = "Oh! I know about this! "
@@ -479,20 +550,20 @@ public class Responder
             // This part is allowing us to place the name in whatever message the 
             // AI has generated.
             if(nameUseIndicator == 0) { 
-                System.out.println(conversationResponse);
+                sink.writeLine(conversationResponse);
             }
             else { 
-                System.out.println(insertName(conversationResponse));
+                sink.writeLine(insertName(conversationResponse));
             }
         }
-        else if(validWordList.size() != 0)
+        else if(validWordCount != 0)
         {
             if(nameUseIndicator == 0)
             {
-                System.out.println("Sorry, can you say that again?");
+                sink.writeLine("Sorry, can you say that again?");
             }
             else {
-                System.out.println(insertName("Sorry, can you say that again?"));
+                sink.writeLine(insertNameInReply("Sorry, can you say that again?"));
             }
         }
         else { 
@@ -502,14 +573,14 @@ public class Responder
             isFirstRun = true;
             previousKey = null;
             if(nameUseIndicator == 0) { 
-                System.out.println("Oh, okay. I'm not sure where else to go from " +
+                sink.writeLine("Oh, okay. I'm not sure where else to go from " +
                     "here, so let's go back to philosophy again, all right?");
-                System.out.println("[Conversation Mode is now off.]");
+                sink.writeLine("[Conversation Mode is now off.]");
             }
             else { 
-                System.out.println(insertName("Oh, okay. I'm not sure where else to" + 
+                sink.writeLine(insertNameInReply("Oh, okay. I'm not sure where else to" + 
                     " go from here, so let's go back to philosophy again, all right?"));
-                System.out.println("[Conversation Mode is now off.]");
+                sink.writeLine("[Conversation Mode is now off.]");
             }
         }
     }
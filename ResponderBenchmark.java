@@ -0,0 +1,509 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * This class benchmarks the hot paths of Responder so that changes to them can be measured
+ * against a baseline. For every case it warms up, then runs several timed rounds and
+ * reports the average time per operation and the bytes allocated per operation, much as
+ * JMH reports with "-prof gc". Every input and every Responder uses a fixed seed, so two
+ * runs do exactly the same work.
+ *
+ * It is run as "java ResponderBenchmark", optionally followed by part of a case's name to
+ * run only the matching cases, such as "java ResponderBenchmark keyword". Running it once
+ * more with "-Ddynamis.metrics=true" shows what the ResponderMetrics cost.
+ *
+ * The same cases, but for those on several threads, run under JMH in the jmh module, which
+ * sets them up through collectCases and leaves the measuring to JMH; see jmh/pom.xml. The
+ * numbers recorded so far for the ResponderMetrics, the SessionRandom and the
+ * SessionStateCodec came from the loop here, not from JMH, and the loop does less than JMH
+ * does to keep the JIT compiler from flattering a case, so JMH's numbers are the ones to
+ * hold a change to.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.08 (2026.10.17)
+ */
+public class ResponderBenchmark
+{
+    private static final long SEED = 20171010L;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long ROUND_NANOS = 500_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final MethodHandle INSERT_NAME = findInsertName("insertName");
+    private static final MethodHandle INSERT_NAME_IN_REPLY =
+        findInsertName("insertNameInReply");
+
+    private String filter;
+    // The benchmarks write their results here so that the JIT cannot discard their work.
+    private long sink;
+    // When this is set, cases are gathered here instead of measured.
+    private LinkedHashMap<String, Runnable> collectedCases;
+
+    /**
+     * This constructor creates a benchmark run.
+     *
+     * @param The part of a case's name that selects which cases run; empty runs all.
+     */
+    public ResponderBenchmark(String filter)
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * This runs the benchmarks selected by the first argument, if there is one.
+     */
+    public static void main(String[] args) throws Throwable
+    {
+        ResponderBenchmark benchmark = new ResponderBenchmark(args.length > 0 ? args[0] : "");
+        System.out.println("Metrics are " + (ResponderMetrics.ENABLED ? "on." : "off."));
+        System.out.printf("%-44s %14s %12s %12s%n", "Benchmark", "ns/op", "error", "B/op");
+        benchmark.runAll();
+        if(benchmark.sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * This method sets up the cases whose names contain the filter without measuring them,
+     * so that another harness can measure them. The cases that run on several threads of
+     * their own are left out.
+     *
+     * @param The part of a case's name that selects which cases are set up.
+     * @return The cases by name, in the order they would run.
+     */
+    public static Map<String, Runnable> collectCases(String filter) throws Throwable
+    {
+        ResponderBenchmark benchmark = new ResponderBenchmark(filter);
+        benchmark.collectedCases = new LinkedHashMap<>();
+        benchmark.runAll();
+        return benchmark.collectedCases;
+    }
+
+    /**
+     * This method runs every benchmark case.
+     */
+    public void runAll() throws Throwable
+    {
+        benchmarkKeywordMode();
+        benchmarkConversationMode();
+        benchmarkCheckOtherConversations(10);
+        benchmarkCheckOtherConversations(1000);
+        benchmarkCheckOtherConversations(100000);
+        benchmarkInsertName();
+        benchmarkHistogram();
+        benchmarkSessionState(1);
+        benchmarkSessionState(100);
+        benchmarkKnowledgePacks(500);
+        int threadCount = Math.max(4, Runtime.getRuntime().availableProcessors());
+        benchmarkRandomChoices(1);
+        benchmarkRandomChoices(threadCount);
+    }
+
+    /**
+     * This method measures generateResponse outside of Conversation Mode, with inputs that
+     * match no keyword, one keyword, and many keywords.
+     */
+    private void benchmarkKeywordMode()
+    {
+        Responder responder = createResponder();
+        String noMatch = "My cat sat on a mat near the window all afternoon long.";
+        String oneMatch = "I have been thinking a lot about justice lately, you know?";
+        String manyMatches = "Hello! What do you think about love, honor, courage, reason "
+            + "and the best life, in light of the first cause and syllogistic logic?";
+        run("generateResponse/keyword/0 matches", () -> responder.generateResponse(noMatch));
+        run("generateResponse/keyword/1 match", () -> responder.generateResponse(oneMatch));
+        run("generateResponse/keyword/many matches",
+            () -> responder.generateResponse(manyMatches));
+    }
+
+    /**
+     * This method measures Conversation Mode, both on first turns (which start a new
+     * conversation, paired with the blank input that ends it again) and on continuation
+     * turns within one conversation.
+     */
+    private void benchmarkConversationMode()
+    {
+        String[] inputs = createSentences(new Random(SEED), 1024, 12);
+        Responder firstTurnResponder = createResponder();
+        int[] position = new int[1];
+        run("runConversationMode/first turn + exit", () -> {
+            String input = inputs[position[0]++ & (inputs.length - 1)];
+            firstTurnResponder.generateResponse("!ConversationMode " + input);
+            firstTurnResponder.generateResponse("");
+        });
+
+        Responder continuingResponder = createResponder();
+        continuingResponder.generateResponse("!ConversationMode " + inputs[0]);
+        run("runConversationMode/continuation", () ->
+            continuingResponder.generateResponse(inputs[position[0]++ & (inputs.length - 1)]));
+    }
+
+    /**
+     * This method measures the search that checkOtherConversations makes through the
+     * conversation memory when it holds the given number of conversations.
+     *
+     * @param The number of stored conversations.
+     */
+    private void benchmarkCheckOtherConversations(int conversationCount)
+    {
+        String name = "checkOtherConversations/" + conversationCount + " conversations";
+        if(!name.contains(filter)) {
+            return;
+        }
+        Random random = new Random(SEED);
+        ConversationMemory memory = new ConversationMemory(Integer.MAX_VALUE,
+            Integer.MAX_VALUE);
+        for(int conversation = 0; conversation < conversationCount; conversation++) {
+            memory.startConversation();
+            for(int link = 0; link < 8; link++) {
+                memory.addLink(createWord(random), createWord(random));
+            }
+        }
+        String[] inputs = createSentences(random, 1024, 12);
+        ConversationTokenizer tokenizer = new ConversationTokenizer();
+        int[] position = new int[1];
+        run(name, () -> {
+            tokenizer.tokenize(inputs[position[0]++ & (inputs.length - 1)], null);
+            sink += memory.findFirstMatch(tokenizer);
+        });
+    }
+
+    /**
+     * This method measures insertName, which builds the personalized phrase every time,
+     * and insertNameInReply, which serves it from the session's cache, both alternating
+     * between putting the name at the start and at the end of a reply as they do in use.
+     */
+    private void benchmarkInsertName() throws Throwable
+    {
+        Responder responder = createResponder();
+        responder.setName("Aristotle");
+        String reply = ReplyTables.getShared().getSpecificReply("justice");
+        run("insertName", () -> {
+            try {
+                sink += ((String) INSERT_NAME.invokeExact(responder, reply)).length();
+            }
+            catch(Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        run("insertNameInReply", () -> {
+            try {
+                sink += ((String) INSERT_NAME_IN_REPLY.invokeExact(responder, reply)).length();
+            }
+            catch(Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * This method measures recording one value in a Histogram, which the metrics do a few
+     * times per response.
+     */
+    private void benchmarkHistogram()
+    {
+        Histogram histogram = new Histogram();
+        long[] value = {SEED};
+        run("Histogram.record", () -> {
+            value[0] = value[0] * 6364136223846793005L + 1442695040888963407L;
+            histogram.record(value[0] >>> 44);
+        });
+        sink += histogram.getCount();
+    }
+
+    /**
+     * This method measures encoding and decoding the state of a session that has been in
+     * Conversation Mode for a number of turns, as saving a session after every turn would.
+     *
+     * @param The number of turns before the state is taken.
+     */
+    private void benchmarkSessionState(int turnCount)
+    {
+        String name = "SessionStateCodec/" + turnCount + " turns";
+        if(!name.contains(filter)) {
+            return;
+        }
+        String[] inputs = createSentences(new Random(SEED), 1024, 12);
+        Responder responder = createResponder();
+        for(int turn = 0; turn < turnCount; turn++) {
+            // Every tenth turn leaves Conversation Mode, so that conversations build up.
+            responder.generateResponse(turn % 10 == 9 ? ""
+                : "!ConversationMode " + inputs[turn & (inputs.length - 1)]);
+        }
+        SessionStateCodec codec = new SessionStateCodec();
+        byte[] state = codec.encode(responder);
+        Responder restored = createResponder();
+        run(name + "/encode (" + state.length + " bytes)",
+            () -> sink += codec.encode(responder).length);
+        run(name + "/decode", () -> {
+            try {
+                codec.decode(state, restored);
+            }
+            catch(java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * This method lays the given number of small knowledge packs over the shared reply
+     * tables, each replacing two replies and adding three topics and two default replies,
+     * and reports the memory each one keeps once its matcher and index are built. It then
+     * measures generateResponse for one of them, to compare with the keyword cases above.
+     *
+     * @param The number of packs.
+     */
+    private void benchmarkKnowledgePacks(int tenantCount)
+    {
+        String name = "knowledge packs";
+        if(!name.contains(filter)) {
+            return;
+        }
+        ReplyTables base = ReplyTables.getShared();
+        base.prepare();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        LayeredReplyTables[] packs = new LayeredReplyTables[tenantCount];
+        for(int tenant = 0; tenant < tenantCount; tenant++) {
+            packs[tenant] = new LayeredReplyTables(base,
+                java.util.Arrays.asList("justice", "love", "tenant " + tenant + " product",
+                "support plan " + tenant, "pricing"),
+                java.util.Arrays.asList("Tenant " + tenant + " sees justice as fairness.",
+                "Tenant " + tenant + " loves its customers.",
+                "Our product " + tenant + " is built for philosophers.",
+                "Support plan " + tenant + " answers within a day.",
+                "Pricing depends on how many dialogues you hold."),
+                java.util.Arrays.asList("Tenant " + tenant + " is listening.",
+                "Tell tenant " + tenant + " more."));
+            packs[tenant].prepare();
+        }
+        System.gc();
+        long bytesPerTenant = (runtime.totalMemory() - runtime.freeMemory() - usedBefore)
+            / tenantCount;
+
+        Responder responder = new Responder(packs[tenantCount / 2], new MemorySink(false),
+            new SessionRandom(SEED));
+        responder.setName("Benchmark");
+        String noMatch = "My cat sat on a mat near the window all afternoon long.";
+        String oneMatch = "I have been thinking a lot about justice lately, you know?";
+        String addedMatch = "Which support plan should I choose for pricing?";
+        run(name + "/0 matches (" + bytesPerTenant + " B each)",
+            () -> responder.generateResponse(noMatch));
+        run(name + "/replaced match", () -> responder.generateResponse(oneMatch));
+        run(name + "/added matches", () -> responder.generateResponse(addedMatch));
+        sink += packs.length;
+    }
+
+    /**
+     * This method measures the random choices of many sessions made at once, each on its
+     * own thread: first with one java.util.Random shared by them all, whose atomic updates
+     * make the threads wait on one another, and then with a SessionRandom for each session.
+     *
+     * @param The number of threads.
+     */
+    private void benchmarkRandomChoices(int threadCount) throws InterruptedException
+    {
+        // Each thread adds up its choices on its own, so that only the generators are shared.
+        Random sharedRandom = new Random(SEED);
+        runThreads("random choice/shared Random/" + threadCount + " threads", threadCount,
+            thread -> {
+                long[] total = new long[1];
+                return () -> total[0] += sharedRandom.nextInt(12);
+            });
+        runThreads("random choice/SessionRandom/" + threadCount + " threads", threadCount,
+            thread -> {
+                long[] total = new long[1];
+                SessionRandom sessionRandom = new SessionRandom(SEED + thread);
+                return () -> total[0] += sessionRandom.nextInt(12);
+            });
+    }
+
+    /**
+     * This method measures one case on several threads at once, each running its own
+     * operation, and prints the time per operation as each thread sees it.
+     *
+     * @param The name of the case, the number of threads, and a function that makes the
+     * operation for each thread from its number.
+     */
+    private void runThreads(String name, int threadCount,
+        IntFunction<Runnable> operationForThread) throws InterruptedException
+    {
+        if(!name.contains(filter) || collectedCases != null) {
+            return;
+        }
+        Runnable[] operations = new Runnable[threadCount];
+        for(int thread = 0; thread < threadCount; thread++) {
+            operations[thread] = operationForThread.apply(thread);
+        }
+        double[] nanosPerOp = new double[MEASURED_ROUNDS];
+        for(int round = -WARMUP_ROUNDS; round < MEASURED_ROUNDS; round++) {
+            double[][] results = new double[threadCount][];
+            Thread[] threads = new Thread[threadCount];
+            for(int thread = 0; thread < threadCount; thread++) {
+                int index = thread;
+                threads[thread] = new Thread(
+                    () -> results[index] = measureRound(operations[index]));
+                threads[thread].start();
+            }
+            double roundMean = 0;
+            for(int thread = 0; thread < threadCount; thread++) {
+                threads[thread].join();
+                roundMean += results[thread][0] / threadCount;
+            }
+            if(round >= 0) {
+                nanosPerOp[round] = roundMean;
+            }
+        }
+        report(name, nanosPerOp, 0);
+    }
+
+    /**
+     * This method warms up and measures one case, then prints its results, unless the case
+     * is not selected or cases are only being gathered.
+     *
+     * @param The name of the case and the operation to measure.
+     */
+    private void run(String name, Runnable operation)
+    {
+        if(!name.contains(filter)) {
+            return;
+        }
+        if(collectedCases != null) {
+            collectedCases.put(name, operation);
+            return;
+        }
+        for(int round = 0; round < WARMUP_ROUNDS; round++) {
+            measureRound(operation);
+        }
+        double[] nanosPerOp = new double[MEASURED_ROUNDS];
+        double bytesPerOp = 0;
+        for(int round = 0; round < MEASURED_ROUNDS; round++) {
+            double[] result = measureRound(operation);
+            nanosPerOp[round] = result[0];
+            bytesPerOp += result[1] / MEASURED_ROUNDS;
+        }
+        report(name, nanosPerOp, bytesPerOp);
+    }
+
+    /**
+     * This method prints the results of one case: the mean time per operation over the
+     * measured rounds, its standard deviation, and the bytes allocated per operation.
+     *
+     * @param The name of the case, the time per operation in each round, and the bytes
+     * per operation.
+     */
+    private static void report(String name, double[] nanosPerOp, double bytesPerOp)
+    {
+        double mean = 0;
+        for(double value : nanosPerOp) {
+            mean += value / MEASURED_ROUNDS;
+        }
+        double variance = 0;
+        for(double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / (MEASURED_ROUNDS - 1);
+        }
+        System.out.printf("%-44s %14.1f %12.1f %12.1f%n", name, mean, Math.sqrt(variance),
+            bytesPerOp);
+    }
+
+    /**
+     * This method runs an operation repeatedly for one round.
+     *
+     * @param The operation to measure.
+     * @return The nanoseconds and the allocated bytes per operation, in that order.
+     */
+    private double[] measureRound(Runnable operation)
+    {
+        long threadId = Thread.currentThread().getId();
+        long operations = 0;
+        long startBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        long endTime = startTime + ROUND_NANOS;
+        long now;
+        do {
+            for(int batch = 0; batch < 64; batch++) {
+                operation.run();
+            }
+            operations += 64;
+            now = System.nanoTime();
+        } while(now < endTime);
+        long bytes = THREAD_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+        return new double[] {(double) (now - startTime) / operations,
+            (double) bytes / operations};
+    }
+
+    /**
+     * This method creates a Responder with a fixed seed that keeps only its latest response.
+     *
+     * @return The new Responder.
+     */
+    private static Responder createResponder()
+    {
+        Responder responder = new Responder(ReplyTables.getShared(), new MemorySink(false),
+            new SessionRandom(SEED));
+        responder.setName("Benchmark");
+        return responder;
+    }
+
+    /**
+     * This method makes up sentences of words from a small vocabulary, so that words come
+     * up again and again as they would in a real conversation.
+     *
+     * @param The random generator, the number of sentences, and the words per sentence.
+     * @return The sentences; their number should be a power of two.
+     */
+    private static String[] createSentences(Random random, int count, int wordsPerSentence)
+    {
+        String[] sentences = new String[count];
+        for(int index = 0; index < count; index++) {
+            StringBuilder sentence = new StringBuilder();
+            for(int word = 0; word < wordsPerSentence; word++) {
+                if(word > 0) {
+                    sentence.append(' ');
+                }
+                sentence.append(createWord(random));
+            }
+            sentences[index] = sentence.toString();
+        }
+        return sentences;
+    }
+
+    /**
+     * This method makes up a word from a vocabulary of a few thousand.
+     *
+     * @param The random generator.
+     * @return The word.
+     */
+    private static String createWord(Random random)
+    {
+        return "topic" + random.nextInt(4096);
+    }
+
+    /**
+     * This method finds one of Responder's private methods that put the name into a
+     * phrase, so that it can be measured alone.
+     *
+     * @param The name of the method.
+     * @return A handle that calls the method.
+     */
+    private static MethodHandle findInsertName(String methodName)
+    {
+        try {
+            return MethodHandles.privateLookupIn(Responder.class, MethodHandles.lookup())
+                .findVirtual(Responder.class, methodName,
+                    MethodType.methodType(String.class, String.class));
+        }
+        catch(ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
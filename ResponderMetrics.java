@@ -0,0 +1,330 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class records where the time of every session goes: how long reading the user's
+ * input, matching keywords and writing each response take, how often each kind of response
+ * is given, how many words checkOtherConversations looks up, and how many responses the
+ * AdmissionController refused, shed, or made wait. The numbers cover every
+ * session in the program and are shown through JMX and, if asked for, printed every so
+ * often to the error stream.
+ *
+ * Recording is turned on with the system property "dynamis.metrics=true", and printing
+ * with "dynamis.metrics.dumpSeconds", the number of seconds between printouts. ENABLED is
+ * fixed when the program starts, so when it is off the JIT removes every check of it and
+ * recording costs nothing at all.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class ResponderMetrics implements ResponderMetricsMBean
+{
+    public static final boolean ENABLED = Boolean.getBoolean("dynamis.metrics");
+    public static final ResponderMetrics INSTANCE = new ResponderMetrics();
+
+    private Histogram inputReadNanos;
+    private Histogram keywordMatchNanos;
+    private Histogram outputWriteNanos;
+    private Histogram conversationScanLength;
+    private LongAdder keywordResponses;
+    private LongAdder conversationModeResponses;
+    private LongAdder defaultReplies;
+    private LongAdder rankedFallbacks;
+    private Histogram queueWaitNanos;
+    private LongAdder rateLimitedResponses;
+    private LongAdder shedResponses;
+
+    static {
+        if(ENABLED) {
+            INSTANCE.register();
+            long dumpSeconds = Long.getLong("dynamis.metrics.dumpSeconds", 0L);
+            if(dumpSeconds > 0) {
+                INSTANCE.startDumping(dumpSeconds);
+            }
+        }
+    }
+
+    /**
+     * This constructor creates empty metrics.
+     */
+    private ResponderMetrics()
+    {
+        inputReadNanos = new Histogram();
+        keywordMatchNanos = new Histogram();
+        outputWriteNanos = new Histogram();
+        conversationScanLength = new Histogram();
+        keywordResponses = new LongAdder();
+        conversationModeResponses = new LongAdder();
+        defaultReplies = new LongAdder();
+        rankedFallbacks = new LongAdder();
+        queueWaitNanos = new Histogram();
+        rateLimitedResponses = new LongAdder();
+        shedResponses = new LongAdder();
+    }
+
+    /**
+     * This method makes the metrics visible through the platform's JMX server.
+     */
+    private void register()
+    {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("dynamis:type=ResponderMetrics"));
+        }
+        catch(JMException e) {
+            System.err.println("The metrics could not be shown through JMX: "
+                + e.getMessage());
+        }
+    }
+
+    /**
+     * This method prints the metrics to the error stream at a fixed interval, on a
+     * background thread.
+     *
+     * @param The number of seconds between printouts.
+     */
+    private void startDumping(long intervalSeconds)
+    {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "dynamis-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> System.err.print(dump()), intervalSeconds,
+            intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * This method records how long reading one input took, which, with a person at the
+     * other end, includes the time they spent typing it.
+     *
+     * @param The time in nanoseconds.
+     */
+    public void recordInputRead(long nanos)
+    {
+        inputReadNanos.record(nanos);
+    }
+
+    /**
+     * This method records a response outside of Conversation Mode and how long matching
+     * its keywords took.
+     *
+     * @param The time in nanoseconds.
+     */
+    public void recordKeywordResponse(long matchNanos)
+    {
+        keywordResponses.increment();
+        keywordMatchNanos.record(matchNanos);
+    }
+
+    /**
+     * This method records a response that fell back to a random default reply.
+     */
+    public void recordDefaultReply()
+    {
+        defaultReplies.increment();
+    }
+
+    /**
+     * This method records a response that matched no keyword but was answered with the
+     * best-fitting phrase from the ReplyIndex.
+     */
+    public void recordRankedFallback()
+    {
+        rankedFallbacks.increment();
+    }
+
+    /**
+     * This method records a response in Conversation Mode.
+     */
+    public void recordConversationModeResponse()
+    {
+        conversationModeResponses.increment();
+    }
+
+    /**
+     * This method records how many words checkOtherConversations looked up.
+     *
+     * @param The number of lookups.
+     */
+    public void recordConversationScan(int length)
+    {
+        conversationScanLength.record(length);
+    }
+
+    /**
+     * This method records how long writing one response out took.
+     *
+     * @param The time in nanoseconds.
+     */
+    public void recordOutputWrite(long nanos)
+    {
+        outputWriteNanos.record(nanos);
+    }
+
+    /**
+     * This method records a response refused because its session's TokenBucket was empty.
+     */
+    public void recordRateLimited()
+    {
+        rateLimitedResponses.increment();
+    }
+
+    /**
+     * This method records a response that had to wait for a slot, and whether it got one
+     * or was shed.
+     *
+     * @param The time it waited in nanoseconds and whether it was admitted.
+     */
+    public void recordQueued(long waitNanos, boolean isAdmitted)
+    {
+        queueWaitNanos.record(waitNanos);
+        if(!isAdmitted) {
+            shedResponses.increment();
+        }
+    }
+
+    public long getResponseCount()
+    {
+        return getKeywordResponseCount() + getConversationModeResponseCount();
+    }
+
+    public long getKeywordResponseCount()
+    {
+        return keywordResponses.sum();
+    }
+
+    public long getConversationModeResponseCount()
+    {
+        return conversationModeResponses.sum();
+    }
+
+    public long getDefaultReplyCount()
+    {
+        return defaultReplies.sum();
+    }
+
+    public long getRankedFallbackCount()
+    {
+        return rankedFallbacks.sum();
+    }
+
+    /**
+     * This is an accessor for the share of responses outside of Conversation Mode that
+     * found no keyword and fell back to a default reply.
+     *
+     * @return The share, from 0 to 1.
+     */
+    public double getDefaultReplyRate()
+    {
+        long keywordResponseCount = getKeywordResponseCount();
+        return keywordResponseCount == 0 ? 0
+            : (double) getDefaultReplyCount() / keywordResponseCount;
+    }
+
+    public double getInputReadMeanNanos()
+    {
+        return inputReadNanos.getMean();
+    }
+
+    public long getInputReadP99Nanos()
+    {
+        return inputReadNanos.getPercentile(99);
+    }
+
+    public double getKeywordMatchMeanNanos()
+    {
+        return keywordMatchNanos.getMean();
+    }
+
+    public long getKeywordMatchP99Nanos()
+    {
+        return keywordMatchNanos.getPercentile(99);
+    }
+
+    public double getOutputWriteMeanNanos()
+    {
+        return outputWriteNanos.getMean();
+    }
+
+    public long getOutputWriteP99Nanos()
+    {
+        return outputWriteNanos.getPercentile(99);
+    }
+
+    public double getConversationScanMeanLength()
+    {
+        return conversationScanLength.getMean();
+    }
+
+    public long getConversationScanMaxLength()
+    {
+        return conversationScanLength.getMax();
+    }
+
+    public long getRateLimitedCount()
+    {
+        return rateLimitedResponses.sum();
+    }
+
+    public long getQueuedCount()
+    {
+        return queueWaitNanos.getCount();
+    }
+
+    public long getShedCount()
+    {
+        return shedResponses.sum();
+    }
+
+    public long getQueueWaitP99Nanos()
+    {
+        return queueWaitNanos.getPercentile(99);
+    }
+
+    /**
+     * This method describes every metric as text, one per line.
+     *
+     * @return The description.
+     */
+    public String dump()
+    {
+        return String.format("DYNAMIS metrics%n"
+            + "  responses: keyword=%d conversationMode=%d defaultReplyRate=%.3f "
+            + "rankedFallbacks=%d%n"
+            + "  inputRead (ns): %s%n"
+            + "  keywordMatch (ns): %s%n"
+            + "  outputWrite (ns): %s%n"
+            + "  conversationScan (lookups): %s%n"
+            + "  admission: rateLimited=%d queued=%d shed=%d%n"
+            + "  queueWait (ns): %s%n",
+            getKeywordResponseCount(), getConversationModeResponseCount(),
+            getDefaultReplyRate(), getRankedFallbackCount(), inputReadNanos.summarize(),
+            keywordMatchNanos.summarize(), outputWriteNanos.summarize(),
+            conversationScanLength.summarize(), getRateLimitedCount(), getQueuedCount(),
+            getShedCount(), queueWaitNanos.summarize());
+    }
+
+    /**
+     * This method sets every metric back to zero.
+     */
+    public void reset()
+    {
+        inputReadNanos.reset();
+        keywordMatchNanos.reset();
+        outputWriteNanos.reset();
+        conversationScanLength.reset();
+        keywordResponses.reset();
+        conversationModeResponses.reset();
+        defaultReplies.reset();
+        rankedFallbacks.reset();
+        queueWaitNanos.reset();
+        rateLimitedResponses.reset();
+        shedResponses.reset();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * This interface lists what ResponderMetrics shows through JMX, such as in JConsole under
+ * "dynamis:type=ResponderMetrics". Times are in nanoseconds.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public interface ResponderMetricsMBean
+{
+    long getResponseCount();
+
+    long getKeywordResponseCount();
+
+    long getConversationModeResponseCount();
+
+    long getDefaultReplyCount();
+
+    double getDefaultReplyRate();
+
+    long getRankedFallbackCount();
+
+    double getInputReadMeanNanos();
+
+    long getInputReadP99Nanos();
+
+    double getKeywordMatchMeanNanos();
+
+    long getKeywordMatchP99Nanos();
+
+    double getOutputWriteMeanNanos();
+
+    long getOutputWriteP99Nanos();
+
+    double getConversationScanMeanLength();
+
+    long getConversationScanMaxLength();
+
+    long getRateLimitedCount();
+
+    long getQueuedCount();
+
+    long getShedCount();
+
+    long getQueueWaitP99Nanos();
+
+    String dump();
+
+    void reset();
+}
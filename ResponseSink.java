@@ -0,0 +1,40 @@
+/**
+ * This interface is where a Responder sends what DYNAMIS says. Instead of printing straight
+ * to the terminal, a Responder writes each line of a response to its sink and then marks
+ * the end of the response, leaving the sink to decide when the text actually goes out: a
+ * ConsoleSink sends each response as a single write, a BatchingSink gathers many responses
+ * into one write, and a MemorySink keeps them for tests and benchmarks.
+ *
+ * A sink belongs to one conversation at a time and is not meant to be shared between
+ * threads.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public interface ResponseSink
+{
+    /**
+     * This method adds text to the current response without ending the line.
+     *
+     * @param The text to add.
+     */
+    void write(String text);
+
+    /**
+     * This method adds a whole line to the current response.
+     *
+     * @param The line to add, without its line separator.
+     */
+    void writeLine(String line);
+
+    /**
+     * This method marks the end of one response, such as a reply or the prompt that asks
+     * for the next input. The sink may send what it holds now or wait for more.
+     */
+    void endResponse();
+
+    /**
+     * This method sends everything the sink holds right away.
+     */
+    void flush();
+}
@@ -0,0 +1,118 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class makes the random choices of one session: whether to use the user's name,
+ * which of several matching phrases to give, which default reply to fall back on, and
+ * which word Conversation Mode asks about. It is the SplitMix64 generator, the same one
+ * inside java.util.SplittableRandom, whose whole state is a single long.
+ *
+ * Unlike java.util.Random, it never updates that state with an atomic operation, since
+ * each session has its own generator and only one thread uses it at a time; thousands of
+ * sessions therefore make their choices without ever getting in one another's way. Seeded
+ * from a session's ID, it makes the same choices every time, so a recorded session can be
+ * replayed word for word, and its state can be read out and put back to save a session
+ * and resume it later.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class SessionRandom
+{
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // This only picks the seeds of unseeded generators, so it is touched once per session.
+    private static final AtomicLong SEED_SOURCE = new AtomicLong(mix64(System.nanoTime()));
+
+    private long state;
+    /**
+     * This constructor creates a generator with a seed that differs from every other
+     * unseeded generator's, for sessions that do not need to be replayed.
+     */
+    public SessionRandom()
+    {
+        this(mix64(SEED_SOURCE.getAndAdd(GOLDEN_GAMMA)) ^ System.nanoTime());
+    }
+
+    /**
+     * This constructor creates a generator that always makes the same choices for the same
+     * seed.
+     *
+     * @param The seed, such as a session's ID.
+     */
+    public SessionRandom(long seed)
+    {
+        state = seed;
+    }
+
+    /**
+     * This method picks a random long, every value being equally likely.
+     *
+     * @return The random long.
+     */
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * This method picks a random int from 0 up to, but not including, a bound, every value
+     * being equally likely.
+     *
+     * @param The bound, which must be positive.
+     * @return The random int.
+     */
+    public int nextInt(int bound)
+    {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("The bound must be positive: " + bound);
+        }
+        int random = (int) (nextLong() >>> 32);
+        int mask = bound - 1;
+        if((bound & mask) == 0) {
+            return random & mask;
+        }
+        // This throws away the few values that would make the low numbers more likely than
+        // the high ones, as SplittableRandom does.
+        int unsigned = random >>> 1;
+        int result = unsigned % bound;
+        while(unsigned + mask - result < 0) {
+            unsigned = (int) (nextLong() >>> 33);
+            result = unsigned % bound;
+        }
+        return result;
+    }
+
+    /**
+     * This is an accessor for the generator's whole state.
+     *
+     * @return The state; a generator given it through setState continues exactly from here.
+     */
+    public long getState()
+    {
+        return state;
+    }
+
+    /**
+     * This is a mutator that puts back a state read out with getState.
+     *
+     * @param The state.
+     */
+    public void setState(long state)
+    {
+        this.state = state;
+    }
+
+    /**
+     * This method scrambles the bits of a long, so that neighbouring states give unrelated
+     * results.
+     *
+     * @param The long to scramble.
+     * @return The scrambled long.
+     */
+    private static long mix64(long value)
+    {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
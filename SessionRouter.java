@@ -0,0 +1,436 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class spreads sessions over several DYNAMIS worker processes, each a ChatServer, so
+ * that more sessions can be held than one process has room for. Users connect to the
+ * router, which picks a worker with a ConsistentHashRing on the session's ID and then
+ * passes the bytes back and forth untouched until either side closes.
+ *
+ * A client that wants to come back to the same worker, such as another front end or the
+ * LoadClient, sends "SESSION <id>" as its very first line; the router keeps that line to
+ * itself. Anyone else is given a new ID and everything they send goes through, so a person
+ * connecting by hand notices nothing but a short wait for the welcome. A session stays on
+ * its worker for as long as its connection lasts, even if workers come and go meanwhile;
+ * only new connections follow the new ring.
+ *
+ * It is run as "java SessionRouter <port> <workers>", where the workers are either a
+ * number, which starts that many local worker JVMs on the ports after the router's, or a
+ * list of host:port addresses. While it runs, "add host:port" and "remove host:port" typed
+ * into it change the workers.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class SessionRouter
+{
+    // This is how long the router waits for a "SESSION" line before giving a new ID.
+    private static final long PREAMBLE_MILLIS = Long.getLong("dynamis.router.preambleMillis",
+        100);
+    private static final byte[] PREAMBLE = "SESSION ".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_PREAMBLE_BYTES = 64;
+    private static final int BUFFER_BYTES = 8192;
+
+    private ServerSocketChannel serverChannel;
+    private ExecutorService connectionExecutor;
+    private AtomicReference<ConsistentHashRing> ring;
+    private AtomicLong nextSessionId;
+    /**
+     * This constructor opens the router on a port, but does not yet accept anyone.
+     *
+     * @param The port to listen on (0 picks any free port) and the addresses of the
+     * workers.
+     */
+    public SessionRouter(int port, List<InetSocketAddress> workers) throws IOException
+    {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        connectionExecutor = ChatServer.createSessionExecutor();
+        ring = new AtomicReference<>(new ConsistentHashRing(workers,
+            ConsistentHashRing.DEFAULT_VIRTUAL_NODES));
+        // New IDs count up from the time in thousandths of a millisecond, as in a
+        // TranscriptJournal, so that they do not repeat after a restart.
+        nextSessionId = new AtomicLong(System.currentTimeMillis() * 1000);
+    }
+
+    /**
+     * This starts a router on the port given as the first argument (or 4040), in front of
+     * the workers given by the rest.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4040;
+        List<InetSocketAddress> workers = new ArrayList<>();
+        if(args.length == 2 && args[1].matches("\\d+")) {
+            List<Process> processes = launchLocalWorkers(port + 1, Integer.parseInt(args[1]));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                for(Process process : processes) {
+                    process.destroy();
+                }
+            }));
+            for(int worker = 1; worker <= processes.size(); worker++) {
+                workers.add(new InetSocketAddress("localhost", port + worker));
+            }
+        }
+        else {
+            for(int argument = 1; argument < args.length; argument++) {
+                workers.add(parseAddress(args[argument]));
+            }
+        }
+        SessionRouter router = new SessionRouter(port, workers);
+        Thread commandReader = new Thread(router::readCommands, "dynamis-router-commands");
+        commandReader.setDaemon(true);
+        commandReader.start();
+        System.out.println("DYNAMIS is routing port " + router.getPort() + " to "
+            + workers.size() + " workers.");
+        router.serve();
+    }
+
+    /**
+     * This method starts worker JVMs on this machine, each a ChatServer on its own port,
+     * with the same Java runtime, class path and "dynamis." settings as this one, and
+     * waits until all of them accept connections.
+     *
+     * @param The port of the first worker and the number of workers.
+     * @return The worker processes.
+     */
+    public static List<Process> launchLocalWorkers(int firstPort, int count)
+        throws IOException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+            + File.separator + "java";
+        List<Process> processes = new ArrayList<>();
+        for(int worker = 0; worker < count; worker++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            for(String name : System.getProperties().stringPropertyNames()) {
+                if(name.startsWith("dynamis.")) {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("ChatServer");
+            command.add(Integer.toString(firstPort + worker));
+            processes.add(new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        }
+        for(Process process : processes) {
+            awaitWorker(process);
+        }
+        return processes;
+    }
+
+    /**
+     * This is an accessor for the port that the router listens on.
+     *
+     * @return The port number.
+     */
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * This method sends new sessions to one more worker as well.
+     *
+     * @param The address of the worker.
+     */
+    public void addWorker(InetSocketAddress worker)
+    {
+        ring.updateAndGet(current -> current.withWorker(worker));
+    }
+
+    /**
+     * This method stops sending new sessions to a worker. Its sessions already running
+     * are left to finish there.
+     *
+     * @param The address of the worker.
+     */
+    public void removeWorker(InetSocketAddress worker)
+    {
+        ring.updateAndGet(current -> current.withoutWorker(worker));
+    }
+
+    /**
+     * This is an accessor for the ring that new sessions are placed with.
+     *
+     * @return The current ring.
+     */
+    public ConsistentHashRing getRing()
+    {
+        return ring.get();
+    }
+
+    /**
+     * This method accepts connections until the router is closed, handing each one to its
+     * own thread.
+     */
+    public void serve()
+    {
+        while(serverChannel.isOpen()) {
+            try {
+                SocketChannel client = serverChannel.accept();
+                connectionExecutor.execute(() -> route(client));
+            }
+            catch(IOException e) {
+                if(serverChannel.isOpen()) {
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method stops accepting connections. Sessions already running are left to finish.
+     */
+    public void close() throws IOException
+    {
+        serverChannel.close();
+        connectionExecutor.shutdown();
+    }
+
+    /**
+     * This method reads "add host:port" and "remove host:port" commands from the standard
+     * input until it ends.
+     */
+    private void readCommands()
+    {
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in,
+            StandardCharsets.UTF_8));
+        try {
+            String command = commands.readLine();
+            while(command != null) {
+                String[] words = command.trim().split("\\s+");
+                try {
+                    if(words.length == 2 && words[0].equals("add")) {
+                        addWorker(parseAddress(words[1]));
+                    }
+                    else if(words.length == 2 && words[0].equals("remove")) {
+                        removeWorker(parseAddress(words[1]));
+                    }
+                    else if(!command.isBlank()) {
+                        System.out.println("Commands are \"add host:port\" and "
+                            + "\"remove host:port\".");
+                    }
+                }
+                catch(IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                }
+                System.out.println("Workers: " + ring.get().getWorkers());
+                command = commands.readLine();
+            }
+        }
+        catch(IOException e) {
+            System.err.println("Could not read commands: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method finds the session of a new connection, connects it to that session's
+     * worker, and passes bytes both ways until the conversation is over.
+     *
+     * @param The channel of the connected client.
+     */
+    private void route(SocketChannel client)
+    {
+        ByteBuffer preamble = ByteBuffer.allocate(MAX_PREAMBLE_BYTES);
+        try(SocketChannel clientChannel = client) {
+            clientChannel.socket().setTcpNoDelay(true);
+            long sessionId = readPreamble(clientChannel, preamble);
+            if(sessionId < 0) {
+                sessionId = nextSessionId.getAndIncrement();
+            }
+            InetSocketAddress worker = ring.get().getWorker(sessionId);
+            try(SocketChannel workerChannel = SocketChannel.open(worker)) {
+                workerChannel.socket().setTcpNoDelay(true);
+                // Whatever the client sent that was not the "SESSION" line goes on first.
+                while(preamble.hasRemaining()) {
+                    workerChannel.write(preamble);
+                }
+                connectionExecutor.execute(() -> relay(clientChannel, workerChannel));
+                relay(workerChannel, clientChannel);
+            }
+        }
+        catch(IOException | IllegalStateException e) {
+            System.err.println("A session could not be routed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method waits briefly for a "SESSION <id>" line at the start of a connection.
+     * It stops waiting as soon as what has arrived cannot be one.
+     *
+     * @param The channel of the client and a buffer for what it has sent, which is left
+     * holding whatever followed the "SESSION" line, or everything if there was none.
+     * @return The session's ID, or -1 if the client did not give one.
+     */
+    private static long readPreamble(SocketChannel client, ByteBuffer preamble)
+        throws IOException
+    {
+        long deadline = System.currentTimeMillis() + PREAMBLE_MILLIS;
+        client.configureBlocking(false);
+        try(Selector selector = Selector.open()) {
+            client.register(selector, SelectionKey.OP_READ);
+            int lineEnd = -1;
+            while(lineEnd < 0 && preamble.hasRemaining()
+                && startsLikePreamble(preamble, preamble.position())) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    break;
+                }
+                selector.select(remaining);
+                selector.selectedKeys().clear();
+                if(client.read(preamble) < 0) {
+                    break;
+                }
+                lineEnd = indexOf(preamble, (byte) '\n');
+            }
+            client.keyFor(selector).cancel();
+            selector.selectNow();
+            preamble.flip();
+            if(lineEnd < 0 || !startsLikePreamble(preamble, preamble.limit())) {
+                return -1;
+            }
+            String line = new String(preamble.array(), PREAMBLE.length,
+                lineEnd - PREAMBLE.length, StandardCharsets.US_ASCII).trim();
+            preamble.position(lineEnd + 1);
+            try {
+                return Long.parseLong(line) & Long.MAX_VALUE;
+            }
+            catch(NumberFormatException e) {
+                // Any other text is an ID as well, just not a numeric one.
+                return line.hashCode() & Long.MAX_VALUE;
+            }
+        }
+        finally {
+            client.configureBlocking(true);
+        }
+    }
+
+    /**
+     * This method states whether what has been read so far could still be the start of a
+     * "SESSION" line.
+     *
+     * @param The buffer holding what has been read and the number of bytes read.
+     * @return The boolean concerning whether the bytes so far match.
+     */
+    private static boolean startsLikePreamble(ByteBuffer preamble, int length)
+    {
+        for(int index = 0; index < Math.min(length, PREAMBLE.length); index++) {
+            if(preamble.get(index) != PREAMBLE[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method finds a byte among those read into a buffer.
+     *
+     * @param The buffer being read into and the byte.
+     * @return Its position, or -1 if it is not there.
+     */
+    private static int indexOf(ByteBuffer buffer, byte value)
+    {
+        for(int index = 0; index < buffer.position(); index++) {
+            if(buffer.get(index) == value) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method copies bytes from one channel to the other until the first one ends,
+     * then tells the other that nothing more is coming.
+     *
+     * @param The channel to read from and the channel to write to.
+     */
+    private static void relay(SocketChannel from, SocketChannel to)
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try {
+            while(from.read(buffer) >= 0) {
+                buffer.flip();
+                while(buffer.hasRemaining()) {
+                    to.write(buffer);
+                }
+                buffer.clear();
+            }
+            to.shutdownOutput();
+        }
+        catch(IOException e) {
+            // One side hung up; closing the connections ends the other direction too.
+            try {
+                from.close();
+                to.close();
+            }
+            catch(IOException closeFailure) {
+                // They are being abandoned either way.
+            }
+        }
+    }
+
+    /**
+     * This method waits for a newly started worker to say that it is listening, then
+     * leaves a thread to read, and throw away, whatever else it prints.
+     *
+     * @param The process of the worker.
+     */
+    private static void awaitWorker(Process process) throws IOException
+    {
+        BufferedReader output = new BufferedReader(new InputStreamReader(
+            process.getInputStream(), StandardCharsets.UTF_8));
+        String line = output.readLine();
+        while(line != null && !line.startsWith("DYNAMIS is listening")) {
+            line = output.readLine();
+        }
+        if(line == null) {
+            throw new IOException("A worker stopped before it started listening.");
+        }
+        Thread drainer = new Thread(() -> {
+            try {
+                while(output.readLine() != null) {
+                    // The worker's output is not needed, but it must not fill the pipe.
+                }
+            }
+            catch(IOException e) {
+                // The worker has gone.
+            }
+        }, "dynamis-worker-output");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * This method reads an address written as host:port.
+     *
+     * @param The address.
+     * @return The socket address.
+     */
+    private static InetSocketAddress parseAddress(String address)
+    {
+        int colon = address.lastIndexOf(':');
+        if(colon < 0) {
+            throw new IllegalArgumentException("A worker must be given as host:port: "
+                + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon),
+            Integer.parseInt(address.substring(colon + 1)));
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class makes up what simulated users say, so that DYNAMIS can be put under a load
+ * that looks like real use. Each script is one session: a name, then a run of turns, and
+ * usually "bye" at the end; some users just leave instead. A turn either names one or two
+ * keywords of the reply tables, picked so that a few topics come up far more often than
+ * the rest, or says something that matches no keyword, or starts Conversation Mode and
+ * keeps it going for a chain of turns before a blank line ends it. Users often come back
+ * to words they have already used, as people do, which is what links conversations in
+ * the ConversationMemory.
+ *
+ * How long sessions and chains are, and how often each kind of turn comes up, can be set
+ * with the system properties "dynamis.load.meanTurns" (20 by default),
+ * "dynamis.load.meanChainTurns" (12), "dynamis.load.keywordShare" (0.35),
+ * "dynamis.load.conversationShare" (0.1), "dynamis.load.repeatShare" (0.25) and
+ * "dynamis.load.byeShare" (0.9). The script of a session depends only on the seed and the
+ * session's number, so a run can be repeated exactly.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class SessionScriptGenerator
+{
+    // None of these contain "bye", which would end the session early.
+    private static final String[] WORDS = {
+        "garden", "summer", "river", "music", "family", "friend", "morning", "coffee",
+        "school", "teacher", "history", "city", "village", "mountain", "ocean", "winter",
+        "kitchen", "bread", "journey", "train", "letter", "window", "evening", "story",
+        "painting", "language", "science", "money", "market", "doctor", "memory", "forest",
+        "question", "answer", "promise", "secret", "holiday", "brother", "sister", "neighbor",
+        "book", "library", "computer", "machine", "dream", "silence", "color", "weather",
+        "animals", "horses", "birds", "rain", "stars", "candle", "mirror", "bridge", "road",
+        "work", "game", "team", "country", "voice", "habit", "choice"
+    };
+    private static final String[] LINKS = {
+        "I think", "my", "the", "and", "with", "makes me remember", "is like", "near",
+        "because of", "every", "about"
+    };
+
+    private ReplyTables replyTables;
+    private long seed;
+    private int meanTurns;
+    private int meanChainTurns;
+    private double keywordShare;
+    private double conversationShare;
+    private double repeatShare;
+    private double byeShare;
+    /**
+     * This constructor creates a generator with the default mix of turns.
+     *
+     * @param The ReplyTables to take keywords from and the seed of every script.
+     */
+    public SessionScriptGenerator(ReplyTables replyTables, long seed)
+    {
+        this.replyTables = replyTables;
+        this.seed = seed;
+        meanTurns = 20;
+        meanChainTurns = 12;
+        keywordShare = 0.35;
+        conversationShare = 0.1;
+        repeatShare = 0.25;
+        byeShare = 0.9;
+    }
+
+    /**
+     * This method creates a generator with the mix of turns given by the system
+     * properties described above.
+     *
+     * @param The ReplyTables to take keywords from and the seed of every script.
+     * @return The generator.
+     */
+    public static SessionScriptGenerator fromProperties(ReplyTables replyTables, long seed)
+    {
+        SessionScriptGenerator generator = new SessionScriptGenerator(replyTables, seed);
+        generator.meanTurns = Integer.getInteger("dynamis.load.meanTurns",
+            generator.meanTurns);
+        generator.meanChainTurns = Integer.getInteger("dynamis.load.meanChainTurns",
+            generator.meanChainTurns);
+        generator.keywordShare = readShare("dynamis.load.keywordShare",
+            generator.keywordShare);
+        generator.conversationShare = readShare("dynamis.load.conversationShare",
+            generator.conversationShare);
+        generator.repeatShare = readShare("dynamis.load.repeatShare",
+            generator.repeatShare);
+        generator.byeShare = readShare("dynamis.load.byeShare", generator.byeShare);
+        if(generator.meanTurns < 1 || generator.meanChainTurns < 1) {
+            throw new IllegalArgumentException("Sessions and chains need at least one turn.");
+        }
+        return generator;
+    }
+
+    /**
+     * This method reads a share, from 0 to 1, from a system property.
+     *
+     * @param The name of the property and the share to use if it is not set.
+     * @return The share.
+     */
+    private static double readShare(String property, double defaultShare)
+    {
+        double share = Double.parseDouble(System.getProperty(property,
+            Double.toString(defaultShare)));
+        if(share < 0 || share > 1) {
+            throw new IllegalArgumentException(property + " must be from 0 to 1.");
+        }
+        return share;
+    }
+
+    /**
+     * This method makes up the script of one session.
+     *
+     * @param The number of the session.
+     * @return The lines the user says, in order, starting with their name.
+     */
+    public List<String> createScript(long sessionNumber)
+    {
+        SessionRandom random = new SessionRandom(seed ^ (sessionNumber * 0x9E3779B97F4A7C15L));
+        ArrayList<String> lines = new ArrayList<>();
+        ArrayList<String> usedWords = new ArrayList<>();
+        lines.add("User" + sessionNumber);
+        int turns = pickLength(random, meanTurns);
+        while(lines.size() <= turns) {
+            double kind = nextDouble(random);
+            if(kind < conversationShare) {
+                lines.add("!ConversationMode " + createSentence(random, usedWords));
+                int chainTurns = pickLength(random, meanChainTurns);
+                for(int turn = 0; turn < chainTurns; turn++) {
+                    lines.add(createSentence(random, usedWords));
+                }
+                // A blank line leaves Conversation Mode.
+                lines.add("");
+            }
+            else if(kind < conversationShare + keywordShare) {
+                String sentence = createSentence(random, usedWords) + " "
+                    + pickKeyword(random);
+                if(random.nextInt(5) == 0) {
+                    sentence += " and " + pickKeyword(random);
+                }
+                lines.add(sentence + "?");
+            }
+            else {
+                lines.add(createSentence(random, usedWords) + ".");
+            }
+        }
+        if(nextDouble(random) < byeShare) {
+            lines.add("bye");
+        }
+        return lines;
+    }
+
+    /**
+     * This method makes up a sentence of a few words, some of which the user has used
+     * before in the session.
+     *
+     * @param The random generator of the session and the words used so far, to which the
+     * new ones are added.
+     * @return The sentence.
+     */
+    private String createSentence(SessionRandom random, ArrayList<String> usedWords)
+    {
+        StringBuilder sentence = new StringBuilder();
+        int wordCount = 2 + random.nextInt(5);
+        for(int index = 0; index < wordCount; index++) {
+            String word;
+            if(!usedWords.isEmpty() && nextDouble(random) < repeatShare) {
+                word = usedWords.get(random.nextInt(usedWords.size()));
+            }
+            else {
+                word = WORDS[pickSkewed(random, WORDS.length)];
+                usedWords.add(word);
+            }
+            if(index > 0) {
+                sentence.append(' ').append(LINKS[random.nextInt(LINKS.length)]).append(' ');
+            }
+            sentence.append(word);
+        }
+        return sentence.toString();
+    }
+
+    /**
+     * This method picks a keyword of the reply tables, the first ones far more often than
+     * the last.
+     *
+     * @param The random generator of the session.
+     * @return The keyword.
+     */
+    private String pickKeyword(SessionRandom random)
+    {
+        return replyTables.getKey(pickSkewed(random, replyTables.getTopicCount()));
+    }
+
+    /**
+     * This method picks a position from 0 up to a count, the low ones far more often than
+     * the high ones, as with the words of a language.
+     *
+     * @param The random generator and the count.
+     * @return The position.
+     */
+    private static int pickSkewed(SessionRandom random, int count)
+    {
+        double value = nextDouble(random);
+        return Math.min(count - 1, (int) (count * value * value * value));
+    }
+
+    /**
+     * This method picks a length that is often short and sometimes long, with the given
+     * mean, as the lengths of conversations are.
+     *
+     * @param The random generator and the mean length.
+     * @return The length, at least 1.
+     */
+    private static int pickLength(SessionRandom random, int mean)
+    {
+        if(mean <= 1) {
+            return 1;
+        }
+        // This is the geometric distribution, drawn by inverting its distribution function.
+        double value = 1 - nextDouble(random);
+        return 1 + (int) (Math.log(value) / Math.log(1 - 1.0 / mean));
+    }
+
+    /**
+     * This method draws a number from 0 up to, but not including, 1.
+     *
+     * @param The random generator.
+     * @return The number.
+     */
+    private static double nextDouble(SessionRandom random)
+    {
+        return (random.nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
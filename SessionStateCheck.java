@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class checks that a session saved by the SessionStateCodec in the middle of a
+ * conversation carries on exactly as if it had never stopped. For each of many scripted
+ * sessions, it plays the script on one Responder, saves that Responder's state at a turn
+ * picked at random, and restores it into a second Responder that started out differently.
+ * Both then play the rest of the script, and their responses must be the same, word for
+ * word; the state saved again from the second must be byte for byte the state it was
+ * given, and both must end in byte for byte the same state. Last, a state cut off halfway
+ * must be turned away. The scripts and the turns at which they are saved are drawn from
+ * SCRIPT_SEED, and session n plays with the random choices of seed n.
+ *
+ * The check stops counting aloud after ten differences but keeps looking; if it found
+ * any, its exit status is nonzero, and "mvn verify", which runs it with the other checks,
+ * fails. To run it by hand over more or fewer than 2,000 sessions, give the number, as in
+ * "java SessionStateCheck 10000".
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class SessionStateCheck
+{
+    private static final long SCRIPT_SEED = 104729L;
+    private static final int REPORT_LIMIT = 10;
+
+    private SessionStateCodec codec;
+    private long mismatchCount;
+    /**
+     * This constructor creates a check with a codec that it reuses for every session.
+     */
+    public SessionStateCheck()
+    {
+        codec = new SessionStateCodec();
+    }
+
+    /**
+     * This runs the check with the number of sessions given as an argument, if there is
+     * one.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        // Conversation Mode is made common, since most of the state belongs to it.
+        System.setProperty("dynamis.load.conversationShare", "0.4");
+        SessionScriptGenerator generator = SessionScriptGenerator.fromProperties(
+            ReplyTables.getShared(), SCRIPT_SEED);
+        SessionStateCheck check = new SessionStateCheck();
+        SessionRandom random = new SessionRandom(SCRIPT_SEED);
+        for(int session = 0; session < sessionCount; session++) {
+            List<String> script = generator.createScript(session);
+            check.check(session, script, 1 + random.nextInt(script.size()));
+        }
+        check.checkDamagedState();
+        System.out.println("Checked " + sessionCount + " sessions; " + check.mismatchCount
+            + " differed.");
+        System.exit(check.mismatchCount == 0 ? 0 : 1);
+    }
+
+    /**
+     * This method plays one session, saving and restoring it at the given turn.
+     *
+     * @param The number of the session, its script, and the turn to save it before.
+     */
+    public void check(long session, List<String> script, int savedTurn) throws IOException
+    {
+        MemorySink originalSink = new MemorySink(true);
+        Responder original = new Responder(ReplyTables.getShared(), originalSink,
+            new SessionRandom(session));
+        original.setName(script.get(0));
+        for(int turn = 1; turn < savedTurn; turn++) {
+            play(original, script.get(turn));
+        }
+        byte[] savedState = codec.encode(original);
+
+        // The second Responder has another name, seed and conversation, all of which the
+        // saved state must replace.
+        MemorySink restoredSink = new MemorySink(true);
+        Responder restored = new Responder(ReplyTables.getShared(), restoredSink,
+            new SessionRandom(~session));
+        restored.setName("Somebody Else");
+        restored.generateResponse("!ConversationMode stones rivers mountains");
+        codec.decode(savedState, restored);
+        if(!Arrays.equals(savedState, codec.encode(restored))) {
+            report(session, savedTurn, "the restored state saves differently");
+        }
+
+        originalSink.clear();
+        restoredSink.clear();
+        for(int turn = savedTurn; turn < script.size(); turn++) {
+            play(original, script.get(turn));
+            play(restored, script.get(turn));
+        }
+        if(!originalSink.getResponses().equals(restoredSink.getResponses())) {
+            report(session, savedTurn, "the responses differ");
+        }
+        else if(!Arrays.equals(codec.encode(original), codec.encode(restored))) {
+            report(session, savedTurn, "the final states differ");
+        }
+    }
+
+    /**
+     * This method plays one line of a script, as Chatter would.
+     *
+     * @param The Responder and the line.
+     */
+    private static void play(Responder responder, String line)
+    {
+        if(line.contains(responder.getEndingString())) {
+            responder.printGoodbye();
+        }
+        else {
+            responder.generateResponse(line);
+        }
+    }
+
+    /**
+     * This method checks that a damaged state is turned away rather than restored.
+     */
+    private void checkDamagedState()
+    {
+        Responder responder = new Responder(ReplyTables.getShared(), new MemorySink(),
+            new SessionRandom(SCRIPT_SEED));
+        byte[] state = codec.encode(responder);
+        byte[] damaged = Arrays.copyOf(state, state.length / 2);
+        try {
+            codec.decode(damaged, responder);
+            report(-1, 0, "a cut-off state was restored");
+        }
+        catch(IOException e) {
+            // This is what should happen.
+        }
+    }
+
+    /**
+     * This method reports a difference, printing it if it is one of the first few.
+     *
+     * @param The number of the session, the turn it was saved before, and what differed.
+     */
+    private void report(long session, int savedTurn, String difference)
+    {
+        if(mismatchCount < REPORT_LIMIT) {
+            System.out.println("Session " + session + ", saved before turn " + savedTurn
+                + ": " + difference + ".");
+        }
+        mismatchCount++;
+    }
+}
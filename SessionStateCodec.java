@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class turns the state of a session into a compact array of bytes and back, so that
+ * a conversation can be saved after every turn and picked up again on another node, or
+ * after a restart, exactly where it left off. It does not use Java serialization: each
+ * class writes its own fields through the methods here, and a Responder restored from the
+ * bytes gives the very same responses to the same inputs as the one they were taken from.
+ *
+ * The layout is: the magic number and the format version, then whatever Responder and its
+ * ConversationMemory write. Small numbers take a single byte, as variable-length integers,
+ * and strings are written in UTF-8 after their length. A codec keeps its buffer from one
+ * encoding to the next, so it should be kept and reused, but by one thread at a time.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class SessionStateCodec
+{
+    public static final int MAGIC = 0x44595353;        // "DYSS"
+    public static final int VERSION = 1;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    /**
+     * This constructor creates a codec with a small buffer, which grows as needed.
+     */
+    public SessionStateCodec()
+    {
+        buffer = new byte[256];
+        position = 0;
+        limit = 0;
+    }
+
+    /**
+     * This method encodes the whole state of a session.
+     *
+     * @param The Responder holding the session.
+     * @return The encoded state.
+     */
+    public byte[] encode(Responder responder)
+    {
+        position = 0;
+        writeInt(MAGIC);
+        writeByte(VERSION);
+        responder.writeState(this);
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * This method puts the state of a session back into a Responder, replacing whatever
+     * state it had. If the bytes are damaged, the Responder is left as it was.
+     *
+     * @param The encoded state and the Responder to restore it into.
+     * @throws IOException  If the bytes are not a session state of this version, or are
+     * damaged.
+     */
+    public void decode(byte[] state, Responder responder) throws IOException
+    {
+        byte[] ownBuffer = buffer;
+        buffer = state;
+        position = 0;
+        limit = state.length;
+        try {
+            if(limit < 5 || readInt() != MAGIC) {
+                throw new IOException("This is not a DYNAMIS session state.");
+            }
+            int version = readByte();
+            if(version != VERSION) {
+                throw new IOException("The session state has version " + version
+                    + ", but version " + VERSION + " is needed.");
+            }
+            // The state is read into a Responder of its own and only copied over once all
+            // of it has been read, so a damaged state leaves the session as it was.
+            Responder restored = responder.readState(this);
+            if(position != limit) {
+                throw new IOException("The session state is damaged.");
+            }
+            responder.copyStateFrom(restored);
+        }
+        catch(IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("The session state is damaged.", e);
+        }
+        finally {
+            buffer = ownBuffer;
+            limit = 0;
+        }
+    }
+
+    /**
+     * This method writes one byte.
+     *
+     * @param The byte, in the low eight bits of an int.
+     */
+    public void writeByte(int value)
+    {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * This method writes an int in four bytes, high byte first.
+     *
+     * @param The int.
+     */
+    public void writeInt(int value)
+    {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * This method writes a long in eight bytes, high byte first.
+     *
+     * @param The long.
+     */
+    public void writeLong(long value)
+    {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    /**
+     * This method writes a number that is never negative in as few bytes as it needs, seven
+     * bits to a byte.
+     *
+     * @param The number.
+     */
+    public void writeVarLong(long value)
+    {
+        ensureCapacity(10);
+        while((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * This method writes an int that is never negative in as few bytes as it needs.
+     *
+     * @param The int.
+     */
+    public void writeVarInt(int value)
+    {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * This method writes a string, which may be null, in UTF-8 after its length.
+     *
+     * @param The string.
+     */
+    public void writeString(String text)
+    {
+        if(text == null) {
+            writeVarInt(0);
+            return;
+        }
+        int length = text.length();
+        boolean isAscii = true;
+        for(int index = 0; index < length && isAscii; index++) {
+            isAscii = text.charAt(index) < 0x80;
+        }
+        if(isAscii) {
+            // Most words are plain ASCII, so they are copied across without an encoder.
+            writeVarInt(length + 1);
+            ensureCapacity(length);
+            for(int index = 0; index < length; index++) {
+                buffer[position++] = (byte) text.charAt(index);
+            }
+        }
+        else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    /**
+     * This method reads one byte.
+     *
+     * @return The byte, from 0 to 255.
+     */
+    public int readByte()
+    {
+        checkAvailable(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * This method reads an int written by writeInt.
+     *
+     * @return The int.
+     */
+    public int readInt()
+    {
+        checkAvailable(4);
+        int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+            | (buffer[position + 2] & 0xFF) << 8 | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    /**
+     * This method reads a long written by writeLong.
+     *
+     * @return The long.
+     */
+    public long readLong()
+    {
+        return (long) readInt() << 32 | (readInt() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * This method reads a number written by writeVarLong.
+     *
+     * @return The number.
+     */
+    public long readVarLong()
+    {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int next = readByte();
+            value |= (long) (next & 0x7F) << shift;
+            if(next < 0x80) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("A number in the session state is too long.");
+    }
+
+    /**
+     * This method reads an int written by writeVarInt.
+     *
+     * @return The int.
+     */
+    public int readVarInt()
+    {
+        long value = readVarLong();
+        if(value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("A number in the session state is too large.");
+        }
+        return (int) value;
+    }
+
+    /**
+     * This method reads a count written by writeVarInt, checking that it is not negative.
+     *
+     * @return The count.
+     */
+    public int readCount()
+    {
+        int count = readVarInt();
+        if(count < 0 || count > limit) {
+            throw new IllegalArgumentException("A count in the session state is too large.");
+        }
+        return count;
+    }
+
+    /**
+     * This method reads a string written by writeString.
+     *
+     * @return The string, or null if null was written.
+     */
+    public String readString()
+    {
+        int length = readCount() - 1;
+        if(length < 0) {
+            return null;
+        }
+        checkAvailable(length);
+        String text = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return text;
+    }
+
+    /**
+     * This method makes sure the buffer has room for a number of bytes more.
+     *
+     * @param The number of bytes about to be written.
+     */
+    private void ensureCapacity(int byteCount)
+    {
+        if(position + byteCount > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + byteCount));
+        }
+    }
+
+    /**
+     * This method makes sure that a number of bytes are left to be read.
+     *
+     * @param The number of bytes about to be read.
+     */
+    private void checkAvailable(int byteCount)
+    {
+        if(byteCount > limit - position) {
+            throw new IndexOutOfBoundsException("The session state ends too soon.");
+        }
+    }
+}
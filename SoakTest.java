@@ -0,0 +1,354 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class runs DYNAMIS under a steady, made-up load for as long as asked, hours if need
+ * be, and reports how it holds up. Sessions scripted by a SessionScriptGenerator are played
+ * by a fixed number of simulated users at once, and their turns are sent at a target rate
+ * on a fixed schedule; a turn's latency is counted from when it was due to be sent, not
+ * from when it was, so a server that falls behind cannot hide how far behind it is.
+ *
+ * Every few seconds it prints the turns per second, the 50th, 99th and 99.9th percentile
+ * latencies of those seconds, and how much heap was still in use after the last garbage
+ * collection; at the end, it prints the same for the whole run after a short warmup, with
+ * how fast that heap grew. Heap that keeps growing over a long run points to a leak; over
+ * a run of only minutes, the growth per hour says little.
+ *
+ * It is run as "java SoakTest <target> <turns per second> <minutes> [users] [seed]". The
+ * target is "inprocess" to drive Responders directly in the same program, "local" to start
+ * a ChatServer in the same program and talk to it over sockets, or "host:port" for a
+ * running server. Over a socket, the end of each response is found by the prompt that the
+ * server writes before reading the next line. The report interval is
+ * "dynamis.soak.reportSeconds" (10 by default).
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class SoakTest
+{
+    private static final long REPORT_NANOS =
+        TimeUnit.SECONDS.toNanos(Long.getLong("dynamis.soak.reportSeconds", 10));
+    // Turns due in the first seconds of the run (10 by default, or
+    // "dynamis.soak.warmupSeconds") are left out of the whole run's latencies, since they
+    // mostly measure the JIT compiler warming up.
+    private static final long WARMUP_NANOS =
+        TimeUnit.SECONDS.toNanos(Long.getLong("dynamis.soak.warmupSeconds", 10));
+
+    private SessionScriptGenerator generator;
+    private String host;
+    private int port;
+    private double turnsPerSecond;
+    private int userCount;
+    private Histogram intervalLatencies;
+    private Histogram runLatencies;
+    private AtomicLong nextTurn;
+    private AtomicLong nextSession;
+    private AtomicLong turnsTaken;
+    private AtomicLong failedSessions;
+    private long startTime;
+    private long endTime;
+    /**
+     * This constructor sets up a soak test.
+     *
+     * @param The SessionScriptGenerator, the host and port of the server or null to drive
+     * Responders in this program, the target number of turns per second, and the number
+     * of users playing sessions at once.
+     */
+    public SoakTest(SessionScriptGenerator generator, String host, int port,
+        double turnsPerSecond, int userCount)
+    {
+        this.generator = generator;
+        this.host = host;
+        this.port = port;
+        this.turnsPerSecond = turnsPerSecond;
+        this.userCount = userCount;
+        intervalLatencies = new Histogram();
+        runLatencies = new Histogram();
+        nextTurn = new AtomicLong();
+        nextSession = new AtomicLong();
+        turnsTaken = new AtomicLong();
+        failedSessions = new AtomicLong();
+    }
+
+    /**
+     * This runs a soak test as described above.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length < 3) {
+            System.err.println("Usage: java SoakTest <inprocess|local|host:port> "
+                + "<turns per second> <minutes> [users] [seed]");
+            System.exit(2);
+        }
+        String target = args[0];
+        double turnsPerSecond = Double.parseDouble(args[1]);
+        double minutes = Double.parseDouble(args[2]);
+        int userCount = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 20171010L;
+
+        ReplyTables replyTables = ReloadableReplyTables.getShared().current();
+        replyTables.prepare();
+        SessionScriptGenerator generator = SessionScriptGenerator.fromProperties(replyTables,
+            seed);
+        ChatServer localServer = null;
+        String host = null;
+        int port = 0;
+        if(target.equals("local")) {
+            localServer = new ChatServer(0);
+            ChatServer server = localServer;
+            Thread acceptor = new Thread(server::serve, "dynamis-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            host = "localhost";
+            port = server.getPort();
+        }
+        else if(!target.equals("inprocess")) {
+            int colon = target.lastIndexOf(':');
+            host = target.substring(0, colon);
+            port = Integer.parseInt(target.substring(colon + 1));
+        }
+
+        SoakTest test = new SoakTest(generator, host, port, turnsPerSecond, userCount);
+        System.out.printf("Soak test of %s at %.0f turns/s for %.1f minutes with %d users, "
+            + "seed %d%n", target, turnsPerSecond, minutes, userCount, seed);
+        test.run((long) (minutes * 60e9));
+        if(localServer != null) {
+            localServer.close();
+        }
+    }
+
+    /**
+     * This method plays sessions until the time is up, reporting as it goes.
+     *
+     * @param The length of the run, in nanoseconds.
+     */
+    public void run(long durationNanos) throws InterruptedException
+    {
+        System.out.printf("%10s %10s %10s %10s %10s %10s %12s%n", "seconds", "turns/s",
+            "p50 ms", "p99 ms", "p99.9 ms", "max ms", "heap MB");
+        // The heap is collected once before and once after the run, so that the two ends
+        // are measured alike; in between, the collections come as they would.
+        System.gc();
+        long firstHeap = readHeapAfterCollection();
+        startTime = System.nanoTime();
+        endTime = startTime + durationNanos;
+        ExecutorService users = ChatServer.createSessionExecutor();
+        for(int user = 0; user < userCount; user++) {
+            users.execute(this::playSessions);
+        }
+        users.shutdown();
+
+        long lastTurns = 0;
+        long lastReport = startTime;
+        while(!users.awaitTermination(Math.max(1, lastReport + REPORT_NANOS
+            - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            long now = System.nanoTime();
+            long turns = turnsTaken.get();
+            report((now - startTime) / 1e9, (turns - lastTurns) * 1e9 / (now - lastReport),
+                intervalLatencies, readHeapAfterCollection());
+            intervalLatencies.reset();
+            lastTurns = turns;
+            lastReport = now;
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.gc();
+        long lastHeap = readHeapAfterCollection();
+        System.out.println("Whole run:");
+        report(seconds, turnsTaken.get() / seconds, runLatencies, lastHeap);
+        System.out.printf("%d turns in %d sessions, %d of which failed; heap after collection "
+            + "went from %.1f MB to %.1f MB (%+.1f MB per hour)%n", turnsTaken.get(),
+            nextSession.get(), failedSessions.get(), firstHeap / 1e6, lastHeap / 1e6,
+            (lastHeap - firstHeap) / 1e6 / (seconds / 3600));
+    }
+
+    /**
+     * This method prints one line of the report.
+     *
+     * @param The seconds since the start, the turns per second, the latencies, and the
+     * heap in use after the last collection, in bytes.
+     */
+    private static void report(double seconds, double turnsPerSecond, Histogram latencies,
+        long heapBytes)
+    {
+        System.out.printf("%10.0f %10.0f %10.3f %10.3f %10.3f %10.3f %12.1f%n", seconds,
+            turnsPerSecond, latencies.getPercentile(50) / 1e6,
+            latencies.getPercentile(99) / 1e6, latencies.getPercentile(99.9) / 1e6,
+            latencies.getMax() / 1e6, heapBytes / 1e6);
+    }
+
+    /**
+     * This method plays one session after another as a single user, until the time is up.
+     */
+    private void playSessions()
+    {
+        boolean isFinished = false;
+        while(!isFinished) {
+            long sessionNumber = nextSession.getAndIncrement();
+            List<String> script = generator.createScript(sessionNumber);
+            try {
+                isFinished = host == null ? playInProcess(sessionNumber, script)
+                    : playOverSocket(script);
+            }
+            catch(IOException | RuntimeException e) {
+                if(failedSessions.getAndIncrement() < 10) {
+                    System.err.println("Session " + sessionNumber + " failed: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method plays a session with a Responder in this program, calling it just as
+     * Chatter does.
+     *
+     * @param The number of the session and its script.
+     * @return Whether the time ran out during the session.
+     */
+    private boolean playInProcess(long sessionNumber, List<String> script)
+    {
+        Responder responder = new Responder(ReloadableReplyTables.getShared(),
+            new MemorySink(false), new SessionRandom(sessionNumber));
+        responder.printWelcome();
+        for(int line = 0; line < script.size(); line++) {
+            long dueTime = waitForTurn();
+            if(dueTime < 0) {
+                return true;
+            }
+            String input = script.get(line);
+            if(line == 0) {
+                responder.setName(input);
+            }
+            else if(input.contains(responder.getEndingString())) {
+                responder.printGoodbye();
+            }
+            else {
+                responder.generateResponse(input);
+            }
+            recordTurn(dueTime);
+        }
+        return false;
+    }
+
+    /**
+     * This method plays a session with a server over a socket.
+     *
+     * @param The script of the session.
+     * @return Whether the time ran out during the session.
+     */
+    private boolean playOverSocket(List<String> script) throws IOException
+    {
+        try(Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            // The welcome ends with the prompt for the user's name.
+            readResponse(input);
+            for(String line : script) {
+                long dueTime = waitForTurn();
+                if(dueTime < 0) {
+                    return true;
+                }
+                output.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                // After "bye", the server says goodbye and closes the connection.
+                readResponse(input);
+                recordTurn(dueTime);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method reads a response up to the next prompt, "> " at the start of a line, or
+     * up to the end of the connection. A LoadClient reads its replies the same way.
+     *
+     * @param The stream of the server's output.
+     * @return The number of whole lines read.
+     */
+    static long readResponse(InputStream input) throws IOException
+    {
+        boolean isLineStart = true;
+        boolean sawMarker = false;
+        long lineCount = 0;
+        int value = input.read();
+        while(value >= 0) {
+            if(sawMarker && value == ' ') {
+                return lineCount;
+            }
+            sawMarker = isLineStart && value == '>';
+            isLineStart = value == '\n';
+            if(isLineStart) {
+                lineCount++;
+            }
+            value = input.read();
+        }
+        return lineCount;
+    }
+
+    /**
+     * This method takes the next turn of the schedule and waits until it is due.
+     *
+     * @return The time the turn was due, or -1 if it would come after the end of the run.
+     */
+    private long waitForTurn()
+    {
+        long dueTime = startTime + (long) (nextTurn.getAndIncrement() * 1e9 / turnsPerSecond);
+        if(dueTime >= endTime) {
+            return -1;
+        }
+        long waitNanos = dueTime - System.nanoTime();
+        while(waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+            waitNanos = dueTime - System.nanoTime();
+        }
+        return dueTime;
+    }
+
+    /**
+     * This method records the latency of a turn just answered.
+     *
+     * @param The time the turn was due.
+     */
+    private void recordTurn(long dueTime)
+    {
+        long latency = System.nanoTime() - dueTime;
+        intervalLatencies.record(latency);
+        if(dueTime - startTime >= WARMUP_NANOS) {
+            runLatencies.record(latency);
+        }
+        turnsTaken.incrementAndGet();
+    }
+
+    /**
+     * This method adds up how much of the heap was still in use after the last garbage
+     * collection, which, unlike the heap in use at any moment, does not rise and fall with
+     * short-lived garbage.
+     *
+     * @return The heap in use after collection, in bytes.
+     */
+    private static long readHeapAfterCollection()
+    {
+        long used = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if(pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * This class limits how fast one session may ask for responses. The bucket holds up to a
+ * set number of tokens and fills again at a steady rate; each response takes one token, and
+ * when none is left the response is refused. A person typing never runs it dry, but a
+ * client pasting a long transcript or sending lines in a tight loop soon does, after which
+ * it gets no more than the steady rate.
+ *
+ * A bucket belongs to one session and is used by one thread at a time.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+public class TokenBucket
+{
+    private double tokensPerNano;
+    private double capacity;
+    private double tokens;
+    private long lastRefillTime;
+    /**
+     * This constructor creates a full bucket.
+     *
+     * @param The number of tokens added per second and the most the bucket holds, which is
+     * how many responses may be asked for at once after a quiet spell.
+     */
+    public TokenBucket(double tokensPerSecond, int capacity)
+    {
+        if(tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and "
+                + "room for at least one token.");
+        }
+        tokensPerNano = tokensPerSecond / 1e9;
+        this.capacity = capacity;
+        tokens = capacity;
+        lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * This method takes a token if there is one.
+     *
+     * @return The boolean concerning whether a token was taken.
+     */
+    public boolean tryTake()
+    {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillTime) * tokensPerNano);
+        lastRefillTime = now;
+        if(tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
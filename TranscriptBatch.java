@@ -0,0 +1,207 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class replays a file of recorded conversations through DYNAMIS without anyone at the
+ * Terminal. Each conversation in the file is a line with the user's name, followed by the
+ * user's lines, and ends with a line containing the ending string ("bye"), just as it would
+ * be typed into Chatter. The responses are written to an output file as a transcript, with
+ * each of the user's lines shown after a "> " prompt.
+ *
+ * Conversations are independent of one another, so they are answered in parallel, each by
+ * its own Responder over the shared reply tables. Only a limited number of conversations
+ * are in progress at any time, and their transcripts are written in the order of the input,
+ * so even a very large file is processed in a steady amount of memory. Every conversation's
+ * Responder is seeded from the run's seed and the conversation's position in the file, so
+ * replaying the same file gives the same transcript.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class TranscriptBatch
+{
+    private ReplyTables replyTables;
+    private int threadCount;
+    private long seed;
+    private String endingString;
+    /**
+     * This constructor sets up a batch run.
+     *
+     * @param The reply tables to answer with, the number of conversations to answer at
+     * once, and the seed that the Responders' seeds are made from.
+     */
+    public TranscriptBatch(ReplyTables replyTables, int threadCount, long seed)
+    {
+        this.replyTables = replyTables;
+        this.threadCount = threadCount;
+        this.seed = seed;
+        endingString = new Responder(replyTables, new MemorySink(false)).getEndingString();
+    }
+
+    /**
+     * This runs a batch. The arguments are the input file, the output file, and optionally
+     * the number of threads (the number of cores by default) and the seed (0 by default).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if(args.length < 2) {
+            System.err.println("Usage: java TranscriptBatch <input> <output> [threads] "
+                + "[seed]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+        TranscriptBatch batch = new TranscriptBatch(ReplyTables.getShared(), threads, seed);
+        long startTime = System.nanoTime();
+        long conversations = batch.run(Paths.get(args[0]), Paths.get(args[1]));
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf("%d conversations in %.3f s (%.0f per second)%n", conversations,
+            seconds, conversations / seconds);
+    }
+
+    /**
+     * This method answers every conversation of the input file and writes the transcripts
+     * to the output file.
+     *
+     * @param The paths of the input and output files.
+     * @return The number of conversations answered.
+     */
+    public long run(Path inputPath, Path outputPath) throws IOException, InterruptedException
+    {
+        try(BufferedReader reader = Files.newBufferedReader(inputPath,
+                StandardCharsets.UTF_8);
+            BufferedWriter writer = Files.newBufferedWriter(outputPath,
+                StandardCharsets.UTF_8)) {
+            return run(reader, writer);
+        }
+    }
+
+    /**
+     * This method answers every conversation read from a reader and writes the transcripts,
+     * in the same order, to a writer.
+     *
+     * @param The reader of conversations and the writer of transcripts.
+     * @return The number of conversations answered.
+     */
+    public long run(BufferedReader reader, Writer writer)
+        throws IOException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        // This holds the transcripts in progress, oldest first; it never holds more than a
+        // few per thread, which keeps the memory used steady.
+        ArrayDeque<Future<String>> pendingTranscripts = new ArrayDeque<>();
+        int maxPending = threadCount * 4;
+        long conversationNumber = 0;
+        try {
+            List<String> conversation = readConversation(reader);
+            while(conversation != null) {
+                long conversationSeed = seed + conversationNumber++;
+                List<String> lines = conversation;
+                pendingTranscripts.add(executor.submit(() -> answer(lines, conversationSeed)));
+                if(pendingTranscripts.size() >= maxPending) {
+                    writer.write(awaitTranscript(pendingTranscripts.poll()));
+                }
+                conversation = readConversation(reader);
+            }
+            while(!pendingTranscripts.isEmpty()) {
+                writer.write(awaitTranscript(pendingTranscripts.poll()));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        writer.flush();
+        return conversationNumber;
+    }
+
+    /**
+     * This method reads the lines of the next conversation: the name, then every line up to
+     * and including the one that ends the conversation. Blank lines between conversations
+     * are skipped.
+     *
+     * @param The reader of conversations.
+     * @return The lines of the conversation, or null if there are no more.
+     */
+    private List<String> readConversation(BufferedReader reader) throws IOException
+    {
+        String line = reader.readLine();
+        while(line != null && line.trim().isEmpty()) {
+            line = reader.readLine();
+        }
+        if(line == null) {
+            return null;
+        }
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(line);
+        line = reader.readLine();
+        while(line != null) {
+            lines.add(line);
+            if(line.contains(endingString)) {
+                break;
+            }
+            line = reader.readLine();
+        }
+        return lines;
+    }
+
+    /**
+     * This method answers one conversation just as Chatter would.
+     *
+     * @param The lines of the conversation and the seed for its Responder.
+     * @return The transcript of the conversation.
+     */
+    private String answer(List<String> lines, long conversationSeed)
+    {
+        StringWriter transcript = new StringWriter();
+        ResponseSink sink = new BatchingSink(transcript, Integer.MAX_VALUE);
+        Responder responder = new Responder(replyTables, sink,
+            new SessionRandom(conversationSeed));
+        responder.printWelcome();
+        sink.writeLine("> " + lines.get(0));
+        responder.setName(lines.get(0));
+        for(int index = 1; index < lines.size(); index++) {
+            String input = lines.get(index);
+            sink.writeLine("> " + input);
+            if(input.contains(endingString)) {
+                responder.printGoodbye();
+                break;
+            }
+            responder.generateResponse(input);
+        }
+        sink.flush();
+        return transcript.toString();
+    }
+
+    /**
+     * This method waits for a transcript to be finished.
+     *
+     * @param The future of the transcript.
+     * @return The transcript.
+     */
+    private static String awaitTranscript(Future<String> transcript)
+        throws InterruptedException
+    {
+        try {
+            return transcript.get();
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("A conversation could not be answered.",
+                e.getCause());
+        }
+    }
+}
@@ -0,0 +1,568 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * This class keeps a record of every exchange of every session, for audit: each line the
+ * user typed and each response DYNAMIS gave, in the order they happened. The record is an
+ * append-only journal of binary segment files in one directory. Sessions only hand their
+ * entries over and carry on; a single commit thread gathers whatever has come in from all
+ * of them during one commit window and writes it out together, so a busy server makes one
+ * write, and at most one fsync, per window instead of one per line.
+ *
+ * How often the data is forced to disk is up to the fsync policy: after every commit (the
+ * default), at most once per some number of milliseconds, or never, leaving it to the
+ * operating system. If the process crashes, only the entries of the window not yet
+ * committed are lost; if the whole machine goes down, the same holds when every commit is
+ * forced.
+ *
+ * A segment starts with the magic number and the format version. Each entry after that is
+ * the length of its body and a CRC32C checksum of it, and then the body: the session's ID,
+ * the time in milliseconds, whether it is input or output, and the text in UTF-8. A torn
+ * entry at the end of the last segment, left by a crash, is cut off when the journal is
+ * opened again, and every opening starts a new segment. A segment rolls over to the next
+ * once it passes a set size, and whole segments are deleted once they pass a set age.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class TranscriptJournal
+{
+    public static final int MAGIC = 0x4459544A;        // "DYTJ"
+    public static final int VERSION = 1;
+    public static final int INPUT = 0;
+    public static final int OUTPUT = 1;
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    public static final long DEFAULT_COMMIT_MILLIS = 10;
+
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int ENTRY_HEADER_BYTES = 8;
+    static final int BODY_HEADER_BYTES = 17;
+    static final String SEGMENT_PREFIX = "transcript-";
+    static final String SEGMENT_SUFFIX = ".dyj";
+    // Once this much is waiting, the window is cut short; at four times as much, sessions
+    // wait for the commit thread to catch up rather than piling up more.
+    private static final int EARLY_COMMIT_BYTES = 1 << 20;
+    private static final int MAX_PENDING_BYTES = 4 * EARLY_COMMIT_BYTES;
+    private static final long COMPACTION_INTERVAL_MILLIS = 60_000;
+
+    private Path directory;
+    private long segmentBytes;
+    private long commitMillis;
+    private long fsyncMillis;
+    private long maxAgeMillis;
+
+    private Object lock;
+    private ByteBuffer pending;
+    private ByteBuffer committing;
+    private long appendedCount;
+    private long committedCount;
+    private boolean isClosed;
+    private volatile IOException failure;
+
+    private Thread commitThread;
+    private FileChannel segment;
+    private volatile long segmentIndex;
+    private long lastForceTime;
+    private boolean hasUnforcedBytes;
+    private long lastCompactionTime;
+    private AtomicLong nextSessionId;
+    /**
+     * This constructor opens the journal in a directory, creating the directory if needed,
+     * and starts its commit thread.
+     *
+     * @param The directory of the segment files; the size at which a segment rolls over;
+     * the length of a commit window in milliseconds; how often to force the data to disk,
+     * as 0 for every commit, a number of milliseconds, or -1 for never; and the age in
+     * milliseconds after which segments are deleted, or 0 to keep them forever.
+     */
+    public TranscriptJournal(Path directory, long segmentBytes, long commitMillis,
+        long fsyncMillis, long maxAgeMillis) throws IOException
+    {
+        if(segmentBytes <= SEGMENT_HEADER_BYTES || commitMillis <= 0) {
+            throw new IllegalArgumentException("The segment size and commit window of the "
+                + "journal must be positive.");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.commitMillis = commitMillis;
+        this.fsyncMillis = fsyncMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        lock = new Object();
+        pending = ByteBuffer.allocate(64 * 1024);
+        committing = ByteBuffer.allocate(64 * 1024);
+        appendedCount = 0;
+        committedCount = 0;
+        isClosed = false;
+        // Session IDs count up from the time the journal was opened, in thousandths of a
+        // millisecond, so they never repeat across restarts unless more than a thousand
+        // sessions a millisecond were started.
+        nextSessionId = new AtomicLong(System.currentTimeMillis() * 1000);
+
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments(directory);
+        segmentIndex = 0;
+        if(!segments.isEmpty()) {
+            Path lastSegment = segments.get(segments.size() - 1);
+            segmentIndex = parseSegmentIndex(lastSegment);
+            truncateTornEntry(lastSegment);
+        }
+        openNextSegment();
+        lastForceTime = System.currentTimeMillis();
+        hasUnforcedBytes = false;
+        lastCompactionTime = 0;
+
+        commitThread = new Thread(this::runCommits, "dynamis-journal-commit");
+        commitThread.setDaemon(true);
+        commitThread.start();
+    }
+
+    /**
+     * This method opens the journal named by the system property "dynamis.journal", with
+     * the settings of "dynamis.journal.segmentMegabytes", "dynamis.journal.commitMillis",
+     * "dynamis.journal.fsyncMillis" and "dynamis.journal.maxAgeHours".
+     *
+     * @return The journal, or null if "dynamis.journal" is not set.
+     */
+    public static TranscriptJournal openFromProperties() throws IOException
+    {
+        String path = System.getProperty("dynamis.journal");
+        if(path == null) {
+            return null;
+        }
+        long segmentMegabytes = Long.getLong("dynamis.journal.segmentMegabytes",
+            DEFAULT_SEGMENT_BYTES >> 20);
+        return new TranscriptJournal(Paths.get(path), segmentMegabytes << 20,
+            Long.getLong("dynamis.journal.commitMillis", DEFAULT_COMMIT_MILLIS),
+            Long.getLong("dynamis.journal.fsyncMillis", 0),
+            Long.getLong("dynamis.journal.maxAgeHours", 0) * 3_600_000);
+    }
+
+    /**
+     * This method gives out an ID for a new session that no other session in the journal
+     * has.
+     *
+     * @return The session's ID.
+     */
+    public long startSession()
+    {
+        return nextSessionId.getAndIncrement();
+    }
+
+    /**
+     * This method hands an entry to the journal; it is written with the next commit. Any
+     * number of threads may append at once, and the entries of each thread keep their
+     * order.
+     *
+     * @param The session's ID, INPUT or OUTPUT, and the text.
+     * @return The number of entries appended so far, counting this one.
+     * @throws UncheckedIOException  If the journal could not write an earlier commit.
+     * @throws IllegalStateException  If the journal has been closed.
+     */
+    public long append(long sessionId, int kind, String text)
+    {
+        // The entry is put together before taking the lock, so that sessions only hold it
+        // for a copy.
+        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_BYTES + BODY_HEADER_BYTES
+            + textBytes.length);
+        entry.putInt(BODY_HEADER_BYTES + textBytes.length).putInt(0);
+        entry.putLong(sessionId).putLong(System.currentTimeMillis()).put((byte) kind);
+        entry.put(textBytes);
+        CRC32C checksum = new CRC32C();
+        checksum.update(entry.array(), ENTRY_HEADER_BYTES, entry.capacity()
+            - ENTRY_HEADER_BYTES);
+        entry.putInt(4, (int) checksum.getValue());
+        entry.flip();
+
+        synchronized(lock) {
+            while(pending.position() >= MAX_PENDING_BYTES && !isClosed && failure == null) {
+                awaitCommitThread();
+            }
+            checkUsable();
+            if(pending.remaining() < entry.remaining()) {
+                pending = grow(pending, entry.remaining());
+            }
+            pending.put(entry);
+            if(pending.position() >= EARLY_COMMIT_BYTES) {
+                lock.notifyAll();
+            }
+            return ++appendedCount;
+        }
+    }
+
+    /**
+     * This method waits until every entry appended so far has been committed.
+     *
+     * @throws IOException  If the journal could not write them, or the wait was interrupted.
+     */
+    public void flush() throws IOException
+    {
+        synchronized(lock) {
+            long target = appendedCount;
+            lock.notifyAll();
+            while(committedCount < target && failure == null) {
+                try {
+                    lock.wait();
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(
+                        "Waiting for the journal was interrupted.");
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * This method commits whatever is left, forces it to disk, and closes the journal.
+     */
+    public void close() throws IOException
+    {
+        synchronized(lock) {
+            if(isClosed) {
+                return;
+            }
+            isClosed = true;
+            lock.notifyAll();
+        }
+        try {
+            commitThread.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Closing the journal was interrupted.");
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * This method deletes every segment but the one being written whose last change is
+     * older than the given age.
+     *
+     * @param The age in milliseconds.
+     * @return The number of segments deleted.
+     */
+    public int compact(long maxAgeMillis) throws IOException
+    {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int deletedCount = 0;
+        for(Path path : listSegments(directory)) {
+            if(parseSegmentIndex(path) >= segmentIndex) {
+                break;
+            }
+            try {
+                if(Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                    Files.delete(path);
+                    deletedCount++;
+                }
+            }
+            catch(NoSuchFileException e) {
+                // Someone else deleted it first.
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * This is an accessor for whether the journal has been closed, after which append
+     * throws an IllegalStateException.
+     *
+     * @return Whether close has been called.
+     */
+    public boolean isClosed()
+    {
+        synchronized(lock) {
+            return isClosed;
+        }
+    }
+
+    /**
+     * This is an accessor for the journal's directory.
+     *
+     * @return The directory of the segment files.
+     */
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * This method is the commit thread: once per window, or sooner if much has come in, it
+     * takes everything waiting and writes it out in one go.
+     */
+    private void runCommits()
+    {
+        boolean isFinished = false;
+        while(!isFinished) {
+            long batchEnd;
+            synchronized(lock) {
+                if(!isClosed && pending.position() < EARLY_COMMIT_BYTES) {
+                    try {
+                        lock.wait(commitMillis);
+                    }
+                    catch(InterruptedException e) {
+                        isClosed = true;
+                    }
+                }
+                isFinished = isClosed;
+                ByteBuffer batch = pending;
+                pending = committing;
+                committing = batch;
+                batchEnd = appendedCount;
+                // Sessions waiting for room in the pending buffer can go on.
+                lock.notifyAll();
+            }
+            try {
+                commit(isFinished);
+            }
+            catch(IOException e) {
+                failure = e;
+                isFinished = true;
+            }
+            synchronized(lock) {
+                committedCount = batchEnd;
+                lock.notifyAll();
+            }
+        }
+        try {
+            segment.close();
+        }
+        catch(IOException e) {
+            if(failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * This method writes the batch that the commit thread has taken, rolls over to a new
+     * segment if the current one is full, and forces the data to disk as the fsync policy
+     * says. Now and then it also deletes old segments.
+     *
+     * @param Whether this is the last commit before the journal closes, which is always
+     * forced.
+     */
+    private void commit(boolean isLast) throws IOException
+    {
+        committing.flip();
+        if(committing.hasRemaining()) {
+            hasUnforcedBytes = true;
+        }
+        while(committing.hasRemaining()) {
+            segment.write(committing);
+        }
+        committing.clear();
+        long now = System.currentTimeMillis();
+        if(segment.position() >= segmentBytes) {
+            segment.force(false);
+            segment.close();
+            openNextSegment();
+            lastForceTime = now;
+            hasUnforcedBytes = false;
+        }
+        // What was written in an earlier window is still forced once its interval is up,
+        // even if nothing has come in since, so that a quiet spell cannot leave it unforced.
+        else if(isLast || (hasUnforcedBytes && fsyncMillis >= 0
+            && now - lastForceTime >= fsyncMillis)) {
+            segment.force(false);
+            lastForceTime = now;
+            hasUnforcedBytes = false;
+        }
+        if(maxAgeMillis > 0 && now - lastCompactionTime >= COMPACTION_INTERVAL_MILLIS) {
+            lastCompactionTime = now;
+            compact(maxAgeMillis);
+        }
+    }
+
+    /**
+     * This method starts the segment after the current one.
+     */
+    private void openNextSegment() throws IOException
+    {
+        segmentIndex++;
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX,
+            segmentIndex, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while(header.hasRemaining()) {
+            segment.write(header);
+        }
+    }
+
+    /**
+     * This method waits, holding the lock, for the commit thread to make room.
+     */
+    private void awaitCommitThread()
+    {
+        lock.notifyAll();
+        try {
+            lock.wait();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Waiting for the journal was interrupted.", e);
+        }
+    }
+
+    /**
+     * This method makes sure that the journal can still take entries.
+     */
+    private void checkUsable()
+    {
+        if(failure != null) {
+            throw new UncheckedIOException("The journal could not be written.", failure);
+        }
+        if(isClosed) {
+            throw new IllegalStateException("The journal is closed.");
+        }
+    }
+
+    /**
+     * This method makes a larger copy of a buffer.
+     *
+     * @param The buffer and the number of bytes more it must hold.
+     * @return The new buffer, holding what the old one did.
+     */
+    private static ByteBuffer grow(ByteBuffer buffer, int extraBytes)
+    {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+            buffer.position() + extraBytes));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * This method cuts off the end of a segment after its last whole entry, which is where
+     * a crash in the middle of a write leaves it.
+     *
+     * @param The path of the segment.
+     */
+    private static void truncateTornEntry(Path path) throws IOException
+    {
+        long validLength;
+        try(TranscriptJournalReader reader = new TranscriptJournalReader(List.of(path), -1)) {
+            while(reader.next() != null) {
+                // Each entry is read only to find where the last whole one ends.
+            }
+            validLength = reader.getValidLength();
+        }
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if(channel.size() > validLength) {
+                channel.truncate(validLength);
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * This method lists the segment files of a journal, oldest first.
+     *
+     * @param The directory of the journal.
+     * @return The paths of its segments.
+     */
+    static List<Path> listSegments(Path directory) throws IOException
+    {
+        List<Path> segments = new ArrayList<>();
+        try(Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(segments::add);
+        }
+        return segments;
+    }
+
+    /**
+     * This method reads the number of a segment from its file name.
+     *
+     * @param The path of the segment.
+     * @return The number of the segment.
+     */
+    private static long parseSegmentIndex(Path path)
+    {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+            name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * This class is one entry of the journal, as read back by a TranscriptJournalReader.
+     */
+    public static class Entry
+    {
+        private long sessionId;
+        private long timeMillis;
+        private int kind;
+        private String text;
+
+        Entry(long sessionId, long timeMillis, int kind, String text)
+        {
+            this.sessionId = sessionId;
+            this.timeMillis = timeMillis;
+            this.kind = kind;
+            this.text = text;
+        }
+
+        /**
+         * This is an accessor for the ID of the session the entry belongs to.
+         *
+         * @return The session's ID.
+         */
+        public long getSessionId()
+        {
+            return sessionId;
+        }
+
+        /**
+         * This is an accessor for when the entry was appended.
+         *
+         * @return The time in milliseconds since 1970.
+         */
+        public long getTimeMillis()
+        {
+            return timeMillis;
+        }
+
+        /**
+         * This is an accessor for whether the entry is the user's input or DYNAMIS's output.
+         *
+         * @return INPUT or OUTPUT.
+         */
+        public int getKind()
+        {
+            return kind;
+        }
+
+        /**
+         * This is an accessor for the text of the entry.
+         *
+         * @return The text.
+         */
+        public String getText()
+        {
+            return text;
+        }
+    }
+}
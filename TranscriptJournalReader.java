@@ -0,0 +1,301 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * This class reads a TranscriptJournal back, one entry at a time, from the oldest segment
+ * to the newest: either every entry, or only those of one session, which then come out as
+ * that session's history in the order it happened. It can read a journal that is still
+ * being written, and stops quietly at an entry that is not whole yet, or that a crash tore.
+ * A damaged entry with whole ones after it is skipped instead: the reader looks for the
+ * next entry whose checksum holds and goes on from there, counting what it skipped.
+ *
+ * It is also run as "java TranscriptJournalReader <directory> [session ID]" to print the
+ * journal, or one session of it, for a person to read.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.02 (2026.10.17)
+ */
+public class TranscriptJournalReader implements Closeable
+{
+    private static final int MAX_ENTRY_BYTES = 64 << 20;
+
+    private List<Path> segments;
+    private int nextSegment;
+    private long sessionId;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long validLength;
+    private boolean isAtEnd;
+    private long damagedCount;
+    private long skippedBytes;
+    /**
+     * This constructor opens a journal's directory for reading.
+     *
+     * @param The directory of the journal and the ID of the session to read, or -1 for
+     * every session.
+     */
+    public TranscriptJournalReader(Path directory, long sessionId) throws IOException
+    {
+        this(TranscriptJournal.listSegments(directory), sessionId);
+    }
+
+    /**
+     * This constructor reads the given segments, in order.
+     *
+     * @param The paths of the segments and the ID of the session to read, or -1 for every
+     * session.
+     */
+    TranscriptJournalReader(List<Path> segments, long sessionId)
+    {
+        this.segments = segments;
+        this.sessionId = sessionId;
+        nextSegment = 0;
+        buffer = ByteBuffer.allocate(64 * 1024);
+        buffer.flip();
+    }
+
+    /**
+     * This prints the journal in the directory given as the first argument, or only the
+     * session given as the second.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length < 1) {
+            System.err.println("Usage: java TranscriptJournalReader <directory> [session ID]");
+            return;
+        }
+        long sessionId = args.length > 1 ? Long.parseLong(args[1]) : -1;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        try(TranscriptJournalReader reader = new TranscriptJournalReader(Paths.get(args[0]),
+            sessionId)) {
+            TranscriptJournal.Entry entry = reader.next();
+            while(entry != null) {
+                String marker = entry.getKind() == TranscriptJournal.INPUT ? "> " : "";
+                System.out.println(format.format(new Date(entry.getTimeMillis())) + " "
+                    + entry.getSessionId() + " " + marker + entry.getText().trim());
+                entry = reader.next();
+            }
+            if(reader.getDamagedCount() > 0) {
+                System.err.println("Skipped " + reader.getDamagedCount()
+                    + " damaged stretches of the journal, " + reader.getSkippedBytes()
+                    + " bytes in all.");
+            }
+        }
+    }
+
+    /**
+     * This method reads the next entry.
+     *
+     * @return The entry, or null once there are no more.
+     * @throws IOException  If a segment cannot be read or is not a journal segment.
+     */
+    public TranscriptJournal.Entry next() throws IOException
+    {
+        while(true) {
+            if(channel == null && !openNextSegment()) {
+                return null;
+            }
+            TranscriptJournal.Entry entry = readEntry();
+            if(entry == null) {
+                entry = skipDamage();
+            }
+            if(entry == null) {
+                channel.close();
+                channel = null;
+            }
+            else if(sessionId < 0 || entry.getSessionId() == sessionId) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * This is an accessor for where the last whole entry read from the current segment
+     * ends; once that segment is read to its end, this is as much of it as is sound.
+     *
+     * @return The length in bytes.
+     */
+    long getValidLength()
+    {
+        return validLength;
+    }
+
+    /**
+     * This is an accessor for the number of damaged stretches skipped so far, each of
+     * which had a whole entry after it; a torn end of a segment is not counted.
+     *
+     * @return The number of damaged stretches.
+     */
+    public long getDamagedCount()
+    {
+        return damagedCount;
+    }
+
+    /**
+     * This is an accessor for the number of bytes skipped in damaged stretches so far.
+     *
+     * @return The number of bytes.
+     */
+    public long getSkippedBytes()
+    {
+        return skippedBytes;
+    }
+
+    /**
+     * This method closes the segment being read.
+     */
+    public void close() throws IOException
+    {
+        if(channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * This method opens the next segment that still exists and checks its header.
+     *
+     * @return Whether there was another segment.
+     */
+    private boolean openNextSegment() throws IOException
+    {
+        while(nextSegment < segments.size()) {
+            Path path = segments.get(nextSegment++);
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            catch(NoSuchFileException e) {
+                // It was deleted as too old after the segments were listed.
+                continue;
+            }
+            buffer.clear().flip();
+            validLength = 0;
+            isAtEnd = false;
+            if(!fill(TranscriptJournal.SEGMENT_HEADER_BYTES)) {
+                // The journal was opened but crashed before the header was written out.
+                channel.close();
+                channel = null;
+                continue;
+            }
+            if(buffer.getInt() != TranscriptJournal.MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not a DYNAMIS transcript journal segment.");
+            }
+            int version = buffer.getInt();
+            if(version != TranscriptJournal.VERSION) {
+                channel.close();
+                throw new IOException("The journal segment " + path + " has version "
+                    + version + ", but version " + TranscriptJournal.VERSION + " is needed.");
+            }
+            validLength = TranscriptJournal.SEGMENT_HEADER_BYTES;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method reads the next entry of the current segment.
+     *
+     * @return The entry, or null at the end of the segment or at an entry that is not
+     * whole.
+     */
+    private TranscriptJournal.Entry readEntry() throws IOException
+    {
+        if(!fill(TranscriptJournal.ENTRY_HEADER_BYTES)) {
+            return null;
+        }
+        int bodyLength = buffer.getInt(buffer.position());
+        int expectedChecksum = buffer.getInt(buffer.position() + 4);
+        if(bodyLength < TranscriptJournal.BODY_HEADER_BYTES || bodyLength > MAX_ENTRY_BYTES
+            || !fill(TranscriptJournal.ENTRY_HEADER_BYTES + bodyLength)) {
+            return null;
+        }
+        int bodyStart = buffer.position() + TranscriptJournal.ENTRY_HEADER_BYTES;
+        // The kind is checked first, since it rules out most false starts more cheaply
+        // than the checksum does.
+        int kindByte = buffer.get(bodyStart + 16);
+        if(kindByte != TranscriptJournal.INPUT && kindByte != TranscriptJournal.OUTPUT) {
+            return null;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), bodyStart, bodyLength);
+        if((int) checksum.getValue() != expectedChecksum) {
+            return null;
+        }
+        buffer.position(bodyStart);
+        long entrySessionId = buffer.getLong();
+        long timeMillis = buffer.getLong();
+        int kind = buffer.get();
+        int textLength = bodyLength - TranscriptJournal.BODY_HEADER_BYTES;
+        String text = new String(buffer.array(), buffer.position(), textLength,
+            StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + textLength);
+        validLength += TranscriptJournal.ENTRY_HEADER_BYTES + bodyLength;
+        return new TranscriptJournal.Entry(entrySessionId, timeMillis, kind, text);
+    }
+
+    /**
+     * This method looks past an entry that could not be read for the next whole entry of
+     * the segment, one byte at a time.
+     *
+     * @return The next whole entry, or null if there is none, as at a torn end.
+     */
+    private TranscriptJournal.Entry skipDamage() throws IOException
+    {
+        long skipped = 0;
+        while(fill(1)) {
+            buffer.position(buffer.position() + 1);
+            skipped++;
+            TranscriptJournal.Entry entry = readEntry();
+            if(entry != null) {
+                damagedCount++;
+                skippedBytes += skipped;
+                validLength += skipped;
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method makes sure the buffer holds at least a number of unread bytes, reading
+     * more of the segment if needed.
+     *
+     * @param The number of bytes.
+     * @return Whether the segment had that many bytes left.
+     */
+    private boolean fill(int byteCount) throws IOException
+    {
+        if(buffer.remaining() >= byteCount) {
+            return true;
+        }
+        if(isAtEnd) {
+            return false;
+        }
+        if(byteCount > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(byteCount,
+                buffer.capacity() * 2));
+            larger.put(buffer);
+            buffer = larger;
+        }
+        else {
+            buffer.compact();
+        }
+        while(buffer.position() < byteCount && !isAtEnd) {
+            isAtEnd = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        return buffer.remaining() >= byteCount;
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+
+/**
+ * This class gives each word that Conversation Mode remembers a small int id, so that the
+ * links between topics can be kept as pairs of ints. Each word is stored once no matter how
+ * many links mention it. Ids are handed out from 0 upward; once a word is removed, its id
+ * is given to the next new word, so the ids stay packed near 0.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.03 (2026.10.17)
+ */
+public class WordDictionary
+{
+    private String[] words;
+    // The slots of this open-addressed table hold the ids of words, or -1 where empty.
+    private int[] slotIds;
+    private int mask;
+    private int size;
+    // This is one past the highest id ever handed out.
+    private int idLimit;
+    // These are the ids of removed words, waiting to be handed out again.
+    private int[] freeIds;
+    private int freeIdCount;
+    /**
+     * This constructor creates an empty dictionary.
+     */
+    public WordDictionary()
+    {
+        words = new String[16];
+        slotIds = new int[32];
+        Arrays.fill(slotIds, -1);
+        mask = slotIds.length - 1;
+        size = 0;
+        idLimit = 0;
+        freeIds = new int[4];
+        freeIdCount = 0;
+    }
+
+    /**
+     * This method finds the id of a word, if the word has one.
+     *
+     * @param The word to look up.
+     * @return The id of the word, or -1 if it has never been added.
+     */
+    public int idOf(String word)
+    {
+        int slot = spread(word.hashCode()) & mask;
+        while(slotIds[slot] >= 0) {
+            if(words[slotIds[slot]].equals(word)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method finds the id of a word that sits inside a longer String, such as one word
+     * of an input, without having to cut the word out first.
+     *
+     * @param The String holding the word and the start and end of the word within it.
+     * @return The id of the word, or -1 if it has never been added.
+     */
+    public int idOf(String text, int start, int end)
+    {
+        int length = end - start;
+        // This is the same hash that String.hashCode gives the word on its own.
+        int hash = 0;
+        for(int position = start; position < end; position++) {
+            hash = 31 * hash + text.charAt(position);
+        }
+        int slot = spread(hash) & mask;
+        while(slotIds[slot] >= 0) {
+            String word = words[slotIds[slot]];
+            if(word.length() == length && text.regionMatches(start, word, 0, length)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method finds the id of a word, giving it a new one if it has none yet.
+     *
+     * @param The word to add.
+     * @return The id of the word.
+     */
+    public int add(String word)
+    {
+        int slot = spread(word.hashCode()) & mask;
+        while(slotIds[slot] >= 0) {
+            if(words[slotIds[slot]].equals(word)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id;
+        if(freeIdCount > 0) {
+            id = freeIds[--freeIdCount];
+        }
+        else {
+            id = idLimit++;
+            if(id == words.length) {
+                words = Arrays.copyOf(words, id * 2);
+            }
+        }
+        words[id] = word;
+        slotIds[slot] = id;
+        size++;
+        if(size * 2 > slotIds.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * This method removes a word, freeing its id for reuse. The words after it in the table
+     * are shifted back into place so that lookups never need to skip over removed slots.
+     *
+     * @param The id of the word to remove.
+     */
+    public void remove(int id)
+    {
+        int gap = spread(words[id].hashCode()) & mask;
+        while(slotIds[gap] != id) {
+            gap = (gap + 1) & mask;
+        }
+        int next = (gap + 1) & mask;
+        while(slotIds[next] >= 0) {
+            int home = spread(words[slotIds[next]].hashCode()) & mask;
+            // A word may move into the gap only if the gap lies between its home slot and
+            // where it sits now.
+            if(((next - home) & mask) >= ((next - gap) & mask)) {
+                slotIds[gap] = slotIds[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slotIds[gap] = -1;
+        words[id] = null;
+        if(freeIdCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIdCount * 2);
+        }
+        freeIds[freeIdCount++] = id;
+        size--;
+    }
+
+    /**
+     * This is an accessor for the word behind an id.
+     *
+     * @param The id of the word.
+     * @return The word itself.
+     */
+    public String wordOf(int id)
+    {
+        return words[id];
+    }
+
+    /**
+     * This is an accessor for the number of words in the dictionary.
+     *
+     * @return The number of words held.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * This is an accessor for one past the highest id handed out so far, which is the size
+     * an array indexed by id must have.
+     *
+     * @return The limit on ids.
+     */
+    public int getIdLimit()
+    {
+        return idLimit;
+    }
+
+    /**
+     * This method mixes the high bits of a hash code into the low bits that pick a slot.
+     *
+     * @param The hash code of a word.
+     * @return The mixed hash code.
+     */
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This method doubles the table and places every word again.
+     */
+    private void rehash()
+    {
+        slotIds = new int[slotIds.length * 2];
+        Arrays.fill(slotIds, -1);
+        mask = slotIds.length - 1;
+        for(int id = 0; id < idLimit; id++) {
+            if(words[id] == null) {
+                continue;
+            }
+            int slot = spread(words[id].hashCode()) & mask;
+            while(slotIds[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotIds[slot] = id;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dynamis.jmh;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the cases of ResponderBenchmark under JMH. The cases are set up by
+ * ResponderBenchmark itself, with its fixed seeds, so that both harnesses measure exactly
+ * the same work; JMH then does the warming up, the forking and the measuring. Run with
+ * "-prof gc", as the main method here does, it reports the bytes allocated per operation
+ * as well as the time.
+ *
+ * JMH does not allow benchmarks in the default package, where the rest of DYNAMIS is, and
+ * code in a named package cannot refer to classes in the default package, so the cases are
+ * fetched by reflection, once, before each trial.
+ *
+ * @author     DYNAMIS contributors
+ * @version    0.4.01 (2026.10.17)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponderJmh
+{
+    // Each is the name of a case of ResponderBenchmark, or the start of one whose name
+    // goes on to give a size.
+    @Param({
+        "generateResponse/keyword/0 matches",
+        "generateResponse/keyword/1 match",
+        "generateResponse/keyword/many matches",
+        "runConversationMode/first turn + exit",
+        "runConversationMode/continuation",
+        "checkOtherConversations/10 conversations",
+        "checkOtherConversations/1000 conversations",
+        "checkOtherConversations/100000 conversations",
+        "insertName",
+        "insertNameInReply",
+        "Histogram.record",
+        "SessionStateCodec/1 turns/encode",
+        "SessionStateCodec/1 turns/decode",
+        "SessionStateCodec/100 turns/encode",
+        "SessionStateCodec/100 turns/decode",
+        "knowledge packs/0 matches",
+        "knowledge packs/replaced match",
+        "knowledge packs/added matches"
+    })
+    public String caseName;
+
+    private Runnable operation;
+    /**
+     * This method sets up the chosen case through ResponderBenchmark.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception
+    {
+        // Only the cases of the same group are set up, since some groups take a while.
+        int groupEnd = caseName.indexOf('/');
+        String group = groupEnd < 0 ? caseName : caseName.substring(0, groupEnd);
+        Map<String, Runnable> cases = (Map<String, Runnable>) Class.forName(
+            "ResponderBenchmark").getMethod("collectCases", String.class).invoke(null, group);
+        operation = cases.get(caseName);
+        for(Map.Entry<String, Runnable> entry : cases.entrySet()) {
+            if(operation == null && entry.getKey().startsWith(caseName)) {
+                operation = entry.getValue();
+            }
+        }
+        if(operation == null) {
+            throw new IllegalArgumentException("ResponderBenchmark has no case \""
+                + caseName + "\".");
+        }
+    }
+
+    /**
+     * This method runs the chosen case once.
+     */
+    @Benchmark
+    public void run()
+    {
+        operation.run();
+    }
+
+    /**
+     * This runs every case with the GC profiler, as "java -jar benchmarks.jar -prof gc"
+     * does.
+     */
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ResponderJmh.class.getSimpleName())
+            .addProfiler(GCProfiler.class).build()).run();
+    }
+}